@@ -0,0 +1,109 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openshift.restclient.model.IBuildConfig;
+import com.openshift.restclient.model.IDeploymentConfig;
+import com.openshift.restclient.model.IImageStream;
+import com.openshift.restclient.model.IProject;
+import com.openshift.restclient.model.IService;
+
+/**
+ * The {@link OpenShiftClient} LIST and GET paths against the in-process API
+ * server, with {@code latency} added to every resource request. The watch
+ * cache is off, so every call goes to the server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientBenchmark {
+
+	static final String PRODUCT = "shop";
+	static final List<String> ENVIRONMENTS = Arrays.asList("test", "uat", "prod");
+	static final String NAMESPACE = Fixtures.namespace(PRODUCT, "test");
+
+	@Param({ "0", "5" })
+	public long latency;
+
+	@Param({ "20" })
+	public int apps;
+
+	@Param({ "medium" })
+	public String size;
+
+	private FakeOpenShiftServer server;
+	private OpenShiftClient client;
+
+	@Setup
+	public void setUp() throws Exception {
+		server = new FakeOpenShiftServer();
+		Fixtures.seed(server, PRODUCT, ENVIRONMENTS, apps, size);
+		server.setDelay(latency);
+		client = OpenShiftClient.builder().withCluster(server.config("bench")).build().start();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		client.close();
+		server.close();
+	}
+
+	@Benchmark
+	public Map<String, IDeploymentConfig> getDeploymentConfigs() {
+		return client.getDeploymentConfigs(PRODUCT, NAMESPACE);
+	}
+
+	@Benchmark
+	public Map<String, IService> getServices() {
+		return client.getServices(PRODUCT, NAMESPACE);
+	}
+
+	@Benchmark
+	public Map<String, IImageStream> getImageStreams() {
+		return client.getImageStreams(PRODUCT, NAMESPACE);
+	}
+
+	@Benchmark
+	public Map<String, IProject> getProjects() {
+		return client.getProjects(PRODUCT);
+	}
+
+	@Benchmark
+	public List<IBuildConfig> getBuildConfigs() {
+		return client.getBuildConfigs(PRODUCT);
+	}
+
+	/**
+	 * A GET that misses the resource cache.
+	 */
+	@Benchmark
+	public IBuildConfig getBuildConfig() {
+		client.getResourceCache().clear();
+		return client.getBuildConfig(PRODUCT, Fixtures.app(0));
+	}
+
+	@Benchmark
+	public IBuildConfig getBuildConfigCached() {
+		return client.getBuildConfig(PRODUCT, Fixtures.app(0));
+	}
+
+}
@@ -0,0 +1,227 @@
+package com.estafet.boostcd.openshift;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import com.openshift.restclient.model.IResource;
+
+/**
+ * Resource JSON shaped like what the API server returns for a boostcd product,
+ * in three sizes. {@code small} is a bare manifest, {@code medium} is close to
+ * a typical app and {@code large} carries the environment variables, volumes
+ * and last-applied annotation of a heavily configured one.
+ */
+final class Fixtures {
+
+	static final String SIZES = "small,medium,large";
+
+	private Fixtures() {
+	}
+
+	static int scale(String size) {
+		switch (size) {
+		case "small":
+			return 1;
+		case "medium":
+			return 10;
+		case "large":
+			return 50;
+		default:
+			throw new IllegalArgumentException("Unknown fixture size " + size);
+		}
+	}
+
+	static String namespace(String productId, String env) {
+		return productId + "-" + env;
+	}
+
+	static String app(int index) {
+		return "app-" + index;
+	}
+
+	static String version(int build) {
+		return "0.0." + build;
+	}
+
+	static String sha(String app, String version) {
+		String seed = Integer.toHexString((app + version).hashCode());
+		StringBuilder sha = new StringBuilder("sha256:");
+		while (sha.length() < 71) {
+			sha.append(seed);
+		}
+		return sha.substring(0, 71);
+	}
+
+	static String deploymentConfig(String productId, String env, String app, String version, String size) {
+		int scale = scale(size);
+		StringBuilder variables = new StringBuilder();
+		for (int i = 0; i < scale * 4; i++) {
+			variables.append(i == 0 ? "" : ",").append("{\"name\":\"SETTING_").append(i).append("\",\"value\":\"value-").append(i)
+					.append("-").append(app).append("\"}");
+		}
+		StringBuilder volumes = new StringBuilder();
+		StringBuilder mounts = new StringBuilder();
+		for (int i = 0; i < scale; i++) {
+			volumes.append(i == 0 ? "" : ",").append("{\"name\":\"config-").append(i).append("\",\"configMap\":{\"name\":\"")
+					.append(app).append("-config-").append(i).append("\",\"defaultMode\":420}}");
+			mounts.append(i == 0 ? "" : ",").append("{\"name\":\"config-").append(i).append("\",\"mountPath\":\"/config/").append(i)
+					.append("\"}");
+		}
+		String container = "{\"name\":\"" + app + "\",\"image\":\"172.30.1.1:5000/" + namespace(productId, env) + "/" + app + "@"
+				+ sha(app, version) + "\",\"imagePullPolicy\":\"IfNotPresent\",\"env\":[" + variables + "],"
+				+ "\"ports\":[{\"containerPort\":8080,\"protocol\":\"TCP\"}],\"resources\":{\"limits\":{\"memory\":\"512Mi\"}},"
+				+ "\"readinessProbe\":{\"httpGet\":{\"path\":\"/" + app + "/health\",\"port\":8080,\"scheme\":\"HTTP\"},"
+				+ "\"initialDelaySeconds\":30,\"timeoutSeconds\":1,\"periodSeconds\":10,\"successThreshold\":1,\"failureThreshold\":3},"
+				+ "\"livenessProbe\":{\"httpGet\":{\"path\":\"/" + app + "/health\",\"port\":8080,\"scheme\":\"HTTP\"},"
+				+ "\"initialDelaySeconds\":60,\"timeoutSeconds\":1,\"periodSeconds\":10,\"successThreshold\":1,\"failureThreshold\":3},"
+				+ "\"volumeMounts\":[" + mounts + "],\"terminationMessagePath\":\"/dev/termination-log\"}";
+		String spec = "{\"strategy\":{\"type\":\"Rolling\",\"rollingParams\":{\"updatePeriodSeconds\":1,\"intervalSeconds\":1,"
+				+ "\"timeoutSeconds\":600,\"maxUnavailable\":\"25%\",\"maxSurge\":\"25%\"}},"
+				+ "\"triggers\":[{\"type\":\"ConfigChange\"},{\"type\":\"ImageChange\",\"imageChangeParams\":{\"automatic\":true,"
+				+ "\"containerNames\":[\"" + app + "\"],\"from\":{\"kind\":\"ImageStreamTag\",\"namespace\":\"" + namespace(productId, env)
+				+ "\",\"name\":\"" + app + ":" + version + "\"},\"lastTriggeredImage\":\"172.30.1.1:5000/" + namespace(productId, env) + "/"
+				+ app + "@" + sha(app, version) + "\"}}],\"replicas\":1,\"selector\":{\"app\":\"" + app + "\",\"deploymentconfig\":\""
+				+ app + "\"},\"template\":{\"metadata\":{\"labels\":{\"app\":\"" + app + "\",\"deploymentconfig\":\"" + app + "\"}},"
+				+ "\"spec\":{\"containers\":[" + container + "],\"volumes\":[" + volumes + "],\"restartPolicy\":\"Always\","
+				+ "\"dnsPolicy\":\"ClusterFirst\",\"securityContext\":{}}}}";
+		String status = "{\"latestVersion\":3,\"observedGeneration\":5,\"replicas\":1,\"updatedReplicas\":1,\"availableReplicas\":1,"
+				+ "\"conditions\":[{\"type\":\"Available\",\"status\":\"True\",\"lastUpdateTime\":\"2020-03-02T10:15:30Z\","
+				+ "\"lastTransitionTime\":\"2020-03-02T10:15:30Z\",\"message\":\"Deployment config has minimum availability.\"},"
+				+ "{\"type\":\"Progressing\",\"status\":\"True\",\"lastUpdateTime\":\"2020-03-02T10:16:05Z\","
+				+ "\"lastTransitionTime\":\"2020-03-02T10:15:12Z\",\"reason\":\"NewReplicationControllerAvailable\","
+				+ "\"message\":\"replication controller \\\"" + app + "-3\\\" successfully rolled out\"}]}";
+		return "{\"kind\":\"DeploymentConfig\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + app + "\",\"namespace\":\""
+				+ namespace(productId, env) + "\",\"uid\":\"" + uid(namespace(productId, env), app) + "\",\"resourceVersion\":\"?\","
+				+ "\"generation\":5,\"creationTimestamp\":\"2020-03-01T09:00:00Z\",\"labels\":{\"app\":\"" + app + "\",\"product\":\""
+				+ productId + "\",\"environment\":\"" + env + "\"},\"annotations\":{" + lastApplied(spec, scale) + "}},"
+				+ "\"spec\":" + spec + ",\"status\":" + status + "}";
+	}
+
+	static String imageStream(String productId, String env, String app, int tags, String size) {
+		int history = scale(size);
+		StringBuilder statusTags = new StringBuilder();
+		StringBuilder specTags = new StringBuilder();
+		for (int tag = 1; tag <= tags; tag++) {
+			statusTags.append(tag == 1 ? "" : ",").append("{\"tag\":\"").append(version(tag)).append("\",\"items\":[");
+			for (int item = 0; item < history; item++) {
+				String image = sha(app, version(tag) + (item == 0 ? "" : "-" + item));
+				statusTags.append(item == 0 ? "" : ",").append("{\"created\":\"2020-03-01T09:00:00Z\",\"dockerImageReference\":")
+						.append("\"172.30.1.1:5000/").append(namespace(productId, env)).append("/").append(app).append("@").append(image)
+						.append("\",\"image\":\"").append(image).append("\",\"generation\":").append(tag).append("}");
+			}
+			statusTags.append("]}");
+			specTags.append(tag == 1 ? "" : ",").append("{\"name\":\"").append(version(tag)).append("\",\"annotations\":null,")
+					.append("\"generation\":").append(tag).append(",\"importPolicy\":{},\"referencePolicy\":{\"type\":\"Source\"}}");
+		}
+		return "{\"kind\":\"ImageStream\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + app + "\",\"namespace\":\""
+				+ namespace(productId, env) + "\",\"uid\":\"" + uid(namespace(productId, env), app) + "\",\"resourceVersion\":\"?\","
+				+ "\"labels\":{\"app\":\"" + app + "\",\"product\":\"" + productId + "\"}},"
+				+ "\"spec\":{\"lookupPolicy\":{\"local\":false},\"tags\":[" + specTags + "]},"
+				+ "\"status\":{\"dockerImageRepository\":\"172.30.1.1:5000/" + namespace(productId, env) + "/" + app + "\","
+				+ "\"tags\":[" + statusTags + "]}}";
+	}
+
+	static String buildConfig(String productId, String app, String size) {
+		int scale = scale(size);
+		StringBuilder env = new StringBuilder();
+		for (int i = 0; i < scale * 2; i++) {
+			env.append(i == 0 ? "" : ",").append("{\"name\":\"BUILD_SETTING_").append(i).append("\",\"value\":\"").append(i).append("\"}");
+		}
+		String spec = "{\"triggers\":[{\"type\":\"GitHub\",\"github\":{\"secret\":\"secret101\"}},{\"type\":\"ConfigChange\"}],"
+				+ "\"runPolicy\":\"Serial\",\"source\":{\"type\":\"Git\",\"git\":{\"uri\":\"https://github.com/boostcd/" + app + ".git\","
+				+ "\"ref\":\"master\"}},\"strategy\":{\"type\":\"JenkinsPipeline\",\"jenkinsPipelineStrategy\":{\"jenkinsfilePath\":"
+				+ "\"Jenkinsfile\",\"env\":[" + env + "]}},\"output\":{},\"resources\":{},\"postCommit\":{},\"nodeSelector\":null}";
+		return "{\"kind\":\"BuildConfig\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + app + "\",\"namespace\":\"" + productId
+				+ "-build\",\"uid\":\"" + uid(productId + "-build", app) + "\",\"resourceVersion\":\"?\",\"labels\":{\"app\":\"" + app
+				+ "\",\"product\":\"" + productId + "\"},\"annotations\":{" + lastApplied(spec, scale) + "}},"
+				+ "\"spec\":" + spec + ",\"status\":{\"lastVersion\":12}}";
+	}
+
+	static String service(String productId, String env, String app, String size) {
+		int scale = scale(size);
+		StringBuilder ports = new StringBuilder();
+		for (int i = 0; i < scale; i++) {
+			ports.append(i == 0 ? "" : ",").append("{\"name\":\"port-").append(8080 + i).append("\",\"protocol\":\"TCP\",\"port\":")
+					.append(8080 + i).append(",\"targetPort\":").append(8080 + i).append("}");
+		}
+		String spec = "{\"ports\":[" + ports + "],\"selector\":{\"app\":\"" + app + "\",\"deploymentconfig\":\"" + app + env + "\"},"
+				+ "\"clusterIP\":\"172.30." + (Math.abs(app.hashCode()) % 250) + "." + (Math.abs(env.hashCode()) % 250) + "\","
+				+ "\"type\":\"ClusterIP\",\"sessionAffinity\":\"None\"}";
+		return "{\"kind\":\"Service\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + app + "\",\"namespace\":\""
+				+ namespace(productId, env) + "\",\"uid\":\"" + uid(namespace(productId, env), app) + "\",\"resourceVersion\":\"?\","
+				+ "\"labels\":{\"app\":\"" + app + "\",\"product\":\"" + productId + "\"},\"annotations\":{" + lastApplied(spec, scale)
+				+ "}},\"spec\":" + spec + ",\"status\":{\"loadBalancer\":{}}}";
+	}
+
+	static String project(String productId, String env, boolean testPassed) {
+		return "{\"kind\":\"Project\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + namespace(productId, env) + "\","
+				+ "\"resourceVersion\":\"?\",\"labels\":{\"product\":\"" + productId + "\",\"stage\":\"true\",\"test-passed\":\""
+				+ testPassed + "\"}},\"spec\":{\"finalizers\":[\"openshift.io/origin\",\"kubernetes\"]},\"status\":{\"phase\":\"Active\"}}";
+	}
+
+	/**
+	 * Adds a product with {@code apps} apps deployed in each environment, plus
+	 * its BuildConfigs, to the server. The app's version falls behind by one
+	 * build per environment, as it would part way through a promotion.
+	 */
+	static void seed(FakeOpenShiftServer server, String productId, List<String> envs, int apps, String size) {
+		for (int app = 0; app < apps; app++) {
+			server.put("/oapi/v1/namespaces/" + productId + "-build/buildconfigs", app(app), buildConfig(productId, app(app), size));
+		}
+		for (int position = 0; position < envs.size(); position++) {
+			String env = envs.get(position);
+			String namespace = namespace(productId, env);
+			server.put("/oapi/v1/projects", namespace, project(productId, env, position % 2 == 0));
+			for (int app = 0; app < apps; app++) {
+				String version = version(envs.size() + 1 - position);
+				server.put("/oapi/v1/namespaces/" + namespace + "/deploymentconfigs", app(app),
+						deploymentConfig(productId, env, app(app), version, size));
+				server.put("/api/v1/namespaces/" + namespace + "/services", app(app), service(productId, env, app(app), size));
+				server.put("/oapi/v1/namespaces/" + namespace + "/imagestreams", app(app),
+						imageStream(productId, env, app(app), envs.size() + 1, size));
+			}
+		}
+	}
+
+	/**
+	 * Builds restclient model objects from fixture JSON. The resource factory
+	 * needs API discovery, so a server is started for the duration.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T extends IResource> List<T> create(List<String> json) {
+		List<T> result = new ArrayList<T>();
+		try (FakeOpenShiftServer server = new FakeOpenShiftServer()) {
+			OpenShiftSession session = new OpenShiftSession(server.getUrl(), "developer", "developer");
+			try {
+				for (String resource : json) {
+					result.add((T) session.getClient().getResourceFactory().create(
+							resource.replace("\"resourceVersion\":\"?\"", "\"resourceVersion\":\"" + (result.size() + 1) + "\"")));
+				}
+			} finally {
+				session.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return result;
+	}
+
+	static <T extends IResource> T create(String json) {
+		return Fixtures.<T>create(Collections.singletonList(json)).get(0);
+	}
+
+	private static String uid(String namespace, String name) {
+		return new UUID(namespace.hashCode(), name.hashCode()).toString();
+	}
+
+	private static String lastApplied(String spec, int scale) {
+		if (scale == 1) {
+			return "";
+		}
+		return "\"kubectl.kubernetes.io/last-applied-configuration\":\"" + spec.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+}
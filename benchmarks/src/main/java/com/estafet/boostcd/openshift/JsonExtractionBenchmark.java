@@ -0,0 +1,111 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openshift.restclient.model.IDeploymentConfig;
+import com.openshift.restclient.model.IImageStream;
+import com.openshift.restclient.model.IResource;
+
+/**
+ * The streaming {@link JsonPathExtractor} against the full json-simple DOM
+ * parse the parsers used before, on the same DeploymentConfig and ImageStream
+ * JSON. The {@code dom} methods parse the whole document and then read the
+ * fields through the same parser code, so the difference is the extraction
+ * alone. The {@code fromModel} variants start from a restclient resource and
+ * include its {@code toJson()}, as the parsers did when given one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonExtractionBenchmark {
+
+	private static final int TAGS = 20;
+
+	@Param({ "small", "medium", "large" })
+	public String size;
+
+	private String deploymentConfigJson;
+	private String imageStreamJson;
+	private IDeploymentConfig deploymentConfig;
+	private IImageStream imageStream;
+	private String tag;
+
+	@Setup
+	public void setUp() {
+		deploymentConfigJson = Fixtures.deploymentConfig("shop", "test", "basket", Fixtures.version(7), size);
+		imageStreamJson = Fixtures.imageStream("shop", "test", "basket", TAGS, size);
+		List<IResource> resources = Fixtures.create(Arrays.asList(deploymentConfigJson, imageStreamJson));
+		deploymentConfig = (IDeploymentConfig) resources.get(0);
+		imageStream = (IImageStream) resources.get(1);
+		tag = Fixtures.version(TAGS / 2);
+	}
+
+	@Benchmark
+	public String deploymentConfigStreaming() {
+		return new DeploymentConfigParser(deploymentConfigJson).getVersion();
+	}
+
+	@Benchmark
+	public String deploymentConfigDom() {
+		return new DeploymentConfigParser(dom(deploymentConfigJson)).getVersion();
+	}
+
+	@Benchmark
+	public String deploymentConfigStreamingFromModel() {
+		return new DeploymentConfigParser(deploymentConfig.toJson()).getVersion();
+	}
+
+	@Benchmark
+	public String deploymentConfigDomFromModel() {
+		return new DeploymentConfigParser(dom(deploymentConfig.toJson())).getVersion();
+	}
+
+	@Benchmark
+	public String imageStreamStreaming() {
+		return new ImageStreamParser(imageStreamJson).findShaByTag(tag).orElse(null);
+	}
+
+	@Benchmark
+	public String imageStreamDom() {
+		return ImageStreamIndex.build(dom(imageStreamJson)).findShaByTag(tag).orElse(null);
+	}
+
+	@Benchmark
+	public String imageStreamStreamingFromModel() {
+		return new ImageStreamParser(imageStream.toJson()).findShaByTag(tag).orElse(null);
+	}
+
+	@Benchmark
+	public String imageStreamDomFromModel() {
+		return ImageStreamIndex.build(dom(imageStream.toJson())).findShaByTag(tag).orElse(null);
+	}
+
+	private static JSONObject dom(String json) {
+		try {
+			return (JSONObject) new JSONParser().parse(json);
+		} catch (ParseException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openshift.restclient.model.IDeploymentConfig;
+import com.openshift.restclient.model.IService;
+
+/**
+ * The lean LIST reads against the full LIST the callers made before, reading
+ * the same fields from {@code apps} DeploymentConfigs and Services.
+ * {@code listBytes} over {@code operations} is the LIST body the server sent
+ * for each read. The allocation {@code -prof gc} reports includes the
+ * in-process server, so compare the time per read rather than the bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeanListBenchmark {
+
+	private static final String PRODUCT = "shop";
+	private static final String NAMESPACE = Fixtures.namespace(PRODUCT, "test");
+	private static final String DEPLOYMENT_CONFIGS = "/oapi/v1/namespaces/" + NAMESPACE + "/deploymentconfigs";
+	private static final String SERVICES = "/api/v1/namespaces/" + NAMESPACE + "/services";
+
+	@Param({ "20" })
+	public int apps;
+
+	@Param({ "small", "medium", "large" })
+	public String size;
+
+	private FakeOpenShiftServer server;
+	private OpenShiftClient client;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Transfer {
+
+		public long listBytes;
+		public long operations;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			listBytes = 0;
+			operations = 0;
+		}
+
+	}
+
+	@Setup
+	public void setUp() throws Exception {
+		server = new FakeOpenShiftServer();
+		Fixtures.seed(server, PRODUCT, Collections.singletonList("test"), apps, size);
+		client = OpenShiftClient.builder().withCluster(server.config("bench")).build().start();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		client.close();
+		server.close();
+	}
+
+	@Benchmark
+	public Map<String, String> fullDeploymentConfigs(Transfer transfer) {
+		long before = server.getListBytes(DEPLOYMENT_CONFIGS);
+		Map<String, String> versions = new HashMap<String, String>();
+		for (IDeploymentConfig dc : client.getDeploymentConfigs(PRODUCT, NAMESPACE).values()) {
+			versions.put(dc.getName(), read(new DeploymentConfigParser(dc)));
+		}
+		count(transfer, DEPLOYMENT_CONFIGS, before);
+		return versions;
+	}
+
+	@Benchmark
+	public Map<String, String> leanDeploymentConfigs(Transfer transfer) {
+		long before = server.getListBytes(DEPLOYMENT_CONFIGS);
+		Map<String, String> versions = new HashMap<String, String>();
+		for (Map.Entry<String, AppTopology> entry : client.getDeploymentConfigSummaries(PRODUCT, NAMESPACE).entrySet()) {
+			versions.put(entry.getKey(), read(entry.getValue()));
+		}
+		count(transfer, DEPLOYMENT_CONFIGS, before);
+		return versions;
+	}
+
+	@Benchmark
+	public Map<String, String> leanDeploymentConfigByName(Transfer transfer) {
+		long before = server.getListBytes(DEPLOYMENT_CONFIGS);
+		Map<String, String> versions = new HashMap<String, String>();
+		for (Map.Entry<String, AppTopology> entry : client
+				.getDeploymentConfigSummaries(PRODUCT, NAMESPACE, "metadata.name=" + Fixtures.app(0)).entrySet()) {
+			versions.put(entry.getKey(), read(entry.getValue()));
+		}
+		count(transfer, DEPLOYMENT_CONFIGS, before);
+		return versions;
+	}
+
+	@Benchmark
+	public Map<String, String> fullServices(Transfer transfer) {
+		long before = server.getListBytes(SERVICES);
+		Map<String, String> clusterIPs = new HashMap<String, String>();
+		for (IService service : client.getServices(PRODUCT, NAMESPACE).values()) {
+			clusterIPs.put(service.getName(), new ServiceParser(service).clusterIP());
+		}
+		count(transfer, SERVICES, before);
+		return clusterIPs;
+	}
+
+	@Benchmark
+	public Map<String, String> leanServices(Transfer transfer) {
+		long before = server.getListBytes(SERVICES);
+		Map<String, String> clusterIPs = client.getServiceClusterIPs(PRODUCT, NAMESPACE);
+		count(transfer, SERVICES, before);
+		return clusterIPs;
+	}
+
+	private static String read(DeploymentConfigParser parser) {
+		return parser.getVersion() + parser.getDeployedDate() + parser.getReadinessPort() + parser.getReadinessPath();
+	}
+
+	private static String read(AppTopology summary) {
+		return summary.getVersion() + summary.getDeployedDate() + summary.getReadinessPort() + summary.getReadinessPath();
+	}
+
+	private void count(Transfer transfer, String collection, long before) {
+		transfer.listBytes += server.getListBytes(collection) - before;
+		transfer.operations++;
+	}
+
+}
@@ -0,0 +1,104 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openshift.restclient.model.IBuildConfig;
+import com.openshift.restclient.model.IDeploymentConfig;
+import com.openshift.restclient.model.IImageStream;
+import com.openshift.restclient.model.IResource;
+import com.openshift.restclient.model.IService;
+
+/**
+ * A parser call on a restclient resource, which reads the fields straight from
+ * the resource's ModelNode tree, against the {@code toJson()} and re-parse
+ * round trip the parsers made before. Run with {@code -prof gc} for the bytes
+ * allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelAccessBenchmark {
+
+	private static final int TAGS = 20;
+
+	@Param({ "small", "medium", "large" })
+	public String size;
+
+	private IDeploymentConfig deploymentConfig;
+	private IImageStream imageStream;
+	private IBuildConfig buildConfig;
+	private IService service;
+	private String tag;
+
+	@Setup
+	public void setUp() {
+		List<IResource> resources = Fixtures.create(Arrays.asList(
+				Fixtures.deploymentConfig("shop", "test", "basket", Fixtures.version(7), size),
+				Fixtures.imageStream("shop", "test", "basket", TAGS, size),
+				Fixtures.buildConfig("shop", "basket", size),
+				Fixtures.service("shop", "test", "basket", size)));
+		deploymentConfig = (IDeploymentConfig) resources.get(0);
+		imageStream = (IImageStream) resources.get(1);
+		buildConfig = (IBuildConfig) resources.get(2);
+		service = (IService) resources.get(3);
+		tag = Fixtures.version(TAGS / 2);
+	}
+
+	@Benchmark
+	public String deploymentConfigModelNode() {
+		return new DeploymentConfigParser(deploymentConfig).getVersion();
+	}
+
+	@Benchmark
+	public String deploymentConfigRoundTrip() {
+		return new DeploymentConfigParser(deploymentConfig.toJson()).getVersion();
+	}
+
+	@Benchmark
+	public String imageStreamModelNode() {
+		return new ImageStreamParser(imageStream).findShaByTag(tag).orElse(null);
+	}
+
+	@Benchmark
+	public String imageStreamRoundTrip() {
+		return new ImageStreamParser(imageStream.toJson()).findShaByTag(tag).orElse(null);
+	}
+
+	@Benchmark
+	public String buildConfigModelNode() {
+		return new BuildConfigParser(buildConfig).getGitRepository();
+	}
+
+	@Benchmark
+	public String buildConfigRoundTrip() {
+		return new BuildConfigParser(buildConfig.toJson()).getGitRepository();
+	}
+
+	@Benchmark
+	public String serviceModelNode() {
+		return new ServiceParser(service).clusterIP();
+	}
+
+	@Benchmark
+	public String serviceRoundTrip() {
+		return new ServiceParser(service.toJson()).clusterIP();
+	}
+
+}
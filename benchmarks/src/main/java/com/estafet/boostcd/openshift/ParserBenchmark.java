@@ -0,0 +1,147 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.openshift.restclient.model.IBuildConfig;
+import com.openshift.restclient.model.IDeploymentConfig;
+import com.openshift.restclient.model.IImageStream;
+import com.openshift.restclient.model.IResource;
+import com.openshift.restclient.model.IService;
+
+/**
+ * Every public {@code *Parser} method, on restclient model objects and on raw
+ * JSON. Each call builds a new parser, as the client does for every resource
+ * it reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+	private static final int TAGS = 20;
+
+	@Param({ "small", "medium", "large" })
+	public String size;
+
+	private String deploymentConfigJson;
+	private String imageStreamJson;
+	private String buildConfigJson;
+	private String serviceJson;
+	private IDeploymentConfig deploymentConfig;
+	private IImageStream imageStream;
+	private IBuildConfig buildConfig;
+	private IService service;
+	private String tag;
+	private String sha;
+
+	@Setup
+	public void setUp() {
+		deploymentConfigJson = Fixtures.deploymentConfig("shop", "test", "basket", Fixtures.version(7), size);
+		imageStreamJson = Fixtures.imageStream("shop", "test", "basket", TAGS, size);
+		buildConfigJson = Fixtures.buildConfig("shop", "basket", size);
+		serviceJson = Fixtures.service("shop", "test", "basket", size);
+		List<IResource> resources = Fixtures.create(Arrays.asList(deploymentConfigJson, imageStreamJson, buildConfigJson, serviceJson));
+		deploymentConfig = (IDeploymentConfig) resources.get(0);
+		imageStream = (IImageStream) resources.get(1);
+		buildConfig = (IBuildConfig) resources.get(2);
+		service = (IService) resources.get(3);
+		tag = Fixtures.version(TAGS / 2);
+		sha = Fixtures.sha("basket", tag);
+	}
+
+	@Benchmark
+	public String deploymentConfigAppName() {
+		return new DeploymentConfigParser(deploymentConfig).getAppName();
+	}
+
+	@Benchmark
+	public String deploymentConfigVersion() {
+		return new DeploymentConfigParser(deploymentConfig).getVersion();
+	}
+
+	@Benchmark
+	public String deploymentConfigDeployedDate() {
+		return new DeploymentConfigParser(deploymentConfig).getDeployedDate();
+	}
+
+	@Benchmark
+	public void deploymentConfigReadiness(Blackhole blackhole) {
+		DeploymentConfigParser parser = new DeploymentConfigParser(deploymentConfig);
+		blackhole.consume(parser.getReadinessPort());
+		blackhole.consume(parser.getReadinessPath());
+	}
+
+	@Benchmark
+	public String deploymentConfigVersionFromJson() {
+		return new DeploymentConfigParser(deploymentConfigJson).getVersion();
+	}
+
+	@Benchmark
+	public DeploymentVersion deploymentConfigVersionOfCached() {
+		return DeploymentConfigParser.versionOf(deploymentConfig);
+	}
+
+	@Benchmark
+	public Object imageStreamShaByTag() {
+		return new ImageStreamParser(imageStream).findShaByTag(tag);
+	}
+
+	@Benchmark
+	public Object imageStreamTagBySha() {
+		return new ImageStreamParser(imageStream).findTagBySha(sha);
+	}
+
+	@Benchmark
+	public String imageStreamShaByTagFromJson() {
+		return new ImageStreamParser(imageStreamJson).findShaByTag(tag).orElse(null);
+	}
+
+	@Benchmark
+	public Object imageStreamResolveTags() {
+		return new ImageStreamParser(imageStream).resolveTags(Arrays.asList(sha, Fixtures.sha("basket", Fixtures.version(1))));
+	}
+
+	@Benchmark
+	public Object imageStreamOfCached() {
+		return ImageStreamParser.of(imageStream).findShaByTag(tag);
+	}
+
+	@Benchmark
+	public String buildConfigGitRepository() {
+		return new BuildConfigParser(buildConfig).getGitRepository();
+	}
+
+	@Benchmark
+	public String buildConfigGitRepositoryFromJson() {
+		return new BuildConfigParser(buildConfigJson).getGitRepository();
+	}
+
+	@Benchmark
+	public String serviceClusterIP() {
+		return new ServiceParser(service).clusterIP();
+	}
+
+	@Benchmark
+	public String serviceClusterIPFromJson() {
+		return new ServiceParser(serviceJson).clusterIP();
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading a product as an {@link EnvironmentSnapshot} of restclient resources
+ * against reading it as a {@link ProductTopology}. Run with {@code -prof gc}
+ * for the allocation per read; {@link TopologyFootprint} prints what each
+ * retains afterwards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductTopologyBenchmark {
+
+	private static final String PRODUCT = "shop";
+	private static final List<String> ENVIRONMENTS = Arrays.asList("dev", "test", "uat", "staging", "prod", "live");
+
+	@Param({ "30" })
+	public int apps;
+
+	@Param({ "medium" })
+	public String size;
+
+	private FakeOpenShiftServer server;
+	private OpenShiftClient client;
+
+	@Setup
+	public void setUp() throws Exception {
+		server = new FakeOpenShiftServer();
+		Fixtures.seed(server, PRODUCT, ENVIRONMENTS, apps, size);
+		client = OpenShiftClient.builder().withCluster(server.config("bench")).build().start();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		client.close();
+		server.close();
+	}
+
+	@Benchmark
+	public EnvironmentSnapshot environmentSnapshot() {
+		return client.getEnvironmentSnapshot(PRODUCT);
+	}
+
+	@Benchmark
+	public ProductTopology productTopology() {
+		return client.getProductTopology(PRODUCT);
+	}
+
+}
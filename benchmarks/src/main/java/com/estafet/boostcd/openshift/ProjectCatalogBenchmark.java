@@ -0,0 +1,121 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openshift.restclient.model.IProject;
+
+/**
+ * Reading the stage projects of {@code products} products with one
+ * {@link OpenShiftClient#getProjects(java.util.Collection)} LIST against one
+ * {@link OpenShiftClient#getProjects(String)} per product, with
+ * {@code latency} added to every request. {@code projectLists} over
+ * {@code operations} is the number of Project LISTs the server answered for
+ * each read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectCatalogBenchmark {
+
+	private static final String PROJECTS = "/oapi/v1/projects";
+	private static final List<String> ENVIRONMENTS = Arrays.asList("test", "uat", "prod");
+
+	@Param({ "40" })
+	public int products;
+
+	@Param({ "0", "5" })
+	public long latency;
+
+	private FakeOpenShiftServer server;
+	private OpenShiftClient client;
+	private List<String> productIds;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Calls {
+
+		public long projectLists;
+		public long operations;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			projectLists = 0;
+			operations = 0;
+		}
+
+	}
+
+	@Setup
+	public void setUp() throws Exception {
+		server = new FakeOpenShiftServer();
+		productIds = new ArrayList<String>();
+		for (int i = 0; i < products; i++) {
+			String productId = "product" + i;
+			productIds.add(productId);
+			for (int position = 0; position < ENVIRONMENTS.size(); position++) {
+				server.put(PROJECTS, Fixtures.namespace(productId, ENVIRONMENTS.get(position)),
+						Fixtures.project(productId, ENVIRONMENTS.get(position), position == 0));
+			}
+		}
+		server.setDelay(latency);
+		client = OpenShiftClient.builder().withCluster(server.config("bench")).build().start();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		client.close();
+		server.close();
+	}
+
+	@Benchmark
+	public ProjectCatalog bulk(Calls calls) {
+		int before = server.getLists(PROJECTS);
+		ProjectCatalog catalog = client.getProjects(productIds);
+		count(calls, before);
+		return catalog;
+	}
+
+	@Benchmark
+	public Map<String, Map<String, IProject>> perProduct(Calls calls) {
+		int before = server.getLists(PROJECTS);
+		Map<String, Map<String, IProject>> result = new HashMap<String, Map<String, IProject>>();
+		for (String productId : productIds) {
+			Map<String, IProject> projects = client.getProjects(productId);
+			for (IProject project : projects.values()) {
+				client.isEnvironmentTestPassed(project);
+			}
+			result.put(productId, projects);
+		}
+		count(calls, before);
+		return result;
+	}
+
+	private void count(Calls calls, int before) {
+		calls.projectLists += server.getLists(PROJECTS) - before;
+		calls.operations++;
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * What can be promoted from each environment of a product with {@code apps}
+ * apps across six environments, from {@link PromotionReadiness} against the
+ * nested loops that compared each app with a linear scan of the next
+ * environment's apps and projects. Both read the same topology, so only the
+ * evaluation is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromotionReadinessBenchmark {
+
+	private static final String PRODUCT = "shop";
+	private static final List<String> ENVIRONMENTS = Arrays.asList("build", "test", "uat", "stage", "preprod", "prod");
+
+	@Param({ "200" })
+	public int apps;
+
+	private ProductTopology topology;
+	private Set<String> testPassedNamespaces;
+	private List<List<AppTopology>> deployed;
+	private List<String> testPassedProjects;
+
+	@Setup
+	public void setUp() {
+		Map<String, Map<String, AppTopology>> namespaces = new LinkedHashMap<String, Map<String, AppTopology>>();
+		testPassedNamespaces = new HashSet<String>();
+		deployed = new ArrayList<List<AppTopology>>();
+		for (int position = 0; position < ENVIRONMENTS.size(); position++) {
+			String namespace = Fixtures.namespace(PRODUCT, ENVIRONMENTS.get(position));
+			if (position % 2 == 0) {
+				testPassedNamespaces.add(namespace);
+			}
+			Map<String, AppTopology> apps = new HashMap<String, AppTopology>();
+			for (int app = 0; app < this.apps; app++) {
+				if (position == ENVIRONMENTS.size() - 1 && app % 10 == 0) {
+					continue;
+				}
+				String version = Fixtures.version(app % 2 == 0 ? ENVIRONMENTS.size() - position : 1);
+				apps.put(Fixtures.app(app), new AppTopology(Fixtures.app(app), namespace, version, "2020-03-02T10:15:30Z", "8080",
+						"/" + Fixtures.app(app) + "/health", "172.30.0.1", Fixtures.sha(Fixtures.app(app), version), null));
+			}
+			namespaces.put(namespace, apps);
+			deployed.add(new ArrayList<AppTopology>(apps.values()));
+		}
+		topology = new ProductTopology(PRODUCT, namespaces, new HashSet<String>());
+		testPassedProjects = new ArrayList<String>(testPassedNamespaces);
+	}
+
+	@Benchmark
+	public int readiness() {
+		PromotionReadiness readiness = PromotionReadiness.evaluate(topology, ENVIRONMENTS, testPassedNamespaces);
+		int count = 0;
+		for (String env : ENVIRONMENTS) {
+			count += readiness.getPromotable(env).size() + readiness.getGaps(env).size();
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int nestedLoops() {
+		int count = 0;
+		for (int position = 0; position + 1 < ENVIRONMENTS.size(); position++) {
+			boolean testPassed = false;
+			for (String project : testPassedProjects) {
+				testPassed |= project.equals(Fixtures.namespace(PRODUCT, ENVIRONMENTS.get(position)));
+			}
+			for (AppTopology app : deployed.get(position)) {
+				String next = null;
+				for (AppTopology candidate : deployed.get(position + 1)) {
+					if (candidate.getApp().equals(app.getApp())) {
+						next = candidate.getVersion();
+					}
+				}
+				if (!app.getVersion().equals(next)) {
+					count += testPassed ? 2 : 1;
+				}
+			}
+		}
+		return count;
+	}
+
+}
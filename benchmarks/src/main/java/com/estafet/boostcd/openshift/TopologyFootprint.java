@@ -0,0 +1,70 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Prints how much heap a product's {@link EnvironmentSnapshot}, which keeps
+ * the restclient resources, retains against the {@link ProductTopology}
+ * projected from it. Each is read several times and kept, and the growth of
+ * the used heap after a full collection is divided by the number of copies, so
+ * the shared client and connection pool are not counted. The large fixtures
+ * need about 2 GB of heap. Run with
+ * {@code java -Xmx2g -cp target/benchmarks.jar com.estafet.boostcd.openshift.TopologyFootprint [apps]}.
+ */
+public final class TopologyFootprint {
+
+	private static final String PRODUCT = "shop";
+	private static final List<String> ENVIRONMENTS = Arrays.asList("dev", "test", "uat", "staging", "prod", "live");
+	private static final int SNAPSHOT_COPIES = 4;
+	private static final int TOPOLOGY_COPIES = 20;
+
+	private TopologyFootprint() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		int apps = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+		System.out.printf("%-8s %14s %14s %8s%n", "size", "snapshot", "topology", "ratio");
+		for (String size : Fixtures.SIZES.split(",")) {
+			try (FakeOpenShiftServer server = new FakeOpenShiftServer()) {
+				Fixtures.seed(server, PRODUCT, ENVIRONMENTS, apps, size);
+				try (OpenShiftClient client = OpenShiftClient.builder().withCluster(server.config("footprint")).build().start()) {
+					client.getProductTopology(PRODUCT);
+					long snapshot = retained(() -> client.getEnvironmentSnapshot(PRODUCT), SNAPSHOT_COPIES);
+					long topology = retained(() -> client.getProductTopology(PRODUCT), TOPOLOGY_COPIES);
+					System.out.printf("%-8s %14d %14d %7.1fx%n", size, snapshot, topology, (double) snapshot / topology);
+				}
+			}
+		}
+		System.out.printf("(bytes retained per product of %d apps in %d environments)%n", apps, ENVIRONMENTS.size());
+	}
+
+	private static long retained(Supplier<Object> read, int copies) {
+		List<Object> kept = new ArrayList<Object>();
+		long before = usedAfterGc();
+		for (int i = 0; i < copies; i++) {
+			kept.add(read.get());
+		}
+		long after = usedAfterGc();
+		if (kept.size() != copies) {
+			throw new IllegalStateException();
+		}
+		return (after - before) / copies;
+	}
+
+	private static long usedAfterGc() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
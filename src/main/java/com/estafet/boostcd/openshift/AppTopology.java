@@ -0,0 +1,78 @@
+package com.estafet.boostcd.openshift;
+
+/**
+ * The handful of fields callers read from an app's DeploymentConfig, Service,
+ * ImageStream and BuildConfig, extracted once so the full resources do not
+ * need to be retained. String values are interned as many apps share them.
+ */
+public final class AppTopology {
+
+	private final String app;
+	private final String namespace;
+	private final String version;
+	private final String deployedDate;
+	private final String readinessPort;
+	private final String readinessPath;
+	private final String clusterIP;
+	private final String imageSha;
+	private final String gitUri;
+
+	AppTopology(String app, String namespace, String version, String deployedDate, String readinessPort,
+			String readinessPath, String clusterIP, String imageSha, String gitUri) {
+		this.app = intern(app);
+		this.namespace = intern(namespace);
+		this.version = intern(version);
+		this.deployedDate = intern(deployedDate);
+		this.readinessPort = intern(readinessPort);
+		this.readinessPath = intern(readinessPath);
+		this.clusterIP = intern(clusterIP);
+		this.imageSha = intern(imageSha);
+		this.gitUri = intern(gitUri);
+	}
+
+	public String getApp() {
+		return app;
+	}
+
+	public String getNamespace() {
+		return namespace;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public String getDeployedDate() {
+		return deployedDate;
+	}
+
+	public String getReadinessPort() {
+		return readinessPort;
+	}
+
+	public String getReadinessPath() {
+		return readinessPath;
+	}
+
+	public String getClusterIP() {
+		return clusterIP;
+	}
+
+	public String getImageSha() {
+		return imageSha;
+	}
+
+	public String getGitUri() {
+		return gitUri;
+	}
+
+	@Override
+	public String toString() {
+		return namespace + "/" + app + ":" + version;
+	}
+
+	private static String intern(String value) {
+		return value == null ? null : value.intern();
+	}
+
+}
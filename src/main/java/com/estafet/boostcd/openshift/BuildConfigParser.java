@@ -1,28 +1,21 @@
 package com.estafet.boostcd.openshift;
 
-import java.io.IOException;
-import java.io.StringReader;
-
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
 import com.openshift.restclient.model.IBuildConfig;
 
 public class BuildConfigParser {
 
+	private static final JsonPathExtractor EXTRACTOR = new JsonPathExtractor("spec.source.git.uri");
+
 	private final JSONObject jo;
 
 	public BuildConfigParser(IBuildConfig buildConfig) {
-		this(buildConfig.toJson());
+		this.jo = EXTRACTOR.extract(buildConfig);
 	}
 
 	public BuildConfigParser(String json) {
-		try {
-			this.jo = (JSONObject) new JSONParser().parse(new StringReader(json));
-		} catch (IOException | ParseException e) {
-			throw new RuntimeException(e);
-		}
+		this.jo = EXTRACTOR.extract(json);
 	}
 
 	public String getGitRepository() {
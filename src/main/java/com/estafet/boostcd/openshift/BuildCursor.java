@@ -0,0 +1,93 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.json.simple.JSONObject;
+
+import com.openshift.restclient.ResourceKind;
+import com.openshift.restclient.model.IBuild;
+import com.openshift.restclient.model.IResource;
+
+/**
+ * Lazily walks the pages of a {@link BuildQuery}, fetching the next page only
+ * once the current one has been consumed. Failures are thrown from
+ * {@link #hasNext()} rather than ending the iteration early.
+ */
+public class BuildCursor implements Iterator<IBuild> {
+
+	private static final JsonPathExtractor METADATA = new JsonPathExtractor("metadata.continue", "metadata.resourceVersion");
+
+	private final OpenShiftClient client;
+	private final BuildQuery query;
+
+	private Iterator<IResource> page;
+	private String continueToken;
+	private String resourceVersion;
+	private boolean lastPage;
+	private IBuild next;
+
+	BuildCursor(OpenShiftClient client, BuildQuery query) {
+		this.client = client;
+		this.query = query;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (next == null) {
+			if (page != null && page.hasNext()) {
+				IBuild candidate = (IBuild) page.next();
+				if (query.matches(candidate)) {
+					next = candidate;
+				}
+			} else if (lastPage) {
+				return false;
+			} else {
+				fetch();
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public IBuild next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		IBuild result = next;
+		next = null;
+		return result;
+	}
+
+	/**
+	 * The resourceVersion of the listing, available once the first page has
+	 * been fetched. Pass it to {@link BuildQuery#changedSince(String)} to pick up
+	 * only builds that changed afterwards.
+	 */
+	public String getResourceVersion() {
+		return resourceVersion;
+	}
+
+	public Stream<IBuild> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	private void fetch() {
+		String body = client.listBuildPage(query, continueToken);
+		JSONObject metadata = (JSONObject) METADATA.extract(body).get("metadata");
+		String token = metadata == null ? null : (String) metadata.get("continue");
+		if (resourceVersion == null && metadata != null) {
+			resourceVersion = (String) metadata.get("resourceVersion");
+		}
+		List<IResource> items = client.resourceFactory(query.getNamespace()).createList(body, ResourceKind.BUILD);
+		page = items.iterator();
+		continueToken = token;
+		lastPage = token == null || token.isEmpty();
+	}
+
+}
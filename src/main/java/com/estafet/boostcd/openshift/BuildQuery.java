@@ -0,0 +1,129 @@
+package com.estafet.boostcd.openshift;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.openshift.restclient.model.IBuild;
+
+/**
+ * Filter and page size for a paginated build listing. Labels and a single
+ * phase are applied by the API server; several phases, the creation time and
+ * the resourceVersion watermark are applied locally as each page arrives.
+ */
+public class BuildQuery {
+
+	private static final int DEFAULT_PAGE_SIZE = 200;
+
+	private final String namespace;
+	private final Map<String, String> labels = new LinkedHashMap<String, String>();
+	private final Set<String> phases = new LinkedHashSet<String>();
+	private Instant createdAfter;
+	private String changedSince;
+	private int pageSize = DEFAULT_PAGE_SIZE;
+
+	public BuildQuery(String namespace) {
+		this.namespace = namespace;
+	}
+
+	public BuildQuery withLabel(String name, String value) {
+		labels.put(name, value);
+		return this;
+	}
+
+	public BuildQuery forApp(String app) {
+		return withLabel("app", app);
+	}
+
+	public BuildQuery withPhase(String... phases) {
+		this.phases.addAll(Arrays.asList(phases));
+		return this;
+	}
+
+	public BuildQuery createdAfter(Instant createdAfter) {
+		this.createdAfter = createdAfter;
+		return this;
+	}
+
+	/**
+	 * Only return builds whose resourceVersion is newer than the one given,
+	 * typically {@link BuildCursor#getResourceVersion()} from a previous listing.
+	 */
+	public BuildQuery changedSince(String resourceVersion) {
+		this.changedSince = resourceVersion;
+		return this;
+	}
+
+	public BuildQuery pageSize(int pageSize) {
+		this.pageSize = pageSize;
+		return this;
+	}
+
+	public String getNamespace() {
+		return namespace;
+	}
+
+	public Map<String, String> getLabels() {
+		return Collections.unmodifiableMap(labels);
+	}
+
+	public Set<String> getPhases() {
+		return Collections.unmodifiableSet(phases);
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	Map<String, String> toParameters(String continueToken) {
+		Map<String, String> parameters = new HashMap<String, String>();
+		parameters.put("limit", String.valueOf(pageSize));
+		if (continueToken != null) {
+			parameters.put("continue", continueToken);
+		}
+		if (!labels.isEmpty()) {
+			StringBuilder selector = new StringBuilder();
+			for (Map.Entry<String, String> label : labels.entrySet()) {
+				if (selector.length() > 0) {
+					selector.append(',');
+				}
+				selector.append(label.getKey()).append('=').append(label.getValue());
+			}
+			parameters.put("labelSelector", selector.toString());
+		}
+		if (phases.size() == 1) {
+			parameters.put("fieldSelector", "status=" + phases.iterator().next());
+		}
+		return parameters;
+	}
+
+	boolean matches(IBuild build) {
+		if (!phases.isEmpty() && !phases.contains(build.getStatus())) {
+			return false;
+		}
+		if (changedSince != null && (changedSince.equals(build.getResourceVersion())
+				|| !ResourceWatchCache.isNewer(build.getResourceVersion(), changedSince))) {
+			return false;
+		}
+		if (createdAfter != null) {
+			try {
+				return Instant.parse(build.getCreationTimeStamp()).isAfter(createdAfter);
+			} catch (DateTimeParseException | NullPointerException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return namespace + " " + toParameters(null);
+	}
+
+}
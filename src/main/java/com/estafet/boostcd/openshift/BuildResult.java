@@ -0,0 +1,61 @@
+package com.estafet.boostcd.openshift;
+
+import com.openshift.restclient.model.IBuild;
+
+/**
+ * Final state of a pipeline build.
+ */
+public final class BuildResult {
+
+	public static final String COMPLETE = "Complete";
+	public static final String FAILED = "Failed";
+	public static final String ERROR = "Error";
+	public static final String CANCELLED = "Cancelled";
+	public static final String DELETED = "Deleted";
+
+	private final String namespace;
+	private final String buildName;
+	private final String phase;
+	private final String message;
+
+	BuildResult(String namespace, String buildName, String phase, String message) {
+		this.namespace = namespace;
+		this.buildName = buildName;
+		this.phase = phase;
+		this.message = message;
+	}
+
+	static BuildResult of(IBuild build) {
+		return new BuildResult(build.getNamespaceName(), build.getName(), build.getStatus(), build.getMessage());
+	}
+
+	static boolean isTerminal(String phase) {
+		return COMPLETE.equals(phase) || FAILED.equals(phase) || ERROR.equals(phase) || CANCELLED.equals(phase);
+	}
+
+	public String getNamespace() {
+		return namespace;
+	}
+
+	public String getBuildName() {
+		return buildName;
+	}
+
+	public String getPhase() {
+		return phase;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public boolean isSuccessful() {
+		return COMPLETE.equals(phase);
+	}
+
+	@Override
+	public String toString() {
+		return namespace + "/" + buildName + " " + phase;
+	}
+
+}
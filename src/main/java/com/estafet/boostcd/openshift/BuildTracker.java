@@ -0,0 +1,334 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.restclient.IWatcher;
+import com.openshift.restclient.ResourceKind;
+import com.openshift.restclient.model.IBuild;
+import com.openshift.restclient.model.IResource;
+
+/**
+ * Completes {@link PipelineExecution} handles from a single build watch per
+ * namespace. The watch is opened on the tracker's own thread when a build in
+ * the namespace is tracked, and closed again once none are left. It is opened
+ * from the resourceVersion of the builds being tracked, so the API server
+ * replays their later transitions without the LIST a new restclient watch
+ * starts with. A broken watch is re-established after a short delay from the
+ * last version it saw, or an older tracked build's. Only when a version has
+ * expired (410 Gone) does the watch fall back to listing the builds.
+ */
+public class BuildTracker implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(BuildTracker.class);
+
+	private static final long RESTART_DELAY_MILLIS = 5000;
+	private static final int RECENT_RESULTS = 256;
+
+	private final OpenShiftSession session;
+	private final Map<String, NamespaceWatch> watches = new ConcurrentHashMap<String, NamespaceWatch>();
+	private final ScheduledExecutorService scheduler;
+	private volatile boolean closed;
+
+	public BuildTracker(OpenShiftSession session) {
+		this.session = session;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "openshift-build-tracker");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public PipelineExecution track(String pipeline, IBuild build) {
+		CompletableFuture<BuildResult> result = new CompletableFuture<BuildResult>();
+		if (BuildResult.isTerminal(build.getStatus())) {
+			result.complete(BuildResult.of(build));
+		} else if (closed) {
+			result.completeExceptionally(new CancellationException("Build tracker has been closed"));
+		} else {
+			watches.computeIfAbsent(build.getNamespaceName(), NamespaceWatch::new).add(build, result);
+		}
+		return new PipelineExecution(pipeline, build, result);
+	}
+
+	public int getOutstanding() {
+		int outstanding = 0;
+		for (NamespaceWatch watch : watches.values()) {
+			outstanding += watch.pending.size();
+		}
+		return outstanding;
+	}
+
+	public int getOpenWatches() {
+		int open = 0;
+		for (NamespaceWatch watch : watches.values()) {
+			if (watch.isOpen()) {
+				open++;
+			}
+		}
+		return open;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		scheduler.shutdownNow();
+		for (NamespaceWatch watch : watches.values()) {
+			watch.close();
+		}
+		watches.clear();
+	}
+
+	/**
+	 * The older of two resourceVersions, or null when either is unknown and
+	 * the builds have to be listed.
+	 */
+	private static String older(String first, String second) {
+		if (first == null || second == null) {
+			return null;
+		}
+		return ResourceWatchCache.isNewer(first, second) ? second : first;
+	}
+
+	private class NamespaceWatch {
+
+		private final String namespace;
+		private final Map<String, CompletableFuture<BuildResult>> pending = new ConcurrentHashMap<String, CompletableFuture<BuildResult>>();
+		private final Map<String, String> versions = new HashMap<String, String>();
+		private final Map<String, BuildResult> recent = new LinkedHashMap<String, BuildResult>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, BuildResult> eldest) {
+				return size() > RECENT_RESULTS;
+			}
+		};
+		private Listener listener;
+		private IWatcher watcher;
+		private String watchingFrom;
+		private String lastSeen;
+		private boolean restartPending;
+
+		private NamespaceWatch(String namespace) {
+			this.namespace = namespace;
+		}
+
+		private synchronized boolean isOpen() {
+			return watcher != null;
+		}
+
+		private synchronized void add(IBuild build, CompletableFuture<BuildResult> result) {
+			String name = build.getName();
+			BuildResult finished = recent.get(name);
+			if (finished != null) {
+				result.complete(finished);
+				return;
+			}
+			pending.put(name, result);
+			versions.put(name, build.getResourceVersion());
+			if (listener == null) {
+				if (!restartPending) {
+					open(false);
+				}
+			} else if (watchingFrom != null
+					&& (build.getResourceVersion() == null || !ResourceWatchCache.isNewer(build.getResourceVersion(), watchingFrom))) {
+				scheduler.execute(() -> verify(name));
+			}
+		}
+
+		/**
+		 * Starts connecting on the tracker's thread, from
+		 * {@link #resumeVersion()} or with a LIST.
+		 */
+		private void open(boolean list) {
+			if (closed) {
+				return;
+			}
+			String from = list ? null : resumeVersion();
+			Listener created = new Listener();
+			listener = created;
+			watchingFrom = from;
+			scheduler.execute(() -> connect(created, from));
+		}
+
+		/**
+		 * The oldest of the last version seen before the watch broke and those
+		 * of the builds still pending, so no transition of theirs is skipped.
+		 * Null, to list the builds, when one of them is unknown.
+		 */
+		private String resumeVersion() {
+			String from = lastSeen;
+			for (String version : versions.values()) {
+				if (version == null) {
+					return null;
+				}
+				from = from == null ? version : older(from, version);
+			}
+			return from;
+		}
+
+		private void connect(Listener created, String from) {
+			IWatcher opened;
+			try {
+				opened = session.execute(client -> from == null
+						? client.watch(namespace, created, ResourceKind.BUILD)
+						: new ResumedWatch(client, ResourceKind.BUILD, namespace, from, created));
+			} catch (RuntimeException e) {
+				log.warn("unable to watch builds in " + namespace, e);
+				broken(created);
+				return;
+			}
+			synchronized (this) {
+				if (listener == created) {
+					watcher = opened;
+					return;
+				}
+			}
+			opened.stop();
+		}
+
+		/**
+		 * Reads a build tracked from a version older than the open watch's, as
+		 * the watch may have passed its transition before it was tracked.
+		 */
+		private void verify(String name) {
+			try {
+				IBuild build = session.execute(client -> client.get(ResourceKind.BUILD, name, namespace));
+				synchronized (this) {
+					resolve(listener, build, false);
+				}
+			} catch (RuntimeException e) {
+				log.warn("unable to read build " + name + " in " + namespace, e);
+			}
+		}
+
+		private synchronized void broken(Listener failed) {
+			if (listener != failed) {
+				return;
+			}
+			listener = null;
+			watcher = null;
+			watchingFrom = null;
+			if (closed || restartPending) {
+				return;
+			}
+			restartPending = true;
+			scheduler.schedule(() -> {
+				synchronized (this) {
+					restartPending = false;
+					if (listener == null && !pending.isEmpty()) {
+						open(false);
+					}
+				}
+			}, RESTART_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		}
+
+		private synchronized void expired(Listener source) {
+			if (listener != source) {
+				return;
+			}
+			log.debug("resourceVersion " + watchingFrom + " of the builds in " + namespace + " has expired, listing them");
+			stop();
+			open(true);
+		}
+
+		private synchronized void close() {
+			stop();
+			for (CompletableFuture<BuildResult> result : pending.values()) {
+				result.completeExceptionally(new CancellationException("Build tracker has been closed"));
+			}
+			pending.clear();
+			versions.clear();
+		}
+
+		private void stop() {
+			IWatcher open = watcher;
+			listener = null;
+			watcher = null;
+			watchingFrom = null;
+			if (open != null) {
+				open.stop();
+			}
+		}
+
+		private synchronized void resolve(Listener source, IBuild build, boolean deleted) {
+			if (source == null || listener != source) {
+				return;
+			}
+			if (build.getResourceVersion() != null && (lastSeen == null || ResourceWatchCache.isNewer(build.getResourceVersion(), lastSeen))) {
+				lastSeen = build.getResourceVersion();
+			}
+			BuildResult outcome;
+			if (BuildResult.isTerminal(build.getStatus())) {
+				outcome = BuildResult.of(build);
+			} else if (deleted) {
+				outcome = new BuildResult(namespace, build.getName(), BuildResult.DELETED, build.getMessage());
+			} else {
+				return;
+			}
+			recent.put(build.getName(), outcome);
+			versions.remove(build.getName());
+			CompletableFuture<BuildResult> result = pending.remove(build.getName());
+			if (result != null) {
+				result.complete(outcome);
+				if (pending.isEmpty()) {
+					log.debug("no builds left to track in " + namespace + ", closing the watch");
+					stop();
+					lastSeen = null;
+				}
+			}
+		}
+
+		private class Listener implements ResumedWatch.Listener {
+
+			@Override
+			public void connected(List<IResource> resources) {
+				log.debug("watching builds in " + namespace + " for " + pending.size() + " pipelines");
+				for (IResource resource : resources) {
+					resolve(this, (IBuild) resource, false);
+				}
+			}
+
+			@Override
+			public void resumed() {
+				log.debug("watching builds in " + namespace + " for " + pending.size() + " pipelines from " + watchingFrom);
+			}
+
+			@Override
+			public void expired() {
+				NamespaceWatch.this.expired(this);
+			}
+
+			@Override
+			public void received(IResource resource, ChangeType change) {
+				resolve(this, (IBuild) resource, ChangeType.DELETED.equals(change));
+			}
+
+			@Override
+			public void disconnected() {
+				log.debug("build watch for " + namespace + " disconnected");
+				broken(this);
+			}
+
+			@Override
+			public void error(Throwable err) {
+				log.warn("build watch for " + namespace + " failed", err);
+				broken(this);
+			}
+
+		}
+
+	}
+
+}
@@ -0,0 +1,152 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.openshift.restclient.IClient;
+import com.openshift.restclient.OpenShiftException;
+import com.openshift.restclient.model.IResource;
+
+/**
+ * Everything the client keeps per cluster: the pooled session, the resilient
+ * executor and its circuit breaker, a resource cache partition, the build
+ * tracker and, when enabled, the watch cache. Identical keyed reads are
+ * coalesced into one call, and requests are limited to
+ * {@link ClusterConfig#getMaxConcurrentRequests()} in flight at once. A read
+ * holds a permit only while a request is on the wire, not whilst it backs off
+ * between retries.
+ */
+public class Cluster implements AutoCloseable {
+
+	private static final long DEFAULT_CACHE_TTL_MINUTES = 5;
+
+	private final ClusterConfig config;
+	private final OpenShiftSession session;
+	private final ResilientExecutor executor;
+	private final ResourceCache resourceCache;
+	private final BuildTracker buildTracker;
+	private final RequestCoalescer coalescer = new RequestCoalescer();
+	private final Semaphore permits;
+	private final List<Consumer<IResource>> watchSubscribers = new CopyOnWriteArrayList<Consumer<IResource>>();
+	private volatile ResourceWatchCache watchCache;
+
+	public Cluster(ClusterConfig config) {
+		this.config = config;
+		this.session = new OpenShiftSession(config.getUrl(), config.getUser(), config.getPassword(), config.getMaxConcurrentRequests(),
+				config.getConnectTimeoutMillis(), config.getReadTimeoutMillis());
+		this.executor = new ResilientExecutor(session);
+		this.resourceCache = new ResourceCache(config.getCacheSize(), DEFAULT_CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+		this.buildTracker = new BuildTracker(session);
+		this.permits = new Semaphore(config.getMaxConcurrentRequests(), true);
+	}
+
+	public String getName() {
+		return config.getName();
+	}
+
+	public ClusterConfig getConfig() {
+		return config;
+	}
+
+	public OpenShiftSession getSession() {
+		return session;
+	}
+
+	public ResilientExecutor getExecutor() {
+		return executor;
+	}
+
+	public ResourceCache getResourceCache() {
+		return resourceCache;
+	}
+
+	public BuildTracker getBuildTracker() {
+		return buildTracker;
+	}
+
+	public ResourceWatchCache getWatchCache() {
+		return watchCache;
+	}
+
+	public RequestCoalescer getCoalescer() {
+		return coalescer;
+	}
+
+	public int getAvailablePermits() {
+		return permits.availablePermits();
+	}
+
+	/**
+	 * Receives every change the watch cache sees, across re-enabling it.
+	 */
+	public void subscribeToWatchCache(Consumer<IResource> subscriber) {
+		watchSubscribers.add(subscriber);
+	}
+
+	public <T> T read(String operation, String key, Function<IClient, T> call) {
+		if (key == null) {
+			return call(operation, null, call);
+		}
+		return coalescer.execute(key, () -> call(operation, key, call));
+	}
+
+	public <T> T write(String operation, Function<IClient, T> call) {
+		acquire(operation);
+		try {
+			return executor.write(operation, call);
+		} finally {
+			permits.release();
+		}
+	}
+
+	synchronized void enableWatchCache(long resyncPeriod, TimeUnit unit, int maxNamespaces) {
+		disableWatchCache();
+		watchCache = new ResourceWatchCache(this, resyncPeriod, unit, maxNamespaces);
+		watchCache.subscribe(resource -> watchSubscribers.forEach(subscriber -> subscriber.accept(resource)));
+	}
+
+	synchronized void disableWatchCache() {
+		if (watchCache != null) {
+			watchCache.close();
+			watchCache = null;
+		}
+	}
+
+	@Override
+	public void close() {
+		disableWatchCache();
+		buildTracker.close();
+		executor.close();
+		session.close();
+	}
+
+	private <T> T call(String operation, String key, Function<IClient, T> call) {
+		return executor.read(operation, key, client -> {
+			acquire(operation);
+			try {
+				return call.apply(client);
+			} finally {
+				permits.release();
+			}
+		});
+	}
+
+	private void acquire(String operation) {
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted waiting to run %s against %s", operation, config.getName());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return config.toString();
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection details and limits for one OpenShift cluster. The concurrent
+ * request limit also sizes the HTTP dispatcher, and timeouts of zero leave
+ * the restclient defaults in place.
+ */
+public final class ClusterConfig {
+
+	public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 32;
+	public static final int DEFAULT_CACHE_SIZE = 512;
+
+	private final String name;
+	private final String url;
+	private final String user;
+	private final String password;
+	private final int maxConcurrentRequests;
+	private final int cacheSize;
+	private final long connectTimeoutMillis;
+	private final long readTimeoutMillis;
+
+	public ClusterConfig(String name, String url, String user, String password) {
+		this(name, url, user, password, DEFAULT_MAX_CONCURRENT_REQUESTS, DEFAULT_CACHE_SIZE);
+	}
+
+	public ClusterConfig(String name, String url, String user, String password, int maxConcurrentRequests, int cacheSize) {
+		this(name, url, user, password, maxConcurrentRequests, cacheSize, 0, 0);
+	}
+
+	private ClusterConfig(String name, String url, String user, String password, int maxConcurrentRequests, int cacheSize,
+			long connectTimeoutMillis, long readTimeoutMillis) {
+		this.name = name;
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.maxConcurrentRequests = maxConcurrentRequests;
+		this.cacheSize = cacheSize;
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.readTimeoutMillis = readTimeoutMillis;
+	}
+
+	public ClusterConfig withTimeouts(long connectTimeout, long readTimeout, TimeUnit unit) {
+		return new ClusterConfig(name, url, user, password, maxConcurrentRequests, cacheSize, unit.toMillis(connectTimeout),
+				unit.toMillis(readTimeout));
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public String getUser() {
+		return user;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public int getMaxConcurrentRequests() {
+		return maxConcurrentRequests;
+	}
+
+	public int getCacheSize() {
+		return cacheSize;
+	}
+
+	public long getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	public long getReadTimeoutMillis() {
+		return readTimeoutMillis;
+	}
+
+	@Override
+	public String toString() {
+		return name + " (" + url + ")";
+	}
+
+}
@@ -0,0 +1,154 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.openshift.restclient.model.IResource;
+
+/**
+ * Maps products and namespaces to the cluster that hosts them. A namespace
+ * is resolved by an explicit namespace assignment first, then by the product
+ * whose id is the longest {@code <productId>-} prefix of the namespace, and
+ * otherwise goes to the default cluster.
+ */
+public class ClusterRegistry implements AutoCloseable {
+
+	private final Cluster defaultCluster;
+	private final Map<String, Cluster> clusters = new ConcurrentHashMap<String, Cluster>();
+	private final Map<String, String> products = new ConcurrentHashMap<String, String>();
+	private final Map<String, String> namespaces = new ConcurrentHashMap<String, String>();
+	private final List<Consumer<IResource>> watchSubscribers = new CopyOnWriteArrayList<Consumer<IResource>>();
+
+	private long watchResyncPeriod;
+	private TimeUnit watchResyncUnit;
+	private int watchMaxNamespaces;
+	private long coalescingWindowMillis;
+
+	public ClusterRegistry(ClusterConfig defaultConfig) {
+		this.defaultCluster = new Cluster(defaultConfig);
+		clusters.put(defaultConfig.getName(), defaultCluster);
+	}
+
+	public synchronized Cluster register(ClusterConfig config) {
+		if (clusters.containsKey(config.getName())) {
+			throw new IllegalArgumentException("Cluster " + config.getName() + " is already registered");
+		}
+		Cluster cluster = new Cluster(config);
+		cluster.getCoalescer().withWindow(coalescingWindowMillis, TimeUnit.MILLISECONDS);
+		watchSubscribers.forEach(cluster::subscribeToWatchCache);
+		if (watchResyncUnit != null) {
+			cluster.enableWatchCache(watchResyncPeriod, watchResyncUnit, watchMaxNamespaces);
+		}
+		clusters.put(config.getName(), cluster);
+		return cluster;
+	}
+
+	public ClusterRegistry assignProduct(String productId, String cluster) {
+		getCluster(cluster);
+		products.put(productId, cluster);
+		return this;
+	}
+
+	public ClusterRegistry assignNamespace(String namespace, String cluster) {
+		getCluster(cluster);
+		namespaces.put(namespace, cluster);
+		return this;
+	}
+
+	public Cluster getDefault() {
+		return defaultCluster;
+	}
+
+	public Cluster getCluster(String name) {
+		Cluster cluster = clusters.get(name);
+		if (cluster == null) {
+			throw new IllegalArgumentException("Unknown cluster " + name);
+		}
+		return cluster;
+	}
+
+	public Collection<Cluster> getClusters() {
+		return Collections.unmodifiableCollection(clusters.values());
+	}
+
+	public Cluster forProduct(String productId) {
+		String name = products.get(productId);
+		return name == null ? defaultCluster : getCluster(name);
+	}
+
+	public Cluster forNamespace(String namespace) {
+		String name = namespaces.get(namespace);
+		if (name != null) {
+			return getCluster(name);
+		}
+		String product = null;
+		for (String productId : products.keySet()) {
+			if (namespace.startsWith(productId + "-") && (product == null || productId.length() > product.length())) {
+				product = productId;
+			}
+		}
+		return product == null ? defaultCluster : forProduct(product);
+	}
+
+	/**
+	 * The product's own cluster followed by any other cluster that one of its
+	 * namespaces has been assigned to.
+	 */
+	public List<Cluster> clustersForProduct(String productId) {
+		Set<Cluster> result = new LinkedHashSet<Cluster>();
+		result.add(forProduct(productId));
+		for (Map.Entry<String, String> entry : namespaces.entrySet()) {
+			if (entry.getKey().startsWith(productId + "-")) {
+				result.add(getCluster(entry.getValue()));
+			}
+		}
+		return new ArrayList<Cluster>(result);
+	}
+
+	synchronized void enableWatchCache(long resyncPeriod, TimeUnit unit, int maxNamespaces) {
+		this.watchResyncPeriod = resyncPeriod;
+		this.watchResyncUnit = unit;
+		this.watchMaxNamespaces = maxNamespaces;
+		for (Cluster cluster : clusters.values()) {
+			cluster.enableWatchCache(resyncPeriod, unit, maxNamespaces);
+		}
+	}
+
+	synchronized void subscribeToWatchCaches(Consumer<IResource> subscriber) {
+		watchSubscribers.add(subscriber);
+		for (Cluster cluster : clusters.values()) {
+			cluster.subscribeToWatchCache(subscriber);
+		}
+	}
+
+	synchronized void setCoalescingWindow(long window, TimeUnit unit) {
+		this.coalescingWindowMillis = unit.toMillis(window);
+		for (Cluster cluster : clusters.values()) {
+			cluster.getCoalescer().withWindow(window, unit);
+		}
+	}
+
+	synchronized void disableWatchCache() {
+		this.watchResyncUnit = null;
+		for (Cluster cluster : clusters.values()) {
+			cluster.disableWatchCache();
+		}
+	}
+
+	@Override
+	public void close() {
+		for (Cluster cluster : clusters.values()) {
+			cluster.close();
+		}
+	}
+
+}
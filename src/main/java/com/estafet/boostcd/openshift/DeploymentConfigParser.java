@@ -1,31 +1,94 @@
 package com.estafet.boostcd.openshift;
 
-import java.io.IOException;
-import java.io.StringReader;
 import java.util.Iterator;
-import java.util.regex.Pattern;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import org.jboss.dmr.ModelNode;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
+import com.openshift.internal.restclient.model.KubernetesResource;
 import com.openshift.restclient.model.IDeploymentConfig;
+import com.openshift.restclient.model.IResource;
 
 public class DeploymentConfigParser {
 
+	private static final String[] PATHS = {
+			"metadata.name",
+			"metadata.labels.environment",
+			"spec.triggers[*].type",
+			"spec.triggers[*].imageChangeParams.from.name",
+			"spec.template.spec.containers[0].readinessProbe.httpGet",
+			"status.conditions[*].type",
+			"status.conditions[*].lastUpdateTime" };
+
+	private static final JsonPathExtractor EXTRACTOR = new JsonPathExtractor(PATHS);
+
+	static final JsonPathExtractor LIST_EXTRACTOR = JsonPathExtractor.forListItems(PATHS);
+
+	private static final int MAX_CACHED_VERSIONS = 4096;
+
+	private static final Map<String, DeploymentVersion> VERSIONS = new LinkedHashMap<String, DeploymentVersion>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, DeploymentVersion> eldest) {
+			return size() > MAX_CACHED_VERSIONS;
+		}
+	};
+
 	private final JSONObject jo;
 
 	public DeploymentConfigParser(IDeploymentConfig deploymentConfig) {
-		this(deploymentConfig.toJson());
+		this.jo = EXTRACTOR.extract(deploymentConfig);
 	}
 
 	public DeploymentConfigParser(String json) {
-		try {
-			this.jo = (JSONObject) new JSONParser().parse(new StringReader(json));
-		} catch (IOException | ParseException e) {
-			throw new RuntimeException(e);
+		this.jo = EXTRACTOR.extract(json);
+	}
+
+	DeploymentConfigParser(JSONObject jo) {
+		this.jo = jo;
+	}
+
+	/**
+	 * The version of a DeploymentConfig, cached per uid and resourceVersion so
+	 * an unchanged DeploymentConfig is only parsed once, and one deleted and
+	 * recreated under the same name is never served a stale version. The cache
+	 * is process-global: it is shared by every client in the JVM, keeps the
+	 * most recently used {@value #MAX_CACHED_VERSIONS} versions and is not
+	 * cleared when a client closes.
+	 */
+	public static DeploymentVersion versionOf(IDeploymentConfig deploymentConfig) {
+		String resourceVersion = deploymentConfig.getResourceVersion();
+		if (resourceVersion == null) {
+			return new DeploymentConfigParser(deploymentConfig).getDeploymentVersion();
+		}
+		String uid = uid(deploymentConfig);
+		String key = (uid == null ? deploymentConfig.getNamespaceName() + "/" + deploymentConfig.getName() : uid) + "@" + resourceVersion;
+		synchronized (VERSIONS) {
+			DeploymentVersion cached = VERSIONS.get(key);
+			if (cached != null) {
+				return cached;
+			}
 		}
+		DeploymentVersion version = new DeploymentConfigParser(deploymentConfig).getDeploymentVersion();
+		synchronized (VERSIONS) {
+			VERSIONS.put(key, version);
+		}
+		return version;
+	}
+
+	static String uid(IResource resource) {
+		if (!(resource instanceof KubernetesResource)) {
+			return null;
+		}
+		ModelNode node = ((KubernetesResource) resource).getNode();
+		if (!node.has("metadata") || !node.get("metadata").has("uid")) {
+			return null;
+		}
+		return node.get("metadata").get("uid").asString();
 	}
 
 	@SuppressWarnings("unchecked")
@@ -44,19 +107,36 @@ public class DeploymentConfigParser {
 		return null;
 	}
 
-	public String getVersion() {
+	public String getAppName() {
 		JSONObject metadata = ((JSONObject) jo.get("metadata"));
+		if (metadata == null) return null;
+		String name = (String) metadata.get("name");
 		JSONObject labels = ((JSONObject) metadata.get("labels"));
-		String environment = (String)labels.get("environment"); 
-		String name = (String)metadata.get("name"); 
-		name = environment.equals("") ? name : name.replaceFirst(environment, "");
+		String environment = labels == null ? null : (String) labels.get("environment");
+		if (name == null || environment == null || environment.isEmpty()) return name;
+		int index = name.indexOf(environment);
+		return index < 0 ? name : name.substring(0, index) + name.substring(index + environment.length());
+	}
+
+	public DeploymentVersion getDeploymentVersion() {
+		String app = getAppName();
 		JSONObject spec = ((JSONObject) jo.get("spec"));
-		JSONArray triggers = (JSONArray) spec.get("triggers");
-		JSONObject trigger = (JSONObject) triggers.get(0);
-		JSONObject imageChangeParams = (JSONObject)trigger.get("imageChangeParams");
-		JSONObject from = (JSONObject) imageChangeParams.get("from");
-		String image = (String) from.get("name");
-		return image.replaceFirst(Pattern.quote(name) + "\\:", "");
+		JSONArray triggers = spec == null ? null : (JSONArray) spec.get("triggers");
+		if (triggers != null) {
+			for (Object entry : triggers) {
+				JSONObject trigger = (JSONObject) entry;
+				if (trigger != null && "ImageChange".equals(trigger.get("type"))) {
+					JSONObject imageChangeParams = (JSONObject) trigger.get("imageChangeParams");
+					JSONObject from = imageChangeParams == null ? null : (JSONObject) imageChangeParams.get("from");
+					return DeploymentVersion.of(app, ImageReference.parse(from == null ? null : (String) from.get("name")));
+				}
+			}
+		}
+		return DeploymentVersion.unresolved(app, DeploymentVersion.Problem.NO_IMAGE_CHANGE_TRIGGER);
+	}
+
+	public String getVersion() {
+		return getDeploymentVersion().getVersion();
 	}
 
 	public String getReadinessPort() {
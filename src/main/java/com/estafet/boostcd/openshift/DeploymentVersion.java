@@ -0,0 +1,72 @@
+package com.estafet.boostcd.openshift;
+
+/**
+ * The version a DeploymentConfig is deployed at, taken from the image its
+ * ImageChange trigger follows. An image pinned by digest alone has no tag, so
+ * its version is the image reference itself, as it always has been. When the
+ * version cannot be determined {@link #isResolved()} is false and
+ * {@link #getProblem()} says why.
+ */
+public final class DeploymentVersion {
+
+	public enum Problem {
+		NO_IMAGE_CHANGE_TRIGGER, NO_IMAGE, NO_TAG
+	}
+
+	private final String app;
+	private final ImageReference image;
+	private final Problem problem;
+
+	private DeploymentVersion(String app, ImageReference image, Problem problem) {
+		this.app = app;
+		this.image = image;
+		this.problem = problem;
+	}
+
+	static DeploymentVersion of(String app, ImageReference image) {
+		if (image == null) {
+			return new DeploymentVersion(app, null, Problem.NO_IMAGE);
+		}
+		return new DeploymentVersion(app, image, image.getTag() == null && image.getDigest() == null ? Problem.NO_TAG : null);
+	}
+
+	static DeploymentVersion unresolved(String app, Problem problem) {
+		return new DeploymentVersion(app, null, problem);
+	}
+
+	public String getApp() {
+		return app;
+	}
+
+	public ImageReference getImage() {
+		return image;
+	}
+
+	public String getVersion() {
+		if (image == null) {
+			return null;
+		}
+		if (image.getTag() == null && image.getDigest() != null) {
+			return image.toString();
+		}
+		return image.getTag();
+	}
+
+	public String getDigest() {
+		return image == null ? null : image.getDigest();
+	}
+
+	public boolean isResolved() {
+		return problem == null;
+	}
+
+	public Problem getProblem() {
+		return problem;
+	}
+
+	@Override
+	public String toString() {
+		return app + ":" + (isResolved() ? getVersion() : problem);
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Where an app in one namespace can be reached: its service's clusterIP and
+ * ports and, when it is exposed, the selected route. All of the app's route
+ * URLs are kept in selection order.
+ */
+public final class Endpoint {
+
+	private final String namespace;
+	private final String service;
+	private final String clusterIP;
+	private final List<Integer> ports;
+	private final String route;
+	private final String host;
+	private final String path;
+	private final String tlsTermination;
+	private final List<String> urls;
+
+	Endpoint(String namespace, String service, String clusterIP, List<Integer> ports, String route, String host, String path,
+			String tlsTermination, List<String> urls) {
+		this.namespace = namespace;
+		this.service = service;
+		this.clusterIP = clusterIP;
+		this.ports = Collections.unmodifiableList(ports);
+		this.route = route;
+		this.host = host;
+		this.path = path;
+		this.tlsTermination = tlsTermination;
+		this.urls = Collections.unmodifiableList(urls);
+	}
+
+	public String getNamespace() {
+		return namespace;
+	}
+
+	public String getService() {
+		return service;
+	}
+
+	public String getClusterIP() {
+		return clusterIP;
+	}
+
+	public List<Integer> getPorts() {
+		return ports;
+	}
+
+	public String getRoute() {
+		return route;
+	}
+
+	public String getHost() {
+		return host;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public boolean isTls() {
+		return tlsTermination != null;
+	}
+
+	public String getTlsTermination() {
+		return tlsTermination;
+	}
+
+	public String getUrl() {
+		return urls.isEmpty() ? null : urls.get(0);
+	}
+
+	public List<String> getUrls() {
+		return urls;
+	}
+
+	public boolean isExposed() {
+		return host != null;
+	}
+
+	@Override
+	public String toString() {
+		return namespace + "/" + service + (host == null ? " " + clusterIP : " " + getUrl());
+	}
+
+}
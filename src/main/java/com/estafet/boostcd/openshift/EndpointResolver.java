@@ -0,0 +1,237 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.restclient.model.IService;
+import com.openshift.restclient.model.IServicePort;
+import com.openshift.restclient.model.route.IRoute;
+import com.openshift.restclient.model.route.ITLSConfig;
+
+/**
+ * Cached index of app endpoints per product namespace, built from one Service
+ * LIST and one Route LIST and rebuilt once it is older than the refresh
+ * period. Lookups are map reads: an expired index keeps being served while a
+ * single refresh runs on the client's fan-out executor, and only a namespace
+ * that was never indexed waits for the LISTs. The product's stage namespaces
+ * are cached the same way, and both caches keep the most recently used
+ * {@value #MAX_ENTRIES} entries. An app is matched by its service name or its
+ * {@code app} label, and when several routes point at the same service the
+ * TLS routes win, then the shortest path, then the route name. The same rule
+ * picks the namespace's route for {@link #route(String, String)}.
+ */
+public class EndpointResolver {
+
+	private static final Comparator<IRoute> ROUTE_ORDER = Comparator
+			.comparing((IRoute route) -> tlsTermination(route) == null)
+			.thenComparing(route -> route.getPath() == null ? 0 : route.getPath().length())
+			.thenComparing(IRoute::getName);
+
+	private static final Logger log = LoggerFactory.getLogger(EndpointResolver.class);
+
+	static final int MAX_ENTRIES = 1024;
+
+	private final OpenShiftClient client;
+	private final long refreshMillis;
+	private final Map<String, Expiring<Index>> indexes = lru();
+	private final Map<String, Expiring<List<String>>> stages = lru();
+	private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+	private final RequestCoalescer refreshes = new RequestCoalescer();
+
+	public EndpointResolver(OpenShiftClient client, long refreshPeriod, TimeUnit unit) {
+		this.client = client;
+		this.refreshMillis = unit.toMillis(refreshPeriod);
+	}
+
+	public Endpoint resolve(String productId, String namespace, String app) {
+		return index(productId, namespace).endpoints.get(app);
+	}
+
+	public Map<String, Endpoint> resolveAll(String productId, String namespace) {
+		return index(productId, namespace).byService;
+	}
+
+	/**
+	 * The selected route of the namespace out of all of its routes, or null
+	 * when it has none.
+	 */
+	public IRoute route(String productId, String namespace) {
+		return index(productId, namespace).route;
+	}
+
+	/**
+	 * The app's endpoint in every stage namespace of the product that has one.
+	 */
+	public Map<String, Endpoint> resolveAcrossStages(String productId, String app) {
+		Map<String, Endpoint> result = new LinkedHashMap<String, Endpoint>();
+		for (String namespace : stages(productId)) {
+			Endpoint endpoint = resolve(productId, namespace, app);
+			if (endpoint != null) {
+				result.put(namespace, endpoint);
+			}
+		}
+		return result;
+	}
+
+	public void invalidate(String productId, String namespace) {
+		indexes.remove(productId + "/" + namespace);
+		stages.remove(productId);
+	}
+
+	public void clear() {
+		indexes.clear();
+		stages.clear();
+	}
+
+	private Index index(String productId, String namespace) {
+		return cached(indexes, productId + "/" + namespace,
+				() -> build(namespace, client.getServices(productId, namespace), client.getRoutes(productId, namespace)));
+	}
+
+	private List<String> stages(String productId) {
+		return cached(stages, productId, () -> new ArrayList<String>(client.getProjects(productId).keySet()));
+	}
+
+	private <T> T cached(Map<String, Expiring<T>> cache, String key, Supplier<T> load) {
+		Expiring<T> entry = cache.get(key);
+		if (entry == null) {
+			return load(cache, key, load);
+		}
+		if (System.currentTimeMillis() >= entry.expiresAt && refreshing.add(key)) {
+			try {
+				client.getFanOutExecutor().execute(() -> {
+					try {
+						load(cache, key, load);
+					} catch (RuntimeException e) {
+						log.warn("could not refresh the endpoints of " + key + ", serving the previous ones", e);
+					} finally {
+						refreshing.remove(key);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				refreshing.remove(key);
+			}
+		}
+		return entry.value;
+	}
+
+	private <T> T load(Map<String, Expiring<T>> cache, String key, Supplier<T> load) {
+		return refreshes.execute(key, () -> {
+			T value = load.get();
+			cache.put(key, new Expiring<T>(value, System.currentTimeMillis() + refreshMillis));
+			return value;
+		});
+	}
+
+	private static <T> Map<String, Expiring<T>> lru() {
+		return Collections.synchronizedMap(new LinkedHashMap<String, Expiring<T>>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Expiring<T>> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		});
+	}
+
+	private Index build(String namespace, Map<String, IService> services, Map<String, IRoute> routes) {
+		Map<String, List<IRoute>> routesByService = new HashMap<String, List<IRoute>>();
+		for (IRoute route : routes.values()) {
+			if (route.getServiceName() != null) {
+				routesByService.computeIfAbsent(route.getServiceName(), key -> new ArrayList<IRoute>()).add(route);
+			}
+		}
+		Map<String, Endpoint> byService = new HashMap<String, Endpoint>();
+		Map<String, Endpoint> endpoints = new HashMap<String, Endpoint>();
+		for (IService service : services.values()) {
+			List<IRoute> serviceRoutes = routesByService.remove(service.getName());
+			Endpoint endpoint = endpoint(namespace, service.getName(), service, serviceRoutes);
+			byService.put(service.getName(), endpoint);
+			String app = service.getLabels().get("app");
+			if (app != null) {
+				endpoints.putIfAbsent(app, endpoint);
+			}
+		}
+		for (Map.Entry<String, List<IRoute>> entry : routesByService.entrySet()) {
+			byService.put(entry.getKey(), endpoint(namespace, entry.getKey(), null, entry.getValue()));
+		}
+		endpoints.putAll(byService);
+		return new Index(Collections.unmodifiableMap(byService), endpoints, select(routes));
+	}
+
+	private static Endpoint endpoint(String namespace, String name, IService service, List<IRoute> routes) {
+		List<Integer> ports = new ArrayList<Integer>();
+		if (service != null) {
+			for (IServicePort port : service.getPorts()) {
+				ports.add(port.getPort());
+			}
+		}
+		String clusterIP = service == null ? null : service.getClusterIP();
+		if (routes == null || routes.isEmpty()) {
+			return new Endpoint(namespace, name, clusterIP, ports, null, null, null, null, Collections.<String>emptyList());
+		}
+		routes.sort(ROUTE_ORDER);
+		List<String> urls = new ArrayList<String>();
+		for (IRoute route : routes) {
+			urls.add(url(route));
+		}
+		IRoute selected = routes.get(0);
+		return new Endpoint(namespace, name, clusterIP, ports, selected.getName(), selected.getHost(), selected.getPath(),
+				tlsTermination(selected), urls);
+	}
+
+	private static IRoute select(Map<String, IRoute> routes) {
+		return routes.isEmpty() ? null : Collections.min(routes.values(), ROUTE_ORDER);
+	}
+
+	private static String url(IRoute route) {
+		String path = route.getPath() == null ? "" : route.getPath();
+		return (tlsTermination(route) == null ? "http://" : "https://") + route.getHost() + path;
+	}
+
+	private static String tlsTermination(IRoute route) {
+		ITLSConfig tls = route.getTLSConfig();
+		String termination = tls == null ? null : tls.getTerminationType();
+		return termination == null || termination.isEmpty() ? null : termination;
+	}
+
+	private static final class Index {
+
+		private final Map<String, Endpoint> byService;
+		private final Map<String, Endpoint> endpoints;
+		private final IRoute route;
+
+		private Index(Map<String, Endpoint> byService, Map<String, Endpoint> endpoints, IRoute route) {
+			this.byService = byService;
+			this.endpoints = endpoints;
+			this.route = route;
+		}
+
+	}
+
+	private static final class Expiring<T> {
+
+		private final T value;
+		private final long expiresAt;
+
+		private Expiring(T value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of every stage namespace of a product, fetched in parallel.
+ * Calls that failed or missed the deadline are reported in {@link #getFailures()}
+ * keyed by {@code namespace/kind}; the corresponding maps are left empty.
+ */
+public final class EnvironmentSnapshot {
+
+	private final String productId;
+	private final Map<String, NamespaceSnapshot> namespaces;
+	private final Map<String, Throwable> failures;
+	private final long elapsedMillis;
+
+	EnvironmentSnapshot(String productId, Map<String, NamespaceSnapshot> namespaces, Map<String, Throwable> failures,
+			long elapsedMillis) {
+		this.productId = productId;
+		this.namespaces = Collections.unmodifiableMap(new HashMap<String, NamespaceSnapshot>(namespaces));
+		this.failures = Collections.unmodifiableMap(new HashMap<String, Throwable>(failures));
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public String getProductId() {
+		return productId;
+	}
+
+	public Map<String, NamespaceSnapshot> getNamespaces() {
+		return namespaces;
+	}
+
+	public NamespaceSnapshot getNamespace(String namespace) {
+		return namespaces.get(namespace);
+	}
+
+	public Map<String, Throwable> getFailures() {
+		return failures;
+	}
+
+	public boolean isComplete() {
+		return failures.isEmpty();
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+}
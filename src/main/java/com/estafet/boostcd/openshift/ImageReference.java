@@ -0,0 +1,65 @@
+package com.estafet.boostcd.openshift;
+
+/**
+ * An image reference such as {@code app:1.0.0},
+ * {@code registry:5000/project/app:1.0.0} or {@code app@sha256:...}, split
+ * with plain string scanning.
+ */
+public final class ImageReference {
+
+	private final String repository;
+	private final String name;
+	private final String tag;
+	private final String digest;
+
+	private ImageReference(String repository, String name, String tag, String digest) {
+		this.repository = repository;
+		this.name = name;
+		this.tag = tag;
+		this.digest = digest;
+	}
+
+	public static ImageReference parse(String reference) {
+		if (reference == null || reference.isEmpty()) {
+			return null;
+		}
+		String remainder = reference;
+		String digest = null;
+		int at = remainder.indexOf('@');
+		if (at >= 0) {
+			digest = remainder.substring(at + 1);
+			remainder = remainder.substring(0, at);
+		}
+		int slash = remainder.lastIndexOf('/');
+		int colon = remainder.lastIndexOf(':');
+		String tag = null;
+		if (colon > slash) {
+			tag = remainder.substring(colon + 1);
+			remainder = remainder.substring(0, colon);
+		}
+		String name = slash < 0 ? remainder : remainder.substring(slash + 1);
+		return new ImageReference(remainder, name, tag, digest);
+	}
+
+	public String getRepository() {
+		return repository;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getTag() {
+		return tag;
+	}
+
+	public String getDigest() {
+		return digest;
+	}
+
+	@Override
+	public String toString() {
+		return repository + (tag == null ? "" : ":" + tag) + (digest == null ? "" : "@" + digest);
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Two-way tag/sha lookup table for a single image stream. A tag maps to the
+ * sha of its most recent item, while a sha maps to the first tag (in status
+ * order) whose history contains it.
+ */
+public final class ImageStreamIndex {
+
+	private final Map<String, String> shaByTag;
+	private final Map<String, String> tagBySha;
+
+	private ImageStreamIndex(Map<String, String> shaByTag, Map<String, String> tagBySha) {
+		this.shaByTag = Collections.unmodifiableMap(shaByTag);
+		this.tagBySha = Collections.unmodifiableMap(tagBySha);
+	}
+
+	static ImageStreamIndex build(JSONObject imageStream) {
+		Map<String, String> shaByTag = new HashMap<String, String>();
+		Map<String, String> tagBySha = new HashMap<String, String>();
+		JSONObject status = (JSONObject) imageStream.get("status");
+		JSONArray tags = status == null ? null : (JSONArray) status.get("tags");
+		if (tags != null) {
+			for (Object tagEntry : tags) {
+				JSONObject tagObject = (JSONObject) tagEntry;
+				String tag = (String) tagObject.get("tag");
+				JSONArray items = (JSONArray) tagObject.get("items");
+				if (tag == null || items == null || items.isEmpty()) {
+					continue;
+				}
+				for (Object itemEntry : items) {
+					String image = (String) ((JSONObject) itemEntry).get("image");
+					if (image == null) {
+						continue;
+					}
+					shaByTag.putIfAbsent(tag, image);
+					tagBySha.putIfAbsent(image, tag);
+				}
+			}
+		}
+		return new ImageStreamIndex(shaByTag, tagBySha);
+	}
+
+	public Optional<String> findShaByTag(String tag) {
+		return Optional.ofNullable(shaByTag.get(tag));
+	}
+
+	public Optional<String> findTagBySha(String sha) {
+		return Optional.ofNullable(tagBySha.get(sha));
+	}
+
+	public Map<String, String> resolveTags(Collection<String> shas) {
+		Map<String, String> result = new LinkedHashMap<String, String>();
+		for (String sha : shas) {
+			String tag = tagBySha.get(sha);
+			if (tag != null) {
+				result.put(sha, tag);
+			}
+		}
+		return result;
+	}
+
+	public Map<String, String> getShaByTag() {
+		return shaByTag;
+	}
+
+	public Map<String, String> getTagBySha() {
+		return tagBySha;
+	}
+
+}
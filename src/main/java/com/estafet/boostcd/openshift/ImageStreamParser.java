@@ -1,77 +1,104 @@
 package com.estafet.boostcd.openshift;
 
-import java.io.IOException;
-import java.io.StringReader;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 
-import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
 import com.openshift.restclient.model.IImageStream;
 
 public class ImageStreamParser {
 
+	private static final JsonPathExtractor EXTRACTOR = new JsonPathExtractor(
+			"status.tags[*].tag",
+			"status.tags[*].items[*].image");
+
+	private static final int MAX_CACHED_STREAMS = 1024;
+
+	private static final Map<String, ImageStreamParser> CACHE = new LinkedHashMap<String, ImageStreamParser>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ImageStreamParser> eldest) {
+			return size() > MAX_CACHED_STREAMS;
+		}
+	};
+
 	private final JSONObject jo;
+	private final String resourceVersion;
+	private volatile ImageStreamIndex index;
 
 	public ImageStreamParser(IImageStream imageStream) {
-		this(imageStream.toJson());
+		this.jo = EXTRACTOR.extract(imageStream);
+		this.resourceVersion = imageStream.getResourceVersion();
 	}
 
 	public ImageStreamParser(String json) {
-		try {
-			this.jo = (JSONObject) new JSONParser().parse(new StringReader(json));
-		} catch (IOException | ParseException e) {
-			throw new RuntimeException(e);
+		this.jo = EXTRACTOR.extract(json);
+		this.resourceVersion = null;
+	}
+
+	/**
+	 * A parser for the image stream, reused while its uid and resourceVersion
+	 * are unchanged. The cache is process-global: it is shared by every client
+	 * in the JVM, keeps the most recently used {@value #MAX_CACHED_STREAMS}
+	 * streams and is not cleared when a client closes.
+	 */
+	public static ImageStreamParser of(IImageStream imageStream) {
+		String uid = DeploymentConfigParser.uid(imageStream);
+		String key = uid == null ? imageStream.getNamespaceName() + "/" + imageStream.getName() : uid;
+		String resourceVersion = imageStream.getResourceVersion();
+		synchronized (CACHE) {
+			ImageStreamParser cached = CACHE.get(key);
+			if (cached != null && resourceVersion != null && resourceVersion.equals(cached.resourceVersion)) {
+				return cached;
+			}
+		}
+		ImageStreamParser parser = new ImageStreamParser(imageStream);
+		synchronized (CACHE) {
+			CACHE.put(key, parser);
+		}
+		return parser;
+	}
+
+	public ImageStreamIndex getIndex() {
+		ImageStreamIndex result = index;
+		if (result == null) {
+			synchronized (this) {
+				result = index;
+				if (result == null) {
+					result = ImageStreamIndex.build(jo);
+					index = result;
+				}
+			}
 		}
+		return result;
 	}
 
 	public String getLatestTag() {
 		return getShaByTag("latest");
 	}
 
-	@SuppressWarnings("unchecked")
 	public String getShaByTag(String tag) {
-		JSONObject status = (JSONObject) jo.get("status");
-		JSONArray tags = (JSONArray) status.get("tags");
-		Iterator<JSONObject> tagsIterator = tags.iterator();
-		while (tagsIterator.hasNext()) {
-			JSONObject tagObject = tagsIterator.next();
-			if (tagObject.get("tag").equals(tag)) {
-				JSONArray items = (JSONArray) tagObject.get("items");
-				JSONObject item = (JSONObject) items.get(0);
-				return (String) item.get("image");
-			}
-		}
-		throw new RuntimeException("Cannot find sha for tag - " + tag);
+		return findShaByTag(tag).orElseThrow(() -> new RuntimeException("Cannot find sha for tag - " + tag));
 	}
 
-	@SuppressWarnings("unchecked")
 	public String getTagBySha(String sha) {
-		JSONObject status = (JSONObject) jo.get("status");
-		JSONArray tags = (JSONArray) status.get("tags");
-		Iterator<JSONObject> tagsIterator = tags.iterator();
-		while (tagsIterator.hasNext()) {
-			JSONObject tagObject = tagsIterator.next();
-			JSONArray items = (JSONArray) tagObject.get("items");
-			if (isShaMatch(sha, items)) {
-				return (String) tagObject.get("tag");	
-			}
-		}
-		throw new RuntimeException("Cannot find sha for tag - " + sha);
+		return findTagBySha(sha).orElseThrow(() -> new RuntimeException("Cannot find sha for tag - " + sha));
 	}
-	
-	@SuppressWarnings("unchecked")
-	private boolean isShaMatch(String sha, JSONArray items) {
-		Iterator<JSONObject> itemsIterator = items.iterator();
-		while (itemsIterator.hasNext()) {
-			JSONObject item = itemsIterator.next();
-			if (item.get("image").equals(sha)) {
-				return true;
-			}
-		}
-		return false;
+
+	public Optional<String> findShaByTag(String tag) {
+		return getIndex().findShaByTag(tag);
+	}
+
+	public Optional<String> findTagBySha(String sha) {
+		return getIndex().findTagBySha(sha);
+	}
+
+	public Map<String, String> resolveTags(Collection<String> shas) {
+		return getIndex().resolveTags(shas);
 	}
 
 }
@@ -0,0 +1,433 @@
+package com.estafet.boostcd.openshift;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.ModelType;
+import org.jboss.dmr.Property;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.ContentHandler;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+import com.openshift.internal.restclient.model.KubernetesResource;
+import com.openshift.restclient.model.IResource;
+
+/**
+ * Pulls a fixed set of paths out of a JSON document in a single streaming pass.
+ * Paths are dot separated field names with optional array selectors, for
+ * example {@code spec.source.git.uri} or {@code status.tags[*].items[0].image}.
+ * <p>
+ * The result is a pruned {@link JSONObject} holding only the nodes on those
+ * paths (a selected container is kept whole), so callers can navigate it
+ * exactly as they would the full tree. Everything else is skipped without
+ * being materialised, and parsing stops as soon as no further match is
+ * possible. Instances are immutable and thread-safe.
+ * <p>
+ * A restclient resource already holds its parsed {@link ModelNode} tree, so
+ * {@link #extract(IResource)} walks that tree along the same paths rather than
+ * serialising it with {@code toJson()} and parsing the result again.
+ */
+public class JsonPathExtractor {
+
+	private static final Object WILDCARD = new Object();
+
+	private enum Match {
+		SKIP, PREFIX, CAPTURE
+	}
+
+	private final List<Object[]> selectors = new ArrayList<Object[]>();
+	private final int[] anchors;
+
+	/**
+	 * An extractor for the {@code items} of a LIST response that pulls the
+	 * given paths, plus {@code metadata.name}, out of every item.
+	 */
+	public static JsonPathExtractor forListItems(String... paths) {
+		String[] itemPaths = new String[paths.length + 1];
+		itemPaths[0] = "items[*].metadata.name";
+		for (int i = 0; i < paths.length; i++) {
+			itemPaths[i + 1] = "items[*]." + paths[i];
+		}
+		return new JsonPathExtractor(itemPaths);
+	}
+
+	public JsonPathExtractor(String... paths) {
+		anchors = new int[paths.length];
+		for (int i = 0; i < paths.length; i++) {
+			Object[] selector = compile(paths[i]);
+			selectors.add(selector);
+			anchors[i] = selector.length;
+			for (int j = 0; j < selector.length; j++) {
+				if (selector[j] == WILDCARD) {
+					anchors[i] = j;
+					break;
+				}
+			}
+		}
+	}
+
+	public JSONObject extract(String json) {
+		return extract(new StringReader(json));
+	}
+
+	public List<JSONObject> extractItems(String json) {
+		JSONArray items = (JSONArray) extract(json).get("items");
+		List<JSONObject> result = new ArrayList<JSONObject>();
+		if (items != null) {
+			for (Object item : items) {
+				if (item != null) {
+					result.add((JSONObject) item);
+				}
+			}
+		}
+		return result;
+	}
+
+	public JSONObject extract(IResource resource) {
+		if (!(resource instanceof KubernetesResource)) {
+			return extract(resource.toJson());
+		}
+		ModelNode node = ((KubernetesResource) resource).getNode();
+		JSONObject root = new JSONObject();
+		for (Object[] selector : selectors) {
+			select(node, selector, 0, root);
+		}
+		return root;
+	}
+
+	public JSONObject extract(Reader reader) {
+		Handler handler = new Handler();
+		try {
+			new JSONParser().parse(reader, handler);
+		} catch (IOException | ParseException e) {
+			throw new RuntimeException(e);
+		}
+		handler.finish();
+		return handler.root;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object select(ModelNode node, Object[] selector, int depth, Object existing) {
+		if (depth == selector.length) {
+			return convert(node);
+		}
+		Object segment = selector[depth];
+		if (segment instanceof String) {
+			if (node.getType() != ModelType.OBJECT || !node.has((String) segment)) {
+				return existing;
+			}
+			JSONObject target = existing instanceof JSONObject ? (JSONObject) existing : new JSONObject();
+			Object value = select(node.get((String) segment), selector, depth + 1, target.get(segment));
+			if (value != null) {
+				target.put(segment, value);
+			}
+			return target.isEmpty() ? existing : target;
+		}
+		if (node.getType() != ModelType.LIST) {
+			return existing;
+		}
+		List<ModelNode> items = node.asList();
+		JSONArray target = existing instanceof JSONArray ? (JSONArray) existing : new JSONArray();
+		for (int i = 0; i < items.size(); i++) {
+			if (!matches(segment, Integer.valueOf(i))) {
+				continue;
+			}
+			Object value = select(items.get(i), selector, depth + 1, i < target.size() ? target.get(i) : null);
+			if (value != null) {
+				while (target.size() <= i) {
+					target.add(null);
+				}
+				target.set(i, value);
+			}
+		}
+		return target.isEmpty() ? existing : target;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Object convert(ModelNode node) {
+		switch (node.getType()) {
+		case OBJECT:
+			JSONObject object = new JSONObject();
+			for (Property property : node.asPropertyList()) {
+				object.put(property.getName(), convert(property.getValue()));
+			}
+			return object;
+		case LIST:
+			JSONArray array = new JSONArray();
+			for (ModelNode item : node.asList()) {
+				array.add(convert(item));
+			}
+			return array;
+		case INT:
+		case LONG:
+		case BIG_INTEGER:
+			return Long.valueOf(node.asLong());
+		case DOUBLE:
+		case BIG_DECIMAL:
+			return Double.valueOf(node.asDouble());
+		case BOOLEAN:
+			return Boolean.valueOf(node.asBoolean());
+		case UNDEFINED:
+			return null;
+		default:
+			return node.asString();
+		}
+	}
+
+	private static Object[] compile(String path) {
+		List<Object> segments = new ArrayList<Object>();
+		for (String part : path.split("\\.")) {
+			int bracket = part.indexOf('[');
+			String field = bracket < 0 ? part : part.substring(0, bracket);
+			if (!field.isEmpty()) {
+				segments.add(field);
+			}
+			while (bracket >= 0) {
+				int close = part.indexOf(']', bracket);
+				if (close < 0) {
+					throw new IllegalArgumentException("Invalid path - " + path);
+				}
+				String index = part.substring(bracket + 1, close);
+				segments.add(index.equals("*") ? WILDCARD : Integer.valueOf(index));
+				bracket = part.indexOf('[', close);
+			}
+		}
+		return segments.toArray();
+	}
+
+	private static boolean matches(Object selector, Object segment) {
+		return selector == WILDCARD ? segment instanceof Integer : selector.equals(segment);
+	}
+
+	private static final class Frame {
+
+		private final Object container;
+		private final boolean capture;
+		private final Object key;
+		private int nextIndex;
+
+		private Frame(Object container, boolean capture, Object key) {
+			this.container = container;
+			this.capture = capture;
+			this.key = key;
+		}
+
+	}
+
+	private final class Handler implements ContentHandler {
+
+		private final List<Object> path = new ArrayList<Object>();
+		private final Deque<Frame> frames = new ArrayDeque<Frame>();
+		private final boolean[] done = new boolean[selectors.size()];
+		private int skipped;
+		private JSONObject root;
+
+		@Override
+		public void startJSON() {
+		}
+
+		@Override
+		public void endJSON() {
+		}
+
+		@Override
+		public boolean startObject() {
+			return startContainer(new JSONObject());
+		}
+
+		@Override
+		public boolean endObject() {
+			return endContainer();
+		}
+
+		@Override
+		public boolean startArray() {
+			return startContainer(new JSONArray());
+		}
+
+		@Override
+		public boolean endArray() {
+			return endContainer();
+		}
+
+		@Override
+		public boolean startObjectEntry(String key) {
+			if (skipped == 0) {
+				path.add(key);
+			}
+			return true;
+		}
+
+		@Override
+		public boolean endObjectEntry() {
+			if (skipped == 0) {
+				path.remove(path.size() - 1);
+			}
+			return true;
+		}
+
+		@Override
+		public boolean primitive(Object value) {
+			if (skipped > 0) {
+				return true;
+			}
+			beginValue();
+			if (classify() == Match.CAPTURE) {
+				attach(value);
+			}
+			return endValue();
+		}
+
+		private boolean isEmpty(Object container) {
+			return container instanceof JSONObject ? ((JSONObject) container).isEmpty() : ((JSONArray) container).isEmpty();
+		}
+
+		private boolean startContainer(Object container) {
+			if (skipped > 0) {
+				skipped++;
+				return true;
+			}
+			if (frames.isEmpty()) {
+				root = container instanceof JSONObject ? (JSONObject) container : new JSONObject();
+				frames.push(new Frame(root, false, null));
+				return true;
+			}
+			beginValue();
+			Match match = classify();
+			if (match == Match.SKIP) {
+				skipped = 1;
+				return true;
+			}
+			attach(container);
+			frames.push(new Frame(container, match == Match.CAPTURE, path.get(path.size() - 1)));
+			return true;
+		}
+
+		private boolean endContainer() {
+			if (skipped > 0) {
+				if (--skipped == 0) {
+					return endValue();
+				}
+				return true;
+			}
+			close(frames.pop());
+			return frames.isEmpty() || endValue();
+		}
+
+		/**
+		 * Closes the containers still open when parsing stopped early.
+		 */
+		private void finish() {
+			while (frames.size() > 1) {
+				close(frames.pop());
+			}
+		}
+
+		/**
+		 * Drops a container that was only on the way to a path that turned out
+		 * to be missing, as {@link #extract(IResource)} does.
+		 */
+		private void close(Frame frame) {
+			Frame parent = frames.peek();
+			if (parent == null || frame.capture || !isEmpty(frame.container)) {
+				return;
+			}
+			if (parent.container instanceof JSONObject) {
+				((JSONObject) parent.container).remove(frame.key);
+			} else {
+				JSONArray array = (JSONArray) parent.container;
+				array.remove(((Integer) frame.key).intValue());
+				while (!array.isEmpty() && array.get(array.size() - 1) == null) {
+					array.remove(array.size() - 1);
+				}
+			}
+		}
+
+		private void beginValue() {
+			Frame parent = frames.peek();
+			if (parent.container instanceof JSONArray) {
+				path.add(Integer.valueOf(parent.nextIndex));
+			}
+		}
+
+		private boolean endValue() {
+			boolean more = complete();
+			Frame parent = frames.peek();
+			if (parent.container instanceof JSONArray) {
+				path.remove(path.size() - 1);
+				parent.nextIndex++;
+			}
+			return more;
+		}
+
+		private Match classify() {
+			if (frames.peek().capture) {
+				return Match.CAPTURE;
+			}
+			Match result = Match.SKIP;
+			for (Object[] selector : selectors) {
+				if (path.size() > selector.length) {
+					continue;
+				}
+				boolean prefix = true;
+				for (int i = 0; i < path.size() && prefix; i++) {
+					prefix = matches(selector[i], path.get(i));
+				}
+				if (prefix && path.size() == selector.length) {
+					return Match.CAPTURE;
+				} else if (prefix) {
+					result = Match.PREFIX;
+				}
+			}
+			return result;
+		}
+
+		@SuppressWarnings("unchecked")
+		private void attach(Object value) {
+			Frame parent = frames.peek();
+			if (parent.container instanceof JSONObject) {
+				((JSONObject) parent.container).put(path.get(path.size() - 1), value);
+			} else {
+				JSONArray array = (JSONArray) parent.container;
+				while (array.size() < parent.nextIndex) {
+					array.add(null);
+				}
+				array.add(value);
+			}
+		}
+
+		private boolean complete() {
+			boolean more = false;
+			for (int i = 0; i < done.length; i++) {
+				if (!done[i]) {
+					done[i] = isPrefixOfAnchor(i);
+					more |= !done[i];
+				}
+			}
+			return more;
+		}
+
+		private boolean isPrefixOfAnchor(int selectorIndex) {
+			if (path.isEmpty() || path.size() > anchors[selectorIndex]) {
+				return false;
+			}
+			Object[] selector = selectors.get(selectorIndex);
+			for (int i = 0; i < path.size(); i++) {
+				if (!selector[i].equals(path.get(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.openshift.restclient.model.IDeploymentConfig;
+import com.openshift.restclient.model.IImageStream;
+import com.openshift.restclient.model.IProject;
+import com.openshift.restclient.model.IService;
+
+public final class NamespaceSnapshot {
+
+	private final IProject project;
+	private final Map<String, IDeploymentConfig> deploymentConfigs;
+	private final Map<String, IService> services;
+	private final Map<String, IImageStream> imageStreams;
+
+	NamespaceSnapshot(IProject project, Map<String, IDeploymentConfig> deploymentConfigs,
+			Map<String, IService> services, Map<String, IImageStream> imageStreams) {
+		this.project = project;
+		this.deploymentConfigs = copyOf(deploymentConfigs);
+		this.services = copyOf(services);
+		this.imageStreams = copyOf(imageStreams);
+	}
+
+	public String getNamespace() {
+		return project.getName();
+	}
+
+	public IProject getProject() {
+		return project;
+	}
+
+	public Map<String, IDeploymentConfig> getDeploymentConfigs() {
+		return deploymentConfigs;
+	}
+
+	public Map<String, IService> getServices() {
+		return services;
+	}
+
+	public Map<String, IImageStream> getImageStreams() {
+		return imageStreams;
+	}
+
+	private static <T> Map<String, T> copyOf(Map<String, T> source) {
+		if (source == null || source.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		return Collections.unmodifiableMap(new HashMap<String, T>(source));
+	}
+
+}
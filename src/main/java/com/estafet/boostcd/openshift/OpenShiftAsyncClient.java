@@ -0,0 +1,329 @@
+package com.estafet.boostcd.openshift;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.restclient.model.IBuild;
+import com.openshift.restclient.model.IBuildConfig;
+import com.openshift.restclient.model.IDeploymentConfig;
+import com.openshift.restclient.model.IImageStream;
+import com.openshift.restclient.model.IProject;
+import com.openshift.restclient.model.IService;
+import com.openshift.restclient.model.route.IRoute;
+
+import io.opentracing.ActiveSpan;
+import io.opentracing.Tracer;
+
+/**
+ * Non-blocking counterpart of {@link OpenShiftClient}. Every operation runs on
+ * the configured executor (virtual threads by default where the JDK provides
+ * them) and returns a {@link CompletableFuture}. Cancelling a future, or
+ * letting it reach the configured timeout, interrupts the underlying call, and
+ * the caller's active span is continued on the worker thread so the client's
+ * own spans stay attached to the same trace. Closing the client shuts down an
+ * executor it created and fails the calls that have not completed; a borrowed
+ * executor is left running, and only new calls are rejected.
+ */
+public class OpenShiftAsyncClient implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(OpenShiftAsyncClient.class);
+
+	private static final int DEFAULT_PLATFORM_THREADS = 64;
+
+	private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "openshift-async-timeout");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final OpenShiftClient client;
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	private final long timeoutMillis;
+	private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	public OpenShiftAsyncClient(OpenShiftClient client) {
+		this(client, defaultExecutor(), true, 0, TimeUnit.MILLISECONDS);
+	}
+
+	public OpenShiftAsyncClient(OpenShiftClient client, long timeout, TimeUnit unit) {
+		this(client, defaultExecutor(), true, timeout, unit);
+	}
+
+	public OpenShiftAsyncClient(OpenShiftClient client, ExecutorService executor, long timeout, TimeUnit unit) {
+		this(client, executor, false, timeout, unit);
+	}
+
+	OpenShiftAsyncClient(OpenShiftClient client, ExecutorService executor, boolean ownsExecutor, long timeout,
+			TimeUnit unit) {
+		this.client = client;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		this.timeoutMillis = unit.toMillis(timeout);
+	}
+
+	public static ExecutorService defaultExecutor() {
+		try {
+			Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) virtual.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			AtomicInteger count = new AtomicInteger();
+			return Executors.newFixedThreadPool(DEFAULT_PLATFORM_THREADS, runnable -> {
+				Thread thread = new Thread(runnable, "openshift-async-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	public CompletableFuture<IBuildConfig> getBuildConfig(String productId, String app) {
+		return submit("getBuildConfig", () -> client.getBuildConfig(productId, app));
+	}
+
+	public CompletableFuture<List<IBuildConfig>> getBuildConfigs(String productId) {
+		return submit("getBuildConfigs", () -> client.getBuildConfigs(productId));
+	}
+
+	public CompletableFuture<List<IBuild>> getBuilds(String productId) {
+		return submit("getBuilds", () -> client.getBuilds(productId));
+	}
+
+	public CompletableFuture<List<IBuild>> getBuilds(BuildQuery query) {
+		return submit("getBuilds", () -> client.getBuilds(query));
+	}
+
+	/**
+	 * A cursor whose first page has already been fetched on the executor.
+	 */
+	public CompletableFuture<BuildCursor> listBuilds(BuildQuery query) {
+		return submit("listBuilds", () -> {
+			BuildCursor cursor = client.listBuilds(query);
+			cursor.hasNext();
+			return cursor;
+		});
+	}
+
+	/**
+	 * Consumes the build stream on the executor, so the later pages are
+	 * fetched there as well.
+	 */
+	public <R> CompletableFuture<R> streamBuilds(BuildQuery query, Function<Stream<IBuild>, R> consumer) {
+		return submit("streamBuilds", () -> consumer.apply(client.streamBuilds(query)));
+	}
+
+	public CompletableFuture<String> repoUrl(String productId, String app) {
+		return submit("repoUrl", () -> client.repoUrl(productId, app));
+	}
+
+	public CompletableFuture<Map<String, IProject>> getProjects(String productId) {
+		return submit("getProjects", () -> client.getProjects(productId));
+	}
+
+	public CompletableFuture<ProjectCatalog> getProjects(Collection<String> productIds) {
+		return submit("getProjects", () -> client.getProjects(productIds));
+	}
+
+	public CompletableFuture<Boolean> isEnvironmentTestPassed(IProject project) {
+		return submit("isEnvironmentTestPassed", () -> client.isEnvironmentTestPassed(project));
+	}
+
+	public CompletableFuture<Map<String, IDeploymentConfig>> getDeploymentConfigs(String productId, String namespace) {
+		return submit("getDeploymentConfigs", () -> client.getDeploymentConfigs(productId, namespace));
+	}
+
+	public CompletableFuture<Map<String, IService>> getServices(String productId, String namespace) {
+		return submit("getServices", () -> client.getServices(productId, namespace));
+	}
+
+	public CompletableFuture<Map<String, AppTopology>> getDeploymentConfigSummaries(String productId, String namespace) {
+		return submit("getDeploymentConfigSummaries", () -> client.getDeploymentConfigSummaries(productId, namespace));
+	}
+
+	public CompletableFuture<Map<String, AppTopology>> getDeploymentConfigSummaries(String productId, String namespace,
+			String fieldSelector) {
+		return submit("getDeploymentConfigSummaries", () -> client.getDeploymentConfigSummaries(productId, namespace, fieldSelector));
+	}
+
+	public CompletableFuture<Map<String, String>> getServiceClusterIPs(String productId, String namespace) {
+		return submit("getServiceClusterIPs", () -> client.getServiceClusterIPs(productId, namespace));
+	}
+
+	public CompletableFuture<Map<String, IImageStream>> getImageStreams(String productId, String namespace) {
+		return submit("getImageStreams", () -> client.getImageStreams(productId, namespace));
+	}
+
+	public CompletableFuture<Map<String, IImageStream>> getCICDImageStreams(String productId) {
+		return submit("getCICDImageStreams", () -> client.getCICDImageStreams(productId));
+	}
+
+	public CompletableFuture<EnvironmentSnapshot> getEnvironmentSnapshot(String productId) {
+		return submit("getEnvironmentSnapshot", () -> client.getEnvironmentSnapshot(productId));
+	}
+
+	public CompletableFuture<ProductTopology> getProductTopology(String productId) {
+		return submit("getProductTopology", () -> client.getProductTopology(productId));
+	}
+
+	public CompletableFuture<List<TopologyChange>> refreshProductTopology(String productId) {
+		return submit("refreshProductTopology", () -> client.refreshProductTopology(productId));
+	}
+
+	public CompletableFuture<PromotionReadiness> getPromotionReadiness(String productId, List<String> environments) {
+		return submit("getPromotionReadiness", () -> client.getPromotionReadiness(productId, environments));
+	}
+
+	public CompletableFuture<Map<String, IRoute>> getRoutes(String productId, String namespace) {
+		return submit("getRoutes", () -> client.getRoutes(productId, namespace));
+	}
+
+	public CompletableFuture<IRoute> getRoute(String productId) {
+		return submit("getRoute", () -> client.getRoute(productId));
+	}
+
+	public CompletableFuture<IBuildConfig> getTestWrapperBuildConfig(String productId, String env) {
+		return submit("getTestWrapperBuildConfig", () -> client.getTestWrapperBuildConfig(productId, env));
+	}
+
+	public CompletableFuture<IBuildConfig> getTestBuildConfig(String productId, String env) {
+		return submit("getTestBuildConfig", () -> client.getTestBuildConfig(productId, env));
+	}
+
+	public CompletableFuture<PipelineExecution> executeBuildPipeline(String productId, String productRepo, String app, String repoUrl) {
+		return submit("executeBuildPipeline", () -> client.executeBuildPipeline(productId, productRepo, app, repoUrl));
+	}
+
+	public CompletableFuture<PipelineExecution> executeBuildPipeline(String productId, String productRepo, String app) {
+		return submit("executeBuildPipeline", () -> client.executeBuildPipeline(productId, productRepo, app));
+	}
+
+	public CompletableFuture<PipelineExecution> executeBuildAllPipeline(String productId, String productRepo) {
+		return submit("executeBuildAllPipeline", () -> client.executeBuildAllPipeline(productId, productRepo));
+	}
+
+	public CompletableFuture<PipelineExecution> executeReleasePipeline(String productId, String productRepo, String app) {
+		return submit("executeReleasePipeline", () -> client.executeReleasePipeline(productId, productRepo, app));
+	}
+
+	public CompletableFuture<PipelineExecution> executeReleaseAllPipeline(String productId, String productRepo) {
+		return submit("executeReleaseAllPipeline", () -> client.executeReleaseAllPipeline(productId, productRepo));
+	}
+
+	public CompletableFuture<PipelineExecution> executePromotePipeline(String productId, String productRepo, String env, String app,
+			String next) {
+		return submit("executePromotePipeline", () -> client.executePromotePipeline(productId, productRepo, env, app, next));
+	}
+
+	public CompletableFuture<PipelineExecution> executePromoteAllPipeline(String productId, String productRepo, String env, String next) {
+		return submit("executePromoteAllPipeline", () -> client.executePromoteAllPipeline(productId, productRepo, env, next));
+	}
+
+	public CompletableFuture<PipelineExecution> executeTestPipeline(String productId, String productRepo, String env) {
+		return submit("executeTestPipeline", () -> client.executeTestPipeline(productId, productRepo, env));
+	}
+
+	public CompletableFuture<PipelineExecution> executePromoteToLivePipeline(String productId) {
+		return submit("executePromoteToLivePipeline", () -> client.executePromoteToLivePipeline(productId));
+	}
+
+	@Override
+	public void close() {
+		if (!closed.compareAndSet(false, true) || !ownsExecutor) {
+			return;
+		}
+		executor.shutdownNow();
+		for (CompletableFuture<?> future : pending) {
+			future.completeExceptionally(new RejectedExecutionException("OpenShift async client has been closed"));
+		}
+	}
+
+	private <T> CompletableFuture<T> submit(String operation, Supplier<T> call) {
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		if (closed.get() && !ownsExecutor) {
+			result.completeExceptionally(new RejectedExecutionException("OpenShift async client has been closed"));
+			return result;
+		}
+		pending.add(result);
+		result.whenComplete((value, error) -> pending.remove(result));
+		ActiveSpan.Continuation continuation = capture();
+		AtomicBoolean started = new AtomicBoolean();
+		Future<?> task;
+		try {
+			task = executor.submit(() -> {
+				if (!started.compareAndSet(false, true)) {
+					return;
+				}
+				ActiveSpan active = continuation == null ? null : continuation.activate();
+				try {
+					if (!result.isDone()) {
+						result.complete(call.get());
+					}
+				} catch (Throwable e) {
+					result.completeExceptionally(e);
+				} finally {
+					if (active != null) {
+						active.deactivate();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			release(continuation);
+			result.completeExceptionally(e);
+			return result;
+		}
+		ScheduledFuture<?> timeout = timeoutMillis <= 0 ? null : TIMER.schedule(() -> {
+			if (result.completeExceptionally(new TimeoutException(operation + " did not complete within " + timeoutMillis + "ms"))) {
+				log.warn(operation + " timed out after " + timeoutMillis + "ms");
+			}
+		}, timeoutMillis, TimeUnit.MILLISECONDS);
+		result.whenComplete((value, error) -> {
+			if (timeout != null) {
+				timeout.cancel(false);
+			}
+			if (error == null) {
+				return;
+			}
+			if (started.compareAndSet(false, true)) {
+				release(continuation);
+				task.cancel(false);
+			} else if (!task.isDone()) {
+				task.cancel(true);
+			}
+		});
+		return result;
+	}
+
+	private void release(ActiveSpan.Continuation continuation) {
+		if (continuation != null) {
+			continuation.activate().deactivate();
+		}
+	}
+
+	private ActiveSpan.Continuation capture() {
+		Tracer tracer = client.getTracer();
+		ActiveSpan parent = tracer == null ? null : tracer.activeSpan();
+		return parent == null ? null : parent.capture();
+	}
+
+}
@@ -1,22 +1,45 @@
 package com.estafet.boostcd.openshift;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import org.json.simple.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.stereotype.Component;
 
 import com.estafet.boostcd.commons.env.ENV;
-import com.openshift.restclient.ClientBuilder;
 import com.openshift.restclient.IClient;
+import com.openshift.restclient.IResourceFactory;
+import com.openshift.restclient.OpenShiftException;
 import com.openshift.restclient.ResourceKind;
+import com.openshift.restclient.api.ITypeFactory;
 import com.openshift.restclient.capability.CapabilityVisitor;
 import com.openshift.restclient.capability.resources.IBuildTriggerable;
 import com.openshift.restclient.model.IBuild;
@@ -24,66 +47,369 @@ import com.openshift.restclient.model.IBuildConfig;
 import com.openshift.restclient.model.IDeploymentConfig;
 import com.openshift.restclient.model.IImageStream;
 import com.openshift.restclient.model.IProject;
+import com.openshift.restclient.model.IResource;
 import com.openshift.restclient.model.IService;
+import com.openshift.restclient.model.JSONSerializeable;
 import com.openshift.restclient.model.route.IRoute;
 
 import io.opentracing.Span;
 import io.opentracing.Tracer;
 import io.opentracing.tag.Tags;
 
-@Component
-public class OpenShiftClient {
+/**
+ * Plain Java client for the boostcd OpenShift conventions, created with
+ * {@link #builder()}. Instances are thread-safe and meant to be shared. Call
+ * {@link #start()} before use to open any configured watches, and
+ * {@link #close()} to stop the watches, build trackers and worker threads and
+ * release the pooled connections. {@link SpringOpenShiftClient} builds one
+ * as a Spring bean.
+ */
+public class OpenShiftClient implements AutoCloseable {
 
 	private static final Logger log = LoggerFactory.getLogger(OpenShiftClient.class);
+
+	private static final int DEFAULT_FAN_OUT_THREADS = 16;
+	private static final long DEFAULT_SNAPSHOT_TIMEOUT_SECONDS = 30;
+	private static final String DEFAULT_CLUSTER = "default";
+	private static final String SNAPSHOT_SUFFIX = ".watch";
+	private static final long DEFAULT_ENDPOINT_REFRESH_SECONDS = 30;
+	private static final int DEFAULT_WATCH_NAMESPACES = 64;
+
+	private static final ITypeFactory RAW_RESPONSE = new ITypeFactory() {
+		@Override
+		public Object createInstanceFrom(String response) {
+			return response;
+		}
+
+		@Override
+		public Object stubKind(String kind, Optional<String> name, Optional<String> namespace) {
+			return null;
+		}
+	};
 	
-	@Autowired
-	private Tracer tracer;
+	private final Tracer tracer;
+
+	private final OpenShiftMetrics metrics = new OpenShiftMetrics();
+
+	private final TopologyChangeFeed changeFeed = new TopologyChangeFeed();
+
+	private final Map<String, Map<String, Set<String>>> touchedApps = new ConcurrentHashMap<String, Map<String, Set<String>>>();
+
+	private final EndpointResolver endpointResolver;
+
+	private final ClusterRegistry clusters;
+
+	private volatile ExecutorService fanOutExecutor;
+	private final ExecutorService ownedFanOutExecutor;
+
+	private final long watchResyncMillis;
+	private final int watchMaxNamespaces;
+	private final AtomicBoolean started = new AtomicBoolean();
+	private final AtomicBoolean closed = new AtomicBoolean();
+
+	/**
+	 * A client for the default cluster described by the {@code OPENSHIFT_*}
+	 * environment settings.
+	 */
+	public OpenShiftClient() {
+		this(builder());
+	}
+
+	protected OpenShiftClient(Builder builder) {
+		this.clusters = new ClusterRegistry(builder.cluster == null ? environmentCluster() : builder.cluster);
+		for (ClusterConfig additional : builder.additionalClusters) {
+			clusters.register(additional);
+		}
+		if (builder.coalescingWindowMillis > 0) {
+			clusters.setCoalescingWindow(builder.coalescingWindowMillis, TimeUnit.MILLISECONDS);
+		}
+		this.tracer = builder.tracer;
+		this.ownedFanOutExecutor = builder.fanOutExecutor == null ? newFanOutExecutor(builder.fanOutThreads) : null;
+		this.fanOutExecutor = builder.fanOutExecutor == null ? ownedFanOutExecutor : builder.fanOutExecutor;
+		this.endpointResolver = new EndpointResolver(this, builder.endpointRefreshMillis, TimeUnit.MILLISECONDS);
+		this.watchResyncMillis = builder.watchResyncMillis;
+		this.watchMaxNamespaces = builder.watchMaxNamespaces;
+		clusters.subscribeToWatchCaches(this::watched);
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	static ClusterConfig environmentCluster() {
+		return new ClusterConfig(DEFAULT_CLUSTER, "https://" + ENV.OPENSHIFT_HOST_PORT, ENV.OPENSHIFT_USER, ENV.OPENSHIFT_PASSWORD);
+	}
+
+	/**
+	 * Opens the watch caches the client was built with. Calling it again has
+	 * no effect.
+	 */
+	public OpenShiftClient start() {
+		if (closed.get()) {
+			throw new IllegalStateException("OpenShift client has been closed");
+		}
+		if (started.compareAndSet(false, true) && watchResyncMillis > 0) {
+			clusters.enableWatchCache(watchResyncMillis, TimeUnit.MILLISECONDS, watchMaxNamespaces);
+		}
+		return this;
+	}
+
+	public boolean isRunning() {
+		return started.get() && !closed.get();
+	}
+
+	@Override
+	public void close() {
+		if (!closed.compareAndSet(false, true)) {
+			return;
+		}
+		endpointResolver.clear();
+		clusters.disableWatchCache();
+		clusters.close();
+		if (ownedFanOutExecutor != null) {
+			ownedFanOutExecutor.shutdownNow();
+		}
+	}
+
+	public ClusterRegistry getClusters() {
+		return clusters;
+	}
+
+	public OpenShiftSession getSession() {
+		return clusters.getDefault().getSession();
+	}
+
+	public ResourceCache getResourceCache() {
+		return clusters.getDefault().getResourceCache();
+	}
+
+	public ResilientExecutor getResilientExecutor() {
+		return clusters.getDefault().getExecutor();
+	}
+
+	public RequestCoalescer getCoalescer() {
+		return clusters.getDefault().getCoalescer();
+	}
+
+	public BuildTracker getBuildTracker() {
+		return clusters.getDefault().getBuildTracker();
+	}
+
+	public EndpointResolver getEndpointResolver() {
+		return endpointResolver;
+	}
+
+	public TopologyChangeFeed getChangeFeed() {
+		return changeFeed;
+	}
+
+	public OpenShiftMetrics getMetrics() {
+		return metrics;
+	}
+
+	Tracer getTracer() {
+		return tracer;
+	}
+
+	@SuppressWarnings("deprecation")
+	private Span startSpan(String operation) {
+		return tracer == null ? NoopSpan.INSTANCE : tracer.buildSpan(operation).start();
+	}
+
+	public void enableWatchCache(long resyncPeriod, TimeUnit unit, int maxNamespaces) {
+		clusters.enableWatchCache(resyncPeriod, unit, maxNamespaces);
+	}
+
+	public void disableWatchCache() {
+		clusters.disableWatchCache();
+	}
+
+	public void setCoalescingWindow(long window, TimeUnit unit) {
+		clusters.setCoalescingWindow(window, unit);
+	}
+
+	public int saveWarmStart(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		int written = 0;
+		for (Cluster cluster : clusters.getClusters()) {
+			ResourceWatchCache cache = cluster.getWatchCache();
+			if (cache != null) {
+				written += cache.writeSnapshot(directory.resolve(cluster.getName() + SNAPSHOT_SUFFIX));
+			}
+		}
+		return written;
+	}
+
+	public int loadWarmStart(Path directory) throws IOException {
+		int loaded = 0;
+		for (Cluster cluster : clusters.getClusters()) {
+			ResourceWatchCache cache = cluster.getWatchCache();
+			Path file = directory.resolve(cluster.getName() + SNAPSHOT_SUFFIX);
+			if (cache == null) {
+				throw new IllegalStateException("The watch cache must be enabled before loading " + file);
+			}
+			if (Files.exists(file)) {
+				loaded += cache.loadSnapshot(file);
+			}
+		}
+		return loaded;
+	}
+
+	public void setFanOutExecutor(ExecutorService executor) {
+		this.fanOutExecutor = executor;
+	}
+
+	ExecutorService getFanOutExecutor() {
+		return fanOutExecutor;
+	}
+
+	private static ExecutorService newFanOutExecutor(int threads) {
+		AtomicInteger count = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "openshift-fan-out-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
 
-	@Cacheable(cacheNames = { "token" })
-	private IClient getClient() {
-		return new ClientBuilder("https://" + ENV.OPENSHIFT_HOST_PORT)
-				.withUserName(ENV.OPENSHIFT_USER)
-				.withPassword(ENV.OPENSHIFT_PASSWORD)
-				.build();
+	private Cluster cluster(String namespace) {
+		return clusters.forNamespace(namespace);
+	}
+
+	private <T> T read(String namespace, String operation, String key, Function<IClient, T> call) {
+		return cluster(namespace).read(operation, key, call);
+	}
+
+	/**
+	 * A coalesced LIST, copied for each caller since callers that share one
+	 * response would otherwise share one mutable list.
+	 */
+	private static <T> List<T> readList(Cluster cluster, String operation, String key, Function<IClient, List<T>> call) {
+		return new ArrayList<T>(cluster.read(operation, key, call));
+	}
+
+	private <T> List<T> acrossClusters(Collection<Cluster> targets, Function<Cluster, List<T>> call) {
+		if (targets.size() == 1) {
+			return call.apply(targets.iterator().next());
+		}
+		ExecutorService executor = fanOutExecutor;
+		List<Future<List<T>>> futures = new ArrayList<Future<List<T>>>();
+		for (Cluster target : targets) {
+			futures.add(executor.submit(() -> call.apply(target)));
+		}
+		List<T> result = new ArrayList<T>();
+		try {
+			for (Future<List<T>> future : futures) {
+				result.addAll(future.get());
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new OpenShiftException(e.getCause(), "Unable to query %s", targets);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "Interrupted whilst querying %s", targets);
+		} finally {
+			for (Future<List<T>> future : futures) {
+				future.cancel(true);
+			}
+		}
+		return result;
+	}
+
+	private static String key(String operation, String namespace, Object selector) {
+		return operation + "/" + namespace + (selector == null ? "" : "/" + selector);
+	}
+
+	private <T extends IResource> List<T> list(Cluster cluster, String kind, String namespace, Map<String, String> labels) {
+		ResourceWatchCache cache = cluster.getWatchCache();
+		if (cache != null && cache.isWatched(kind)) {
+			return cache.list(kind, namespace, labels);
+		}
+		return readList(cluster, "list/" + kind, key("list/" + kind, namespace, new TreeMap<String, String>(labels)),
+				client -> client.<T>list(kind, namespace, labels));
 	}
 	
-	@Cacheable(cacheNames = { "build" })
 	@SuppressWarnings("deprecation")
 	public IBuildConfig getBuildConfig(String productId, String app) {
-		Span span = tracer.buildSpan("OpenShiftClient.getBuild").start();
+		Span span = startSpan("OpenShiftClient.getBuild");
+		OpenShiftMetrics.Sample sample = metrics.start("getBuildConfig", productId + "-build");
 		try {
 			span.setBaggageItem("app", app);
-			return (IBuildConfig) getClient().get(ResourceKind.BUILD_CONFIG, app, productId + "-build");
+			IBuildConfig buildConfig = getCachedBuildConfig(app, productId + "-build");
+			sample.resource(buildConfig);
+			return buildConfig;
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 
 	@SuppressWarnings("deprecation")
 	public List<IBuildConfig> getBuildConfigs(String productId) {
-		Span span = tracer.buildSpan("OpenShiftClient.getBuildConfigs").start();
+		Span span = startSpan("OpenShiftClient.getBuildConfigs");
+		OpenShiftMetrics.Sample sample = metrics.start("getBuildConfigs", productId + "-build");
 		try {
 			Map<String, String> labels = new HashMap<String, String>();
 			labels.put("product", productId);
-			return getClient().list(ResourceKind.BUILD_CONFIG, productId + "-build", labels);
+			List<IBuildConfig> buildConfigs = readList(cluster(productId + "-build"), "list/" + ResourceKind.BUILD_CONFIG,
+					key("list/" + ResourceKind.BUILD_CONFIG, productId + "-build", labels),
+					client -> client.list(ResourceKind.BUILD_CONFIG, productId + "-build", labels));
+			buildConfigs.forEach(cluster(productId + "-build").getResourceCache()::observe);
+			sample.resources(buildConfigs);
+			return buildConfigs;
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 	
-	@SuppressWarnings("deprecation")
 	public List<IBuild> getBuilds(String productId) {
-		Span span = tracer.buildSpan("OpenShiftClient.getBuilds").start();
+		return getBuilds(new BuildQuery(productId + "-cicd"));
+	}
+
+	public List<IBuild> getBuilds(BuildQuery query) {
+		Span span = startSpan("OpenShiftClient.getBuilds");
+		OpenShiftMetrics.Sample sample = metrics.start("getBuilds", query.getNamespace());
 		try {
-			return getClient().list(ResourceKind.BUILD, productId + "-cicd");
+			List<IBuild> builds = new ArrayList<IBuild>();
+			listBuilds(query).forEachRemaining(builds::add);
+			sample.resources(builds);
+			return builds;
 		} catch (RuntimeException e) {
-			log.error("an error has occured whilst retreiving the builds", handleException(span, e));
-			return new ArrayList<IBuild>();
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
+			span.finish();
+		}
+	}
+
+	public BuildCursor listBuilds(BuildQuery query) {
+		return new BuildCursor(this, query);
+	}
+
+	public Stream<IBuild> streamBuilds(BuildQuery query) {
+		return listBuilds(query).stream();
+	}
+
+	String listBuildPage(BuildQuery query, String continueToken) {
+		Span span = startSpan("listBuildPage");
+		OpenShiftMetrics.Sample sample = metrics.start("listBuildPage", query.getNamespace());
+		try {
+			span.setBaggageItem("namespace", query.getNamespace());
+			String body = read(query.getNamespace(), "list/" + ResourceKind.BUILD, null, client -> client.<String>execute(RAW_RESPONSE, "GET", ResourceKind.BUILD, query.getNamespace(),
+					null, null, null, (JSONSerializeable) null, query.toParameters(continueToken)));
+			sample.bytes(body.length());
+			return body;
+		} catch (RuntimeException e) {
+			throw handleException(span, sample, e);
+		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
@@ -94,28 +420,80 @@ public class OpenShiftClient {
 	
 	@SuppressWarnings("deprecation")
 	public Map<String, IProject> getProjects(String productId) {
-		Span span = tracer.buildSpan("getProjects").start();
+		Span span = startSpan("getProjects");
+		OpenShiftMetrics.Sample sample = metrics.start("getProjects");
 		try {
 			Map<String, String> labels = new HashMap<String, String>();
 			labels.put("product", productId);
 			labels.put("stage", "true");
-			List<IProject> projects = getClient().list(ResourceKind.PROJECT, labels);
+			List<IProject> projects = acrossClusters(clusters.clustersForProduct(productId),
+					cluster -> list(cluster, ResourceKind.PROJECT, "", labels));
 			Map<String, IProject> result = new HashMap<String, IProject>();
 			for (IProject project : projects) {
 				log.debug("project - " + project.getName());
 				result.put(project.getName(), project);
 			}
+			sample.resources(projects);
 			return result;
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
+		} finally {
+			sample.stop();
+			span.finish();
+		}
+	}
+
+	public ProjectCatalog getProjects(Collection<String> productIds) {
+		Span span = startSpan("getProjectCatalog");
+		OpenShiftMetrics.Sample sample = metrics.start("getProjectCatalog");
+		try {
+			Map<String, Map<String, IProject>> projects = new HashMap<String, Map<String, IProject>>();
+			Map<String, Boolean> testPassed = new HashMap<String, Boolean>();
+			if (productIds.isEmpty()) {
+				return new ProjectCatalog(projects, testPassed);
+			}
+			for (String productId : productIds) {
+				projects.put(productId, new HashMap<String, IProject>());
+			}
+			Map<Cluster, Set<String>> byCluster = new LinkedHashMap<Cluster, Set<String>>();
+			for (String productId : productIds) {
+				for (Cluster cluster : clusters.clustersForProduct(productId)) {
+					byCluster.computeIfAbsent(cluster, key -> new TreeSet<String>()).add(productId);
+				}
+			}
+			List<IProject> stages = acrossClusters(byCluster.keySet(), cluster -> listStageProjects(cluster, byCluster.get(cluster)));
+			for (IProject project : stages) {
+				Map<String, String> labels = project.getLabels();
+				Map<String, IProject> product = projects.get(labels.get("product"));
+				if (product != null) {
+					product.put(project.getName(), project);
+					testPassed.put(project.getName(), Boolean.parseBoolean(labels.get("test-passed")));
+				}
+			}
+			sample.resources(stages);
+			return new ProjectCatalog(projects, testPassed);
+		} catch (RuntimeException e) {
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 
+	private List<IProject> listStageProjects(Cluster cluster, Set<String> productIds) {
+		ResourceWatchCache cache = cluster.getWatchCache();
+		if (cache != null && cache.isWatched(ResourceKind.PROJECT)) {
+			return cache.list(ResourceKind.PROJECT, "", Collections.singletonMap("stage", "true"));
+		}
+		String selector = "stage=true,product in (" + String.join(",", productIds) + ")";
+		return readList(cluster, "list/" + ResourceKind.PROJECT, key("list/" + ResourceKind.PROJECT, "", selector),
+				client -> client.<IProject>list(ResourceKind.PROJECT, "", selector));
+	}
+
 	@SuppressWarnings("deprecation")
 	public boolean isEnvironmentTestPassed(IProject project) {
-		Span span = tracer.buildSpan("isEnvironmentTestPassed").start();
+		Span span = startSpan("isEnvironmentTestPassed");
+		OpenShiftMetrics.Sample sample = metrics.start("isEnvironmentTestPassed", project.getName());
 		try {			
 			span.setBaggageItem("namespace", project.getName());
 			Map<String, String> labels = project.getLabels();
@@ -124,115 +502,470 @@ public class OpenShiftClient {
 			log.debug("testPassed - " + project.getName() + " - " + testPassed);
 			return Boolean.parseBoolean(testPassed);
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 	
 	@SuppressWarnings("deprecation")
 	public Map<String, IDeploymentConfig> getDeploymentConfigs(String productId, String namespace) {
-		Span span = tracer.buildSpan("getDeploymentConfigs").start();
+		Span span = startSpan("getDeploymentConfigs");
+		OpenShiftMetrics.Sample sample = metrics.start("getDeploymentConfigs", namespace);
 		try {
 			Map<String, String> labels = new HashMap<String, String>();
 			labels.put("product", productId);
 			span.setBaggageItem("namespace", namespace);
-			List<IDeploymentConfig> dcs = getClient().list(ResourceKind.DEPLOYMENT_CONFIG, namespace, labels);
+			List<IDeploymentConfig> dcs = list(cluster(namespace), ResourceKind.DEPLOYMENT_CONFIG, namespace, labels);
 			Map<String, IDeploymentConfig> result = new HashMap<String, IDeploymentConfig>();
 			for (IDeploymentConfig dc : dcs) {
 				result.put(dc.getName(), dc);
 			}
+			sample.resources(dcs);
+			return result;
+		} catch (RuntimeException e) {
+			throw handleException(span, sample, e);
+		} finally {
+			sample.stop();
+			span.finish();
+		}
+	}
+
+	public Map<String, AppTopology> getDeploymentConfigSummaries(String productId, String namespace) {
+		return getDeploymentConfigSummaries(productId, namespace, null);
+	}
+
+	/**
+	 * The DeploymentConfig fields of each app's {@link AppTopology}, keyed by
+	 * DeploymentConfig name; the clusterIP, image sha and git URI are not read.
+	 * The LIST body is stream parsed without building the restclient
+	 * resources, and the optional field selector is applied by the API server.
+	 */
+	@SuppressWarnings("deprecation")
+	public Map<String, AppTopology> getDeploymentConfigSummaries(String productId, String namespace, String fieldSelector) {
+		Span span = startSpan("getDeploymentConfigSummaries");
+		OpenShiftMetrics.Sample sample = metrics.start("getDeploymentConfigSummaries", namespace);
+		try {
+			span.setBaggageItem("namespace", namespace);
+			Map<String, AppTopology> result = new HashMap<String, AppTopology>();
+			List<IDeploymentConfig> cached = cachedList(ResourceKind.DEPLOYMENT_CONFIG, productId, namespace, fieldSelector);
+			if (cached != null) {
+				for (IDeploymentConfig dc : cached) {
+					result.put(dc.getName(), summary(namespace, dc.getName(), new DeploymentConfigParser(dc)));
+				}
+			} else {
+				for (JSONObject item : leanList(ResourceKind.DEPLOYMENT_CONFIG, productId, namespace, fieldSelector,
+						DeploymentConfigParser.LIST_EXTRACTOR, sample)) {
+					result.put(name(item), summary(namespace, name(item), new DeploymentConfigParser(item)));
+				}
+			}
+			sample.items(result.size());
 			return result;
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 
+	private static AppTopology summary(String namespace, String name, DeploymentConfigParser parser) {
+		String app = safely(parser::getAppName);
+		return new AppTopology(app == null ? name : app, namespace, safely(parser::getVersion), safely(parser::getDeployedDate),
+				safely(parser::getReadinessPort), safely(parser::getReadinessPath), null, null, null);
+	}
+
+	/**
+	 * Service name to clusterIP, read from a stream parsed LIST without
+	 * building the restclient resources.
+	 */
+	@SuppressWarnings("deprecation")
+	public Map<String, String> getServiceClusterIPs(String productId, String namespace) {
+		Span span = startSpan("getServiceClusterIPs");
+		OpenShiftMetrics.Sample sample = metrics.start("getServiceClusterIPs", namespace);
+		try {
+			span.setBaggageItem("namespace", namespace);
+			Map<String, String> result = new HashMap<String, String>();
+			List<IService> cached = cachedList(ResourceKind.SERVICE, productId, namespace, null);
+			if (cached != null) {
+				for (IService service : cached) {
+					result.put(service.getName(), new ServiceParser(service).clusterIP());
+				}
+			} else {
+				for (JSONObject item : leanList(ResourceKind.SERVICE, productId, namespace, null, ServiceParser.LIST_EXTRACTOR, sample)) {
+					result.put(name(item), new ServiceParser(item).clusterIP());
+				}
+			}
+			sample.items(result.size());
+			return result;
+		} catch (RuntimeException e) {
+			throw handleException(span, sample, e);
+		} finally {
+			sample.stop();
+			span.finish();
+		}
+	}
+
+	private <T extends IResource> List<T> cachedList(String kind, String productId, String namespace, String fieldSelector) {
+		ResourceWatchCache cache = cluster(namespace).getWatchCache();
+		if (fieldSelector != null || cache == null || !cache.isWatched(kind)) {
+			return null;
+		}
+		return cache.list(kind, namespace, Collections.singletonMap("product", productId));
+	}
+
+	private List<JSONObject> leanList(String kind, String productId, String namespace, String fieldSelector, JsonPathExtractor extractor,
+			OpenShiftMetrics.Sample sample) {
+		Map<String, String> parameters = new HashMap<String, String>();
+		parameters.put("labelSelector", "product=" + productId);
+		if (fieldSelector != null) {
+			parameters.put("fieldSelector", fieldSelector);
+		}
+		String body = read(namespace, "lean/" + kind, key("lean/" + kind, namespace, new TreeMap<String, String>(parameters)),
+				client -> client.<String>execute(RAW_RESPONSE, "GET", kind, namespace, null, null, null, (JSONSerializeable) null, parameters));
+		sample.bytes(body.length());
+		return extractor.extractItems(body);
+	}
+
+	private static String name(JSONObject item) {
+		JSONObject metadata = (JSONObject) item.get("metadata");
+		return metadata == null ? null : (String) metadata.get("name");
+	}
+
 	@SuppressWarnings("deprecation")
 	public Map<String, IService> getServices(String productId, String namespace) {
-		Span span = tracer.buildSpan("getServices").start();
+		Span span = startSpan("getServices");
+		OpenShiftMetrics.Sample sample = metrics.start("getServices", namespace);
 		try {
 			Map<String, String> labels = new HashMap<String, String>();
 			labels.put("product", productId);
 			span.setBaggageItem("namespace", namespace);
-			List<IService> services = getClient().list(ResourceKind.SERVICE, namespace, labels);
+			List<IService> services = list(cluster(namespace), ResourceKind.SERVICE, namespace, labels);
 			Map<String, IService> result = new HashMap<String, IService>();
 			for (IService service : services) {
 				result.put(service.getName(), service);
 			}
+			sample.resources(services);
 			return result;
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 	
 	@SuppressWarnings("deprecation")
 	public Map<String, IImageStream> getImageStreams(String productId, String namespace) {
-		Span span = tracer.buildSpan("getImageStreams").start();
+		Span span = startSpan("getImageStreams");
+		OpenShiftMetrics.Sample sample = metrics.start("getImageStreams", namespace);
 		try {
 			Map<String, String> labels = new HashMap<String, String>();
 			labels.put("product", productId);
-			List<IImageStream> images = getClient().list(ResourceKind.IMAGE_STREAM, namespace, labels);
+			List<IImageStream> images = list(cluster(namespace), ResourceKind.IMAGE_STREAM, namespace, labels);
 			Map<String, IImageStream> result = new HashMap<String, IImageStream>();
 			for (IImageStream image : images) {
 				result.put(image.getName(), image);
 			}
+			sample.resources(images);
 			return result;
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 	
 	@SuppressWarnings("deprecation")
 	public Map<String, IImageStream> getCICDImageStreams(String productId) {
-		Span span = tracer.buildSpan("getCICDImageStreams").start();
+		Span span = startSpan("getCICDImageStreams");
+		OpenShiftMetrics.Sample sample = metrics.start("getCICDImageStreams", ENV.cicd(productId));
 		try {
-			List<IImageStream> images = getClient().list(ResourceKind.IMAGE_STREAM, ENV.cicd(productId));
+			List<IImageStream> images = read(ENV.cicd(productId), "list/" + ResourceKind.IMAGE_STREAM,
+					key("list/" + ResourceKind.IMAGE_STREAM, ENV.cicd(productId), null),
+					client -> client.list(ResourceKind.IMAGE_STREAM, ENV.cicd(productId)));
 			Map<String, IImageStream> result = new HashMap<String, IImageStream>();
 			for (IImageStream image : images) {
 				result.put(image.getName(), image);
 			}
+			sample.resources(images);
 			return result;
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 	
+	public EnvironmentSnapshot getEnvironmentSnapshot(String productId) {
+		return getEnvironmentSnapshot(productId, DEFAULT_SNAPSHOT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+	}
+
 	@SuppressWarnings("deprecation")
-	public IRoute getRoute(String productId) {
-		Span span = tracer.buildSpan("getRoute").start();
+	public EnvironmentSnapshot getEnvironmentSnapshot(String productId, long timeout, TimeUnit unit) {
+		Span span = startSpan("getEnvironmentSnapshot");
+		OpenShiftMetrics.Sample sample = metrics.start("getEnvironmentSnapshot");
+		try {
+			long start = System.nanoTime();
+			long deadline = start + unit.toNanos(timeout);
+			ExecutorService executor = fanOutExecutor;
+			Map<String, IProject> projects = getProjects(productId);
+			Map<String, Future<Map<String, IDeploymentConfig>>> dcs = new HashMap<String, Future<Map<String, IDeploymentConfig>>>();
+			Map<String, Future<Map<String, IService>>> services = new HashMap<String, Future<Map<String, IService>>>();
+			Map<String, Future<Map<String, IImageStream>>> images = new HashMap<String, Future<Map<String, IImageStream>>>();
+			for (String namespace : projects.keySet()) {
+				dcs.put(namespace, executor.submit(() -> getDeploymentConfigs(productId, namespace)));
+				services.put(namespace, executor.submit(() -> getServices(productId, namespace)));
+				images.put(namespace, executor.submit(() -> getImageStreams(productId, namespace)));
+			}
+			Map<String, Throwable> failures = new HashMap<String, Throwable>();
+			Map<String, NamespaceSnapshot> namespaces = new HashMap<String, NamespaceSnapshot>();
+			for (IProject project : projects.values()) {
+				String namespace = project.getName();
+				namespaces.put(namespace, new NamespaceSnapshot(project,
+						await(dcs.get(namespace), deadline, failures, namespace + "/" + ResourceKind.DEPLOYMENT_CONFIG),
+						await(services.get(namespace), deadline, failures, namespace + "/" + ResourceKind.SERVICE),
+						await(images.get(namespace), deadline, failures, namespace + "/" + ResourceKind.IMAGE_STREAM)));
+			}
+			if (!failures.isEmpty()) {
+				span.setTag("partial", true);
+				log.warn("environment snapshot for " + productId + " is missing " + failures.keySet());
+			}
+			return new EnvironmentSnapshot(productId, namespaces, failures,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		} catch (RuntimeException e) {
+			throw handleException(span, sample, e);
+		} finally {
+			sample.stop();
+			span.finish();
+		}
+	}
+
+	public ProductTopology getProductTopology(String productId) {
+		return productTopology(productId, getEnvironmentSnapshot(productId));
+	}
+
+	/**
+	 * Evaluates what can be promoted between the given environments, listed in
+	 * promotion order, from a single environment snapshot.
+	 */
+	public PromotionReadiness getPromotionReadiness(String productId, List<String> environments) {
+		EnvironmentSnapshot snapshot = getEnvironmentSnapshot(productId);
+		Set<String> testPassed = new HashSet<String>();
+		for (NamespaceSnapshot namespaceSnapshot : snapshot.getNamespaces().values()) {
+			IProject project = namespaceSnapshot.getProject();
+			if (project != null && Boolean.parseBoolean(project.getLabels().get("test-passed"))) {
+				testPassed.add(namespaceSnapshot.getNamespace());
+			}
+		}
+		return PromotionReadiness.evaluate(productTopology(productId, snapshot), environments, testPassed);
+	}
+
+	private ProductTopology productTopology(String productId, EnvironmentSnapshot snapshot) {
+		Set<String> failures = new HashSet<String>(snapshot.getFailures().keySet());
+		Map<String, String> gitUris = new HashMap<String, String>();
+		try {
+			for (IBuildConfig buildConfig : getBuildConfigs(productId)) {
+				gitUris.put(buildConfig.getName(), safely(() -> new BuildConfigParser(buildConfig).getGitRepository()));
+			}
+		} catch (RuntimeException e) {
+			log.warn("topology for " + productId + " is missing the git repositories", e);
+			failures.add(productId + "-build/" + ResourceKind.BUILD_CONFIG);
+		}
+		Map<String, Map<String, AppTopology>> namespaces = new HashMap<String, Map<String, AppTopology>>();
+		for (NamespaceSnapshot namespaceSnapshot : snapshot.getNamespaces().values()) {
+			String namespace = namespaceSnapshot.getNamespace();
+			Map<String, AppTopology> apps = new HashMap<String, AppTopology>();
+			for (IDeploymentConfig dc : namespaceSnapshot.getDeploymentConfigs().values()) {
+				DeploymentConfigParser parser = new DeploymentConfigParser(dc);
+				String app = safely(parser::getAppName);
+				if (app == null) {
+					continue;
+				}
+				String version = DeploymentConfigParser.versionOf(dc).getVersion();
+				IService service = namespaceSnapshot.getServices().get(dc.getName());
+				if (service == null) {
+					service = namespaceSnapshot.getServices().get(app);
+				}
+				IService appService = service;
+				IImageStream imageStream = namespaceSnapshot.getImageStreams().get(app);
+				apps.put(app, new AppTopology(app, namespace, version,
+						safely(parser::getDeployedDate),
+						safely(parser::getReadinessPort),
+						safely(parser::getReadinessPath),
+						appService == null ? null : safely(() -> new ServiceParser(appService).clusterIP()),
+						imageStream == null || version == null ? null
+								: safely(() -> ImageStreamParser.of(imageStream).findShaByTag(version).orElse(null)),
+						gitUris.get(app)));
+			}
+			namespaces.put(namespace, apps);
+		}
+		return new ProductTopology(productId, namespaces, failures);
+	}
+
+	/**
+	 * Reads the product's topology and publishes what changed since the last
+	 * refresh to the {@link #getChangeFeed() change feed} subscribers. Once the
+	 * product has been published and its deployment configs, services and image
+	 * streams are served by watch caches, only the apps touched by watch events
+	 * since the last refresh are compared, and nothing is read when there were
+	 * none.
+	 */
+	public List<TopologyChange> refreshProductTopology(String productId) {
+		Map<String, Set<String>> pending = touchedApps.get(productId);
+		if (pending == null || !changeFeed.isPublished(productId) || !isTopologyWatched(productId)) {
+			touchedApps.put(productId, new ConcurrentHashMap<String, Set<String>>());
+			return changeFeed.publish(getProductTopology(productId));
+		}
+		Map<String, Set<String>> touched = new HashMap<String, Set<String>>();
+		for (String namespace : new ArrayList<String>(pending.keySet())) {
+			Set<String> apps = pending.remove(namespace);
+			if (apps != null) {
+				touched.put(namespace, apps);
+			}
+		}
+		if (touched.isEmpty()) {
+			return Collections.emptyList();
+		}
+		try {
+			ProductTopology topology = getProductTopology(productId);
+			for (Map.Entry<String, Set<String>> entry : touched.entrySet()) {
+				if (!topology.isComplete(entry.getKey())) {
+					touch(pending, entry.getKey(), entry.getValue());
+				}
+			}
+			return changeFeed.publish(topology, touched);
+		} catch (RuntimeException e) {
+			for (Map.Entry<String, Set<String>> entry : touched.entrySet()) {
+				touch(pending, entry.getKey(), entry.getValue());
+			}
+			throw e;
+		}
+	}
+
+	private boolean isTopologyWatched(String productId) {
+		for (Cluster cluster : clusters.clustersForProduct(productId)) {
+			ResourceWatchCache cache = cluster.getWatchCache();
+			if (cache == null || !cache.isWatched(ResourceKind.DEPLOYMENT_CONFIG) || !cache.isWatched(ResourceKind.SERVICE)
+					|| !cache.isWatched(ResourceKind.IMAGE_STREAM)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void watched(IResource resource) {
+		String productId = resource.getLabels().get("product");
+		Map<String, Set<String>> pending = productId == null ? null : touchedApps.get(productId);
+		if (pending == null) {
+			return;
+		}
+		Set<String> apps = new HashSet<String>();
+		apps.add(resource.getName());
+		if (resource instanceof IDeploymentConfig) {
+			String app = safely(() -> new DeploymentConfigParser((IDeploymentConfig) resource).getAppName());
+			if (app != null) {
+				apps.add(app);
+			}
+		}
+		touch(pending, resource.getNamespaceName(), apps);
+	}
+
+	private static void touch(Map<String, Set<String>> pending, String namespace, Set<String> apps) {
+		pending.compute(namespace, (key, existing) -> {
+			Set<String> merged = existing == null ? new HashSet<String>() : existing;
+			merged.addAll(apps);
+			return merged;
+		});
+	}
+
+	private static String safely(Supplier<String> field) {
+		try {
+			return field.get();
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	private <T> T await(Future<T> future, long deadline, Map<String, Throwable> failures, String key) {
+		try {
+			return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (ExecutionException e) {
+			failures.put(key, e.getCause());
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			failures.put(key, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+			failures.put(key, e);
+		}
+		return null;
+	}
+
+	@SuppressWarnings("deprecation")
+	public Map<String, IRoute> getRoutes(String productId, String namespace) {
+		Span span = startSpan("getRoutes");
+		OpenShiftMetrics.Sample sample = metrics.start("getRoutes", namespace);
 		try {
 			Map<String, String> labels = new HashMap<String, String>();
 			labels.put("product", productId);
-			return (IRoute) getClient().list(ResourceKind.ROUTE, productId + "-prod", labels).get(0);
+			span.setBaggageItem("namespace", namespace);
+			List<IRoute> routes = list(cluster(namespace), ResourceKind.ROUTE, namespace, labels);
+			Map<String, IRoute> result = new HashMap<String, IRoute>();
+			for (IRoute route : routes) {
+				result.put(route.getName(), route);
+			}
+			sample.resources(routes);
+			return result;
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 
 	@SuppressWarnings("deprecation")
-	public void executeBuildPipeline(String productId, String productRepo, String app, String repoUrl) {
-		Span span = tracer.buildSpan("executeBuildPipeline").start();
+	public IRoute getRoute(String productId) {
+		Span span = startSpan("getRoute");
+		OpenShiftMetrics.Sample sample = metrics.start("getRoute", productId + "-prod");
+		try {
+			IRoute route = endpointResolver.route(productId, productId + "-prod");
+			if (route == null) {
+				throw new OpenShiftException("Cannot find a route for %s in %s", productId, productId + "-prod");
+			}
+			sample.resource(route);
+			return route;
+		} catch (RuntimeException e) {
+			throw handleException(span, sample, e);
+		} finally {
+			sample.stop();
+			span.finish();
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	public PipelineExecution executeBuildPipeline(String productId, String productRepo, String app, String repoUrl) {
+		Span span = startSpan("executeBuildPipeline");
+		OpenShiftMetrics.Sample sample = metrics.start("executeBuildPipeline", ENV.cicd(productId));
 		try {
 			span.setBaggageItem("app",app);
-			Map<String, String> parameters = getAppParameters(productId, productRepo, app, repoUrl);
-			executePipeline((IBuildConfig) getClient().get(ResourceKind.BUILD_CONFIG, "build-" + app, ENV.cicd(productId)), parameters);
+			return executePipeline(buildPipelineTrigger(productId, productRepo, app, repoUrl));
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
+
+	PipelineTrigger buildPipelineTrigger(String productId, String productRepo, String app, String repoUrl) {
+		return new PipelineTrigger(ENV.cicd(productId), "build-" + app, getAppParameters(productId, productRepo, app, repoUrl));
+	}
 	
 	private Map<String, String> getAppParameters(String productId, String productRepo, String app, String repoUrl) {
 		Map<String, String> parameters = new HashMap<String, String>();
@@ -244,19 +977,24 @@ public class OpenShiftClient {
 	}
 	
 	@SuppressWarnings("deprecation")
-	public void executeBuildPipeline(String productId, String productRepo, String app) {
-		Span span = tracer.buildSpan("executeBuildPipeline").start();
+	public PipelineExecution executeBuildPipeline(String productId, String productRepo, String app) {
+		Span span = startSpan("executeBuildPipeline");
+		OpenShiftMetrics.Sample sample = metrics.start("executeBuildPipeline", ENV.cicd(productId));
 		try {
 			span.setBaggageItem("app",app);
-			Map<String, String> parameters = getAppParameters(productId, productRepo, app);
-			executePipeline((IBuildConfig) getClient().get(ResourceKind.BUILD_CONFIG, "build-" + app, ENV.cicd(productId)), parameters);
+			return executePipeline(buildPipelineTrigger(productId, productRepo, app));
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 
+	PipelineTrigger buildPipelineTrigger(String productId, String productRepo, String app) {
+		return new PipelineTrigger(ENV.cicd(productId), "build-" + app, getAppParameters(productId, productRepo, app));
+	}
+
 	private Map<String, String> getAppParameters(String productId, String productRepo, String app) {
 		Map<String, String> parameters = new HashMap<String, String>();
 		parameters.put("REPO", repoUrl(productId, app));
@@ -267,92 +1005,120 @@ public class OpenShiftClient {
 	}
 	
 	@SuppressWarnings("deprecation")
-	public void executeBuildAllPipeline(String productId, String productRepo) {
-		Span span = tracer.buildSpan("executeBuildAllPipeline").start();
+	public PipelineExecution executeBuildAllPipeline(String productId, String productRepo) {
+		Span span = startSpan("executeBuildAllPipeline");
+		OpenShiftMetrics.Sample sample = metrics.start("executeBuildAllPipeline", ENV.cicd(productId));
 		try {
-			Map<String, String> parameters = new HashMap<String, String>();
-			parameters.put("REPO", productRepo);
-			parameters.put("PRODUCT", productId);
-			executePipeline((IBuildConfig) getClient().get(ResourceKind.BUILD_CONFIG, "build-all", ENV.cicd(productId)), parameters);
+			return executePipeline(buildAllPipelineTrigger(productId, productRepo));
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
+
+	PipelineTrigger buildAllPipelineTrigger(String productId, String productRepo) {
+		Map<String, String> parameters = new HashMap<String, String>();
+		parameters.put("REPO", productRepo);
+		parameters.put("PRODUCT", productId);
+		return new PipelineTrigger(ENV.cicd(productId), "build-all", parameters);
+	}
 	
 	@SuppressWarnings("deprecation")
-	public void executeReleasePipeline(String productId, String productRepo, String app) {
-		Span span = tracer.buildSpan("executeReleasePipeline").start();
+	public PipelineExecution executeReleasePipeline(String productId, String productRepo, String app) {
+		Span span = startSpan("executeReleasePipeline");
+		OpenShiftMetrics.Sample sample = metrics.start("executeReleasePipeline", ENV.cicd(productId));
 		try {
 			span.setBaggageItem("app",app);
-			Map<String, String> parameters = getAppParameters(productId, productRepo, app);
-			executePipeline((IBuildConfig) getClient().get(ResourceKind.BUILD_CONFIG, "release-" + app, ENV.cicd(productId)), parameters);
+			return executePipeline(releasePipelineTrigger(productId, productRepo, app));
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
+
+	PipelineTrigger releasePipelineTrigger(String productId, String productRepo, String app) {
+		return new PipelineTrigger(ENV.cicd(productId), "release-" + app, getAppParameters(productId, productRepo, app));
+	}
 	
 	@SuppressWarnings("deprecation")
-	public void executeReleaseAllPipeline(String productId, String productRepo) {
-		Span span = tracer.buildSpan("executeReleaseAllPipeline").start();
+	public PipelineExecution executeReleaseAllPipeline(String productId, String productRepo) {
+		Span span = startSpan("executeReleaseAllPipeline");
+		OpenShiftMetrics.Sample sample = metrics.start("executeReleaseAllPipeline", ENV.cicd(productId));
 		try {
-			Map<String, String> parameters = new HashMap<String, String>();
-			parameters.put("REPO", productRepo);
-			parameters.put("PRODUCT", productId);
-			executePipeline((IBuildConfig) getClient().get(ResourceKind.BUILD_CONFIG, "release-all", ENV.cicd(productId)), parameters);
+			return executePipeline(releaseAllPipelineTrigger(productId, productRepo));
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
+
+	PipelineTrigger releaseAllPipelineTrigger(String productId, String productRepo) {
+		Map<String, String> parameters = new HashMap<String, String>();
+		parameters.put("REPO", productRepo);
+		parameters.put("PRODUCT", productId);
+		return new PipelineTrigger(ENV.cicd(productId), "release-all", parameters);
+	}
 	
 	@SuppressWarnings("deprecation")
-	public void executePromotePipeline(String productId, String productRepo, String env, String app, String next) {
-		Span span = tracer.buildSpan("executePromotePipeline").start();
+	public PipelineExecution executePromotePipeline(String productId, String productRepo, String env, String app, String next) {
+		Span span = startSpan("executePromotePipeline");
+		OpenShiftMetrics.Sample sample = metrics.start("executePromotePipeline", ENV.cicd(productId));
 		try {
 			span.setBaggageItem("env", env);
 			span.setBaggageItem("app", app);
-			Map<String, String> parameters = getAppParameters(productId, productRepo, app);
-			parameters.put("PROJECT", ENV.namespace(productId, env));
-			String pipeline;
-			if (next.equals("prod")) {
-				pipeline = "promote-to-prod-" + app;
-			} else {
-				pipeline = "promote-" + env + "-" + app;
-			}
-			executePipeline(getClient().get(ResourceKind.BUILD_CONFIG, pipeline, ENV.cicd(productId)), parameters);
+			return executePipeline(promotePipelineTrigger(productId, productRepo, env, app, next));
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 
+	PipelineTrigger promotePipelineTrigger(String productId, String productRepo, String env, String app, String next) {
+		Map<String, String> parameters = getAppParameters(productId, productRepo, app);
+		parameters.put("PROJECT", ENV.namespace(productId, env));
+		String pipeline;
+		if (next.equals("prod")) {
+			pipeline = "promote-to-prod-" + app;
+		} else {
+			pipeline = "promote-" + env + "-" + app;
+		}
+		return new PipelineTrigger(ENV.cicd(productId), pipeline, parameters);
+	}
+
 	@SuppressWarnings("deprecation")
-	public void executePromoteAllPipeline(String productId, String productRepo, String env, String next) {
-		Span span = tracer.buildSpan("executePromoteAllPipeline").start();
+	public PipelineExecution executePromoteAllPipeline(String productId, String productRepo, String env, String next) {
+		Span span = startSpan("executePromoteAllPipeline");
+		OpenShiftMetrics.Sample sample = metrics.start("executePromoteAllPipeline", ENV.cicd(productId));
 		try {
-			Map<String, String> parameters = getEnvParameters(productId, productRepo, env);
 			span.setBaggageItem("env", env);
-			String name;
-			if (next.equals("prod")) {
-				name = "promote-all-to-prod";
-			} else {
-				name = "promote-all-" + env;
-			}
-			IBuildConfig pipeline = getClient().get(ResourceKind.BUILD_CONFIG, name, ENV.cicd(productId));
-			executePipeline(pipeline, parameters);
+			return executePipeline(promoteAllPipelineTrigger(productId, productRepo, env, next));
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 
+	PipelineTrigger promoteAllPipelineTrigger(String productId, String productRepo, String env, String next) {
+		Map<String, String> parameters = getEnvParameters(productId, productRepo, env);
+		String name;
+		if (next.equals("prod")) {
+			name = "promote-all-to-prod";
+		} else {
+			name = "promote-all-" + env;
+		}
+		return new PipelineTrigger(ENV.cicd(productId), name, parameters);
+	}
+
 	private Map<String, String> getEnvParameters(String productId, String productRepo, String env) {
 		Map<String, String> parameters = new HashMap<String, String>();
 		parameters.put("REPO", productRepo);
@@ -362,53 +1128,99 @@ public class OpenShiftClient {
 	}
 	
 	@SuppressWarnings("deprecation")
-	public void executeTestPipeline(String productId, String productRepo, String env) {
-		Span span = tracer.buildSpan("executeTestPipeline").start();
+	public PipelineExecution executeTestPipeline(String productId, String productRepo, String env) {
+		Span span = startSpan("executeTestPipeline");
+		OpenShiftMetrics.Sample sample = metrics.start("executeTestPipeline", ENV.cicd(productId));
 		try {
-			IBuildConfig testPipeline = getTestBuildConfig(productId, env);
-			Map<String, String> parameters = getEnvParameters(productId, productRepo, env);
-			String gitRepository = new BuildConfigParser(testPipeline).getGitRepository();
-			parameters.put("ENV", env);
-			parameters.put("REPO",  gitRepository);
 			span.setBaggageItem("env", env);
-			executePipeline(getTestWrapperBuildConfig(productId, env), parameters);
+			PipelineTrigger trigger = testPipelineTrigger(productId, productRepo, env);
+			IBuild build = triggerPipeline(getTestWrapperBuildConfig(productId, env), trigger.getParameters());
+			return track(trigger.getPipeline(), build);
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
 
-	@Cacheable(cacheNames = { "test" })
+	PipelineTrigger testPipelineTrigger(String productId, String productRepo, String env) {
+		IBuildConfig testPipeline = getTestBuildConfig(productId, env);
+		Map<String, String> parameters = getEnvParameters(productId, productRepo, env);
+		String gitRepository = new BuildConfigParser(testPipeline).getGitRepository();
+		parameters.put("ENV", env);
+		parameters.put("REPO",  gitRepository);
+		return new PipelineTrigger(ENV.cicd(productId), testWrapperPipeline(env), parameters);
+	}
+
+	private String testWrapperPipeline(String env) {
+		return env.equals("blue") || env.equals("green") ? "qa-prod" : "qa-" + env;
+	}
+
 	public IBuildConfig getTestWrapperBuildConfig(String productId, String env) {
-		String pipeline = env.equals("blue") || env.equals("green") ? "qa-prod" : "qa-" + env;
-		IBuildConfig testPipeline = (IBuildConfig) getClient().get(ResourceKind.BUILD_CONFIG, pipeline, ENV.cicd(productId));
-		return testPipeline;
+		return getCachedBuildConfig(testWrapperPipeline(env), ENV.cicd(productId));
 	}
 
-	@Cacheable(cacheNames = { "test" })
 	public IBuildConfig getTestBuildConfig(String productId, String env) {
 		String pipeline = env.equals("blue") || env.equals("green") ? "qa-prod-impl" : "qa-" + env + "-impl";
-		IBuildConfig testPipeline = (IBuildConfig) getClient().get(ResourceKind.BUILD_CONFIG, pipeline, ENV.cicd(productId));
-		return testPipeline;
+		return getCachedBuildConfig(pipeline, ENV.cicd(productId));
+	}
+
+	private IBuildConfig getCachedBuildConfig(String name, String namespace) {
+		return cluster(namespace).getResourceCache().get(ResourceKind.BUILD_CONFIG, namespace, name,
+				() -> fetchBuildConfig(name, namespace));
+	}
+
+	private IBuildConfig fetchBuildConfig(String name, String namespace) {
+		return read(namespace, "get/" + ResourceKind.BUILD_CONFIG, key("get/" + ResourceKind.BUILD_CONFIG, namespace, name),
+				client -> (IBuildConfig) client.get(ResourceKind.BUILD_CONFIG, name, namespace));
 	}
 	
 	@SuppressWarnings("deprecation")
-	public void executePromoteToLivePipeline(String productId) {
-		Span span = tracer.buildSpan("executePromoteToLivePipeline").start();
+	public PipelineExecution executePromoteToLivePipeline(String productId) {
+		Span span = startSpan("executePromoteToLivePipeline");
+		OpenShiftMetrics.Sample sample = metrics.start("executePromoteToLivePipeline", ENV.cicd(productId));
 		try {
-			Map<String, String> parameters = new HashMap<String, String>();
-			parameters.put("PRODUCT", productId);
-			executePipeline((IBuildConfig) getClient().get(ResourceKind.BUILD_CONFIG, "promote-to-live", ENV.cicd(productId)), parameters);
+			return executePipeline(promoteToLivePipelineTrigger(productId));
 		} catch (RuntimeException e) {
-			throw handleException(span, e);
+			throw handleException(span, sample, e);
 		} finally {
+			sample.stop();
 			span.finish();
 		}
 	}
+
+	PipelineTrigger promoteToLivePipelineTrigger(String productId) {
+		Map<String, String> parameters = new HashMap<String, String>();
+		parameters.put("PRODUCT", productId);
+		return new PipelineTrigger(ENV.cicd(productId), "promote-to-live", parameters);
+	}
+
+	private PipelineExecution executePipeline(PipelineTrigger trigger) {
+		IBuildConfig pipeline = fetchBuildConfig(trigger.getPipeline(), trigger.getNamespace());
+		return track(trigger.getPipeline(), triggerPipeline(pipeline, trigger.getParameters()));
+	}
+
+	PipelineExecution track(String pipeline, IBuild build) {
+		if (build == null) {
+			throw new OpenShiftException("Triggering pipeline %s did not start a build", pipeline);
+		}
+		return cluster(build.getNamespaceName()).getBuildTracker().track(pipeline, build);
+	}
+
+	IResourceFactory resourceFactory(String namespace) {
+		return cluster(namespace).getSession().getClient().getResourceFactory();
+	}
+
+	List<IBuildConfig> listPipelines(String namespace) {
+		List<IBuildConfig> pipelines = readList(cluster(namespace), "list/" + ResourceKind.BUILD_CONFIG,
+				key("list/" + ResourceKind.BUILD_CONFIG, namespace, null), client -> client.<IBuildConfig>list(ResourceKind.BUILD_CONFIG, namespace));
+		pipelines.forEach(cluster(namespace).getResourceCache()::observe);
+		return pipelines;
+	}
 	
-	private void executePipeline(IBuildConfig pipeline, Map<String, String> parameters) {
-		pipeline.accept(new CapabilityVisitor<IBuildTriggerable, IBuild>() {
+	IBuild triggerPipeline(IBuildConfig pipeline, Map<String, String> parameters) {
+		return cluster(pipeline.getNamespaceName()).write("trigger/" + ResourceKind.BUILD_CONFIG, client -> pipeline.accept(new CapabilityVisitor<IBuildTriggerable, IBuild>() {
             @Override
             public IBuild visit(IBuildTriggerable capability) {
             	for (String parameter : parameters.keySet()) {
@@ -416,10 +1228,11 @@ public class OpenShiftClient {
             	}
                 return capability.trigger();
             }
-        }, null);
+        }, null));
 	}
 	
-	private RuntimeException handleException(Span span, RuntimeException e) {
+	private RuntimeException handleException(Span span, OpenShiftMetrics.Sample sample, RuntimeException e) {
+		sample.error(e);
 		Tags.ERROR.set(span, true);
 		Map<String, Object> logs = new HashMap<String, Object>();
 		logs.put("event", "error");
@@ -432,4 +1245,74 @@ public class OpenShiftClient {
 		return e;
 	}
 
+	/**
+	 * Settings for an {@link OpenShiftClient}. Without a cluster the client
+	 * connects to the one described by the {@code OPENSHIFT_*} environment
+	 * settings, and without a tracer no spans are recorded.
+	 */
+	public static class Builder {
+
+		private ClusterConfig cluster;
+		private final List<ClusterConfig> additionalClusters = new ArrayList<ClusterConfig>();
+		private Tracer tracer;
+		private ExecutorService fanOutExecutor;
+		private int fanOutThreads = DEFAULT_FAN_OUT_THREADS;
+		private long coalescingWindowMillis;
+		private long endpointRefreshMillis = TimeUnit.SECONDS.toMillis(DEFAULT_ENDPOINT_REFRESH_SECONDS);
+		private long watchResyncMillis;
+		private int watchMaxNamespaces = DEFAULT_WATCH_NAMESPACES;
+
+		protected Builder() {
+		}
+
+		public Builder withCluster(ClusterConfig cluster) {
+			this.cluster = cluster;
+			return this;
+		}
+
+		public Builder withAdditionalCluster(ClusterConfig cluster) {
+			additionalClusters.add(cluster);
+			return this;
+		}
+
+		public Builder withTracer(Tracer tracer) {
+			this.tracer = tracer;
+			return this;
+		}
+
+		/**
+		 * Runs fan-out reads on the given executor, which the client does not
+		 * shut down when it is closed.
+		 */
+		public Builder withFanOutExecutor(ExecutorService executor) {
+			this.fanOutExecutor = executor;
+			return this;
+		}
+
+		public Builder withFanOutThreads(int threads) {
+			this.fanOutThreads = threads;
+			return this;
+		}
+
+		public Builder withCoalescingWindow(long window, TimeUnit unit) {
+			this.coalescingWindowMillis = unit.toMillis(window);
+			return this;
+		}
+
+		public Builder withEndpointRefresh(long period, TimeUnit unit) {
+			this.endpointRefreshMillis = unit.toMillis(period);
+			return this;
+		}
+
+		public Builder withWatchCache(long resyncPeriod, TimeUnit unit, int maxNamespaces) {
+			this.watchResyncMillis = unit.toMillis(resyncPeriod);
+			this.watchMaxNamespaces = maxNamespaces;
+			return this;
+		}
+
+		public OpenShiftClient build() {
+			return new OpenShiftClient(this);
+		}
+
+	}
 }
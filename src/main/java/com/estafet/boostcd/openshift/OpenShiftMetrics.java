@@ -0,0 +1,148 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.openshift.restclient.OpenShiftException;
+import com.openshift.restclient.model.IResource;
+
+/**
+ * In-process registry of {@link OperationStats} for every client operation,
+ * keyed by operation and namespace. Recording is enabled by default; when
+ * disabled {@link #start(String, String)} hands out a shared no-op sample.
+ * Response sizes require re-serialising each returned resource and are only
+ * recorded when {@link #setRecordResponseBytes(boolean)} is switched on.
+ */
+public class OpenShiftMetrics {
+
+	private final Map<String, OperationStats> operations = new ConcurrentHashMap<String, OperationStats>();
+
+	private volatile boolean enabled = true;
+	private volatile boolean recordResponseBytes;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public boolean isRecordResponseBytes() {
+		return recordResponseBytes;
+	}
+
+	public void setRecordResponseBytes(boolean recordResponseBytes) {
+		this.recordResponseBytes = recordResponseBytes;
+	}
+
+	public Sample start(String operation) {
+		return start(operation, null);
+	}
+
+	public Sample start(String operation, String namespace) {
+		if (!enabled) {
+			return Sample.NOOP;
+		}
+		String key = namespace == null ? operation : operation + "/" + namespace;
+		OperationStats stats = operations.get(key);
+		if (stats == null) {
+			stats = operations.computeIfAbsent(key, ignored -> new OperationStats(operation, namespace));
+		}
+		return new Sample(stats, recordResponseBytes);
+	}
+
+	public Map<String, OperationStats> getOperations() {
+		return Collections.unmodifiableMap(operations);
+	}
+
+	public OperationStats getOperation(String operation, String namespace) {
+		return operations.get(namespace == null ? operation : operation + "/" + namespace);
+	}
+
+	public void reset() {
+		operations.clear();
+	}
+
+	/**
+	 * A single timed call. {@link #stop()} must be called exactly once, normally
+	 * from a finally block.
+	 */
+	public static final class Sample {
+
+		private static final Sample NOOP = new Sample(null, false);
+
+		private final OperationStats stats;
+		private final boolean recordBytes;
+		private final long startNanos;
+
+		private Sample(OperationStats stats, boolean recordBytes) {
+			this.stats = stats;
+			this.recordBytes = recordBytes;
+			if (stats != null) {
+				stats.begin();
+				this.startNanos = System.nanoTime();
+			} else {
+				this.startNanos = 0;
+			}
+		}
+
+		public void resource(IResource resource) {
+			if (stats == null || resource == null) {
+				return;
+			}
+			stats.items(1);
+			if (recordBytes) {
+				stats.bytes(resource.toJson(true).length());
+			}
+		}
+
+		public void resources(Collection<? extends IResource> resources) {
+			if (stats == null || resources == null) {
+				return;
+			}
+			stats.items(resources.size());
+			if (recordBytes) {
+				long bytes = 0;
+				for (IResource resource : resources) {
+					bytes += resource.toJson(true).length();
+				}
+				stats.bytes(bytes);
+			}
+		}
+
+		public void items(int count) {
+			if (stats != null) {
+				stats.items(count);
+			}
+		}
+
+		public void bytes(long count) {
+			if (stats != null) {
+				stats.bytes(count);
+			}
+		}
+
+		public void error(RuntimeException e) {
+			if (stats == null) {
+				return;
+			}
+			int status = 0;
+			if (e instanceof OpenShiftException && ((OpenShiftException) e).hasStatus()) {
+				status = ((OpenShiftException) e).getStatus().getCode();
+			}
+			stats.error(status);
+		}
+
+		public void stop() {
+			if (stats != null) {
+				stats.end(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+			}
+		}
+
+	}
+
+}
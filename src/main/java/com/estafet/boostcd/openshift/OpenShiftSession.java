@@ -0,0 +1,246 @@
+package com.estafet.boostcd.openshift;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.restclient.ClientBuilder;
+import com.openshift.restclient.IClient;
+import com.openshift.restclient.OpenShiftException;
+import com.openshift.restclient.authorization.IAuthorizationContext;
+import com.openshift.restclient.authorization.UnauthorizedException;
+import com.openshift.restclient.http.IHttpConstants;
+
+import okhttp3.Credentials;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Holds a single long-lived {@link IClient} for one cluster so that every call
+ * shares the same connection pool and bearer token. The token is refreshed on
+ * the same client shortly before it expires, and the session recovers from a
+ * 401 by logging in again exactly once no matter how many threads observed it.
+ * {@link #close()} releases the client's dispatcher threads and pooled
+ * connections.
+ */
+public class OpenShiftSession implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(OpenShiftSession.class);
+
+	private static final long DEFAULT_TOKEN_TTL_SECONDS = TimeUnit.HOURS.toSeconds(24);
+	private static final double REFRESH_RATIO = 0.8;
+
+	private final String url;
+	private final String user;
+	private final String password;
+	private final int maxRequests;
+	private final long connectTimeoutMillis;
+	private final long readTimeoutMillis;
+
+	private final AtomicLong logins = new AtomicLong();
+	private final AtomicLong reuses = new AtomicLong();
+	private final AtomicLong refreshes = new AtomicLong();
+
+	private volatile IClient client;
+	private volatile long refreshAt;
+
+	public OpenShiftSession(String url, String user, String password) {
+		this(url, user, password, 0, 0, 0);
+	}
+
+	public OpenShiftSession(String url, String user, String password, int maxRequests, long connectTimeoutMillis, long readTimeoutMillis) {
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.maxRequests = maxRequests;
+		this.connectTimeoutMillis = connectTimeoutMillis;
+		this.readTimeoutMillis = readTimeoutMillis;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public IClient getClient() {
+		IClient current = client;
+		if (current != null && System.currentTimeMillis() < refreshAt) {
+			reuses.incrementAndGet();
+			return current;
+		}
+		synchronized (this) {
+			if (client == null) {
+				login();
+			} else if (System.currentTimeMillis() >= refreshAt) {
+				refresh(client);
+			} else {
+				reuses.incrementAndGet();
+			}
+			return client;
+		}
+	}
+
+	public <T> T execute(Function<IClient, T> call) {
+		IClient current = getClient();
+		try {
+			return call.apply(current);
+		} catch (OpenShiftException e) {
+			if (!isUnauthorized(e)) {
+				throw e;
+			}
+			log.debug("unauthorized response from " + url + ", renewing the session token");
+			invalidate(current);
+			return call.apply(getClient());
+		}
+	}
+
+	public synchronized void invalidate(IClient stale) {
+		if (client == stale && client != null) {
+			refresh(client);
+		}
+	}
+
+	/**
+	 * Shuts down the OkHttp dispatcher and evicts the idle pooled connections
+	 * of the current client. A later call logs in again with a new client.
+	 */
+	@Override
+	public synchronized void close() {
+		IClient current = client;
+		client = null;
+		if (current != null) {
+			release(current);
+		}
+	}
+
+	public long getLogins() {
+		return logins.get();
+	}
+
+	public long getReuses() {
+		return reuses.get();
+	}
+
+	public long getRefreshes() {
+		return refreshes.get();
+	}
+
+	private void login() {
+		ClientBuilder builder = new ClientBuilder(url)
+				.withUserName(user)
+				.withPassword(password);
+		if (maxRequests > 0) {
+			builder.withMaxRequests(maxRequests).withMaxRequestsPerHost(maxRequests);
+		}
+		if (connectTimeoutMillis > 0) {
+			builder.withConnectTimeout((int) connectTimeoutMillis, TimeUnit.MILLISECONDS);
+		}
+		if (readTimeoutMillis > 0) {
+			builder.withReadTimeout((int) readTimeoutMillis, TimeUnit.MILLISECONDS);
+		}
+		IClient created = builder.build();
+		try {
+			authorize(created);
+		} catch (RuntimeException e) {
+			release(created);
+			throw e;
+		}
+		client = created;
+	}
+
+	private void refresh(IClient current) {
+		refreshes.incrementAndGet();
+		try {
+			authorize(current);
+		} catch (RuntimeException e) {
+			log.warn("unable to refresh the token for " + url + ", building a new client", e);
+			client = null;
+			release(current);
+			login();
+		}
+	}
+
+	/**
+	 * Requests a new token with the OAuth challenge flow while the caller holds
+	 * the session lock. Left to itself the restclient would only fetch one
+	 * lazily, on whichever request next found the token empty. The old token
+	 * stays in place until the new one has been issued.
+	 */
+	private void authorize(IClient target) {
+		OkHttpClient http = target.adapt(OkHttpClient.class).newBuilder()
+				.followRedirects(false)
+				.followSslRedirects(false)
+				.build();
+		Request request = new Request.Builder()
+				.url(target.getAuthorizationEndpoint().toExternalForm() + "?response_type=token&client_id=openshift-challenging-client")
+				.header("X-CSRF-Token", "1")
+				.header("X-OPENSHIFT-IGNORE-RCI", "true")
+				.header("Authorization", Credentials.basic(user, password))
+				.build();
+		Map<String, String> fragment;
+		try (Response response = http.newCall(request).execute()) {
+			fragment = fragment(response.header("Location"));
+			if (!fragment.containsKey("access_token")) {
+				throw new OpenShiftException("Unable to log in to %s as %s - HTTP %d", url, user, response.code());
+			}
+		} catch (IOException e) {
+			throw new OpenShiftException(e, "Unable to log in to %s as %s", url, user);
+		}
+		IAuthorizationContext context = target.getAuthorizationContext();
+		context.setToken(fragment.get("access_token"));
+		logins.incrementAndGet();
+		refreshAt = System.currentTimeMillis() + (long) (tokenTtlSeconds(fragment.get("expires_in")) * 1000 * REFRESH_RATIO);
+	}
+
+	private static void release(IClient target) {
+		OkHttpClient http = target.adapt(OkHttpClient.class);
+		if (http != null) {
+			http.dispatcher().executorService().shutdown();
+			http.connectionPool().evictAll();
+		}
+	}
+
+	private static Map<String, String> fragment(String location) {
+		Map<String, String> result = new HashMap<String, String>();
+		int hash = location == null ? -1 : location.indexOf('#');
+		if (hash < 0) {
+			return result;
+		}
+		for (String pair : location.substring(hash + 1).split("&")) {
+			int equals = pair.indexOf('=');
+			if (equals > 0) {
+				try {
+					result.put(pair.substring(0, equals), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+				} catch (UnsupportedEncodingException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+		return result;
+	}
+
+	private long tokenTtlSeconds(String expiresIn) {
+		if (expiresIn == null || expiresIn.isEmpty()) {
+			return DEFAULT_TOKEN_TTL_SECONDS;
+		}
+		try {
+			return Long.parseLong(expiresIn.trim());
+		} catch (NumberFormatException e) {
+			return DEFAULT_TOKEN_TTL_SECONDS;
+		}
+	}
+
+	private boolean isUnauthorized(OpenShiftException e) {
+		return e instanceof UnauthorizedException
+				|| (e.hasStatus() && e.getStatus().getCode() == IHttpConstants.STATUS_UNAUTHORIZED);
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, throughput and error statistics for one operation, optionally
+ * scoped to a namespace. Latencies are kept in a fixed set of power-of-two
+ * microsecond buckets, so percentiles are accurate to within a factor of two
+ * and recording never allocates.
+ */
+public final class OperationStats {
+
+	private static final int BUCKETS = 32;
+
+	private final String operation;
+	private final String namespace;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder totalMicros = new LongAdder();
+	private final LongAdder items = new LongAdder();
+	private final LongAdder responseBytes = new LongAdder();
+	private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+	private final Map<Integer, LongAdder> errors = new ConcurrentHashMap<Integer, LongAdder>();
+
+	OperationStats(String operation, String namespace) {
+		this.operation = operation;
+		this.namespace = namespace;
+	}
+
+	public String getOperation() {
+		return operation;
+	}
+
+	public String getNamespace() {
+		return namespace;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	public long getItems() {
+		return items.sum();
+	}
+
+	public long getResponseBytes() {
+		return responseBytes.sum();
+	}
+
+	public double getMeanMillis() {
+		long count = calls.sum();
+		return count == 0 ? 0 : totalMicros.sum() / 1000.0 / count;
+	}
+
+	public double getPercentileMillis(double percentile) {
+		long[] counts = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = latencies.get(i);
+			total += counts[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(percentile / 100.0 * total);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return (1L << i) / 1000.0;
+			}
+		}
+		return (1L << (BUCKETS - 1)) / 1000.0;
+	}
+
+	public long getErrors() {
+		long total = 0;
+		for (LongAdder count : errors.values()) {
+			total += count.sum();
+		}
+		return total;
+	}
+
+	/**
+	 * Error counts keyed by HTTP status, with {@code 0} for failures that did not
+	 * carry a status.
+	 */
+	public Map<Integer, Long> getErrorsByStatus() {
+		Map<Integer, Long> result = new TreeMap<Integer, Long>();
+		for (Map.Entry<Integer, LongAdder> entry : errors.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().sum());
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	void begin() {
+		inFlight.incrementAndGet();
+	}
+
+	void end(long micros) {
+		inFlight.decrementAndGet();
+		calls.increment();
+		totalMicros.add(micros);
+		int bucket = micros <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1);
+		latencies.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+	}
+
+	void items(long count) {
+		items.add(count);
+	}
+
+	void bytes(long count) {
+		responseBytes.add(count);
+	}
+
+	void error(int status) {
+		errors.computeIfAbsent(status, key -> new LongAdder()).increment();
+	}
+
+	@Override
+	public String toString() {
+		return namespace == null ? operation : operation + "/" + namespace;
+	}
+
+}
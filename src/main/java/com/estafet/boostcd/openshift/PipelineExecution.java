@@ -0,0 +1,73 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import com.openshift.restclient.model.IBuild;
+
+/**
+ * Handle for a build started by one of the {@code execute*Pipeline} methods.
+ * The result completes once the build reaches a terminal phase, or is
+ * deleted, as reported by the shared {@link BuildTracker} watch.
+ */
+public final class PipelineExecution {
+
+	private final String pipeline;
+	private final IBuild build;
+	private final CompletableFuture<BuildResult> result;
+
+	PipelineExecution(String pipeline, IBuild build, CompletableFuture<BuildResult> result) {
+		this.pipeline = pipeline;
+		this.build = build;
+		this.result = result;
+	}
+
+	public String getNamespace() {
+		return build.getNamespaceName();
+	}
+
+	public String getPipeline() {
+		return pipeline;
+	}
+
+	public String getBuildName() {
+		return build.getName();
+	}
+
+	public IBuild getBuild() {
+		return build;
+	}
+
+	public boolean isDone() {
+		return result.isDone();
+	}
+
+	public CompletableFuture<BuildResult> getResult() {
+		return result.thenApply(value -> value);
+	}
+
+	public PipelineExecution onComplete(Consumer<BuildResult> callback) {
+		result.thenAccept(callback);
+		return this;
+	}
+
+	public BuildResult await(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+		try {
+			return result.get(timeout, unit);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getNamespace() + "/" + pipeline + " (" + getBuildName() + ")";
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A request to start a pipeline BuildConfig with a set of environment
+ * parameters. Two triggers are equal when they target the same pipeline in the
+ * same namespace with the same parameters.
+ */
+public final class PipelineTrigger {
+
+	private final String namespace;
+	private final String pipeline;
+	private final Map<String, String> parameters;
+
+	public PipelineTrigger(String namespace, String pipeline, Map<String, String> parameters) {
+		this.namespace = namespace;
+		this.pipeline = pipeline;
+		this.parameters = Collections.unmodifiableMap(new TreeMap<String, String>(parameters));
+	}
+
+	public String getNamespace() {
+		return namespace;
+	}
+
+	public String getPipeline() {
+		return pipeline;
+	}
+
+	public Map<String, String> getParameters() {
+		return parameters;
+	}
+
+	@Override
+	public int hashCode() {
+		return (namespace.hashCode() * 31 + pipeline.hashCode()) * 31 + parameters.hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof PipelineTrigger)) {
+			return false;
+		}
+		PipelineTrigger other = (PipelineTrigger) obj;
+		return namespace.equals(other.namespace) && pipeline.equals(other.pipeline) && parameters.equals(other.parameters);
+	}
+
+	@Override
+	public String toString() {
+		return namespace + "/" + pipeline + parameters;
+	}
+
+}
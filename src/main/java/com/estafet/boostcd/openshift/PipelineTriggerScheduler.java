@@ -0,0 +1,382 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.restclient.OpenShiftException;
+import com.openshift.restclient.model.IBuild;
+import com.openshift.restclient.model.IBuildConfig;
+
+/**
+ * Queues pipeline triggers per namespace and starts them from a small pool of
+ * dispatcher threads. Identical triggers that are still waiting are merged and
+ * share one build, the BuildConfigs of a namespace are fetched with a single
+ * LIST and kept for {@link #PIPELINES_TTL_MILLIS} or until a trigger names one
+ * that is not known yet, and triggers are released through a token bucket per
+ * namespace so a release wave does not get throttled by the API server. A
+ * namespace that has run out of tokens is rescheduled for when the next one is
+ * due rather than holding a thread, so it never delays the others.
+ */
+public class PipelineTriggerScheduler implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(PipelineTriggerScheduler.class);
+
+	private static final int DISPATCHER_THREADS = 4;
+
+	static final long PIPELINES_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+	private final OpenShiftClient client;
+	private final double triggersPerSecond;
+	private final int burst;
+
+	private final Map<PipelineTrigger, Pending> waiting = new ConcurrentHashMap<PipelineTrigger, Pending>();
+	private final Set<Pending> inFlight = ConcurrentHashMap.newKeySet();
+	private final Map<String, Lane> lanes = new ConcurrentHashMap<String, Lane>();
+	private final ScheduledExecutorService dispatcher;
+	private volatile boolean running = true;
+
+	private final AtomicLong submitted = new AtomicLong();
+	private final AtomicLong merged = new AtomicLong();
+	private final AtomicLong triggered = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong totalWaitMillis = new AtomicLong();
+	private final AtomicLong maxWaitMillis = new AtomicLong();
+	private final AtomicLong totalTriggerMillis = new AtomicLong();
+	private final AtomicLong maxTriggerMillis = new AtomicLong();
+
+	public PipelineTriggerScheduler(OpenShiftClient client, double triggersPerSecond, int burst) {
+		this.client = client;
+		this.triggersPerSecond = triggersPerSecond;
+		this.burst = burst;
+		AtomicInteger count = new AtomicInteger();
+		this.dispatcher = Executors.newScheduledThreadPool(DISPATCHER_THREADS, runnable -> {
+			Thread thread = new Thread(runnable, "openshift-pipeline-scheduler-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public CompletableFuture<PipelineExecution> schedule(PipelineTrigger trigger) {
+		if (!running) {
+			throw new IllegalStateException("Pipeline scheduler has been closed");
+		}
+		submitted.incrementAndGet();
+		Pending created = new Pending(trigger);
+		Pending existing = waiting.putIfAbsent(trigger, created);
+		if (existing != null) {
+			merged.incrementAndGet();
+			log.debug("merged duplicate trigger - " + trigger);
+			return existing.future;
+		}
+		lanes.computeIfAbsent(trigger.getNamespace(), Lane::new).offer(created);
+		return created.future;
+	}
+
+	public CompletableFuture<PipelineExecution> scheduleBuildPipeline(String productId, String productRepo, String app, String repoUrl) {
+		return schedule(client.buildPipelineTrigger(productId, productRepo, app, repoUrl));
+	}
+
+	public CompletableFuture<PipelineExecution> scheduleBuildPipeline(String productId, String productRepo, String app) {
+		return schedule(client.buildPipelineTrigger(productId, productRepo, app));
+	}
+
+	public CompletableFuture<PipelineExecution> scheduleBuildAllPipeline(String productId, String productRepo) {
+		return schedule(client.buildAllPipelineTrigger(productId, productRepo));
+	}
+
+	public CompletableFuture<PipelineExecution> scheduleReleasePipeline(String productId, String productRepo, String app) {
+		return schedule(client.releasePipelineTrigger(productId, productRepo, app));
+	}
+
+	public CompletableFuture<PipelineExecution> scheduleReleaseAllPipeline(String productId, String productRepo) {
+		return schedule(client.releaseAllPipelineTrigger(productId, productRepo));
+	}
+
+	public CompletableFuture<PipelineExecution> schedulePromotePipeline(String productId, String productRepo, String env, String app,
+			String next) {
+		return schedule(client.promotePipelineTrigger(productId, productRepo, env, app, next));
+	}
+
+	public CompletableFuture<PipelineExecution> schedulePromoteAllPipeline(String productId, String productRepo, String env, String next) {
+		return schedule(client.promoteAllPipelineTrigger(productId, productRepo, env, next));
+	}
+
+	public CompletableFuture<PipelineExecution> scheduleTestPipeline(String productId, String productRepo, String env) {
+		return schedule(client.testPipelineTrigger(productId, productRepo, env));
+	}
+
+	public CompletableFuture<PipelineExecution> schedulePromoteToLivePipeline(String productId) {
+		return schedule(client.promoteToLivePipelineTrigger(productId));
+	}
+
+	public int getQueueDepth() {
+		int depth = 0;
+		for (Lane lane : lanes.values()) {
+			depth += lane.size();
+		}
+		return depth;
+	}
+
+	public long getSubmitted() {
+		return submitted.get();
+	}
+
+	public long getMerged() {
+		return merged.get();
+	}
+
+	public long getTriggered() {
+		return triggered.get();
+	}
+
+	public long getFailed() {
+		return failed.get();
+	}
+
+	public double getAverageWaitMillis() {
+		long count = triggered.get() + failed.get();
+		return count == 0 ? 0 : (double) totalWaitMillis.get() / count;
+	}
+
+	public long getMaxWaitMillis() {
+		return maxWaitMillis.get();
+	}
+
+	public double getAverageTriggerMillis() {
+		long count = triggered.get() + failed.get();
+		return count == 0 ? 0 : (double) totalTriggerMillis.get() / count;
+	}
+
+	public long getMaxTriggerMillis() {
+		return maxTriggerMillis.get();
+	}
+
+	/**
+	 * Stops dispatching and completes every trigger that has not finished with
+	 * a {@link CancellationException}, including those whose build is being
+	 * started at that moment.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		dispatcher.shutdownNow();
+		List<Pending> remaining = new ArrayList<Pending>();
+		for (Lane lane : lanes.values()) {
+			lane.drainTo(remaining);
+		}
+		remaining.addAll(inFlight);
+		for (Pending pending : remaining) {
+			waiting.remove(pending.trigger, pending);
+			pending.future.completeExceptionally(new CancellationException("Pipeline scheduler has been closed"));
+		}
+	}
+
+	private void trigger(Pending pending, IBuildConfig pipeline) {
+		waiting.remove(pending.trigger, pending);
+		inFlight.add(pending);
+		long start = System.currentTimeMillis();
+		record(totalWaitMillis, maxWaitMillis, start - pending.enqueuedAt);
+		try {
+			IBuild build = client.triggerPipeline(pipeline, pending.trigger.getParameters());
+			triggered.incrementAndGet();
+			record(totalTriggerMillis, maxTriggerMillis, System.currentTimeMillis() - start);
+			pending.future.complete(client.track(pending.trigger.getPipeline(), build));
+		} catch (RuntimeException e) {
+			fail(pending, e, System.currentTimeMillis() - start);
+		} finally {
+			inFlight.remove(pending);
+		}
+	}
+
+	private void fail(Pending pending, RuntimeException e, long triggerMillis) {
+		waiting.remove(pending.trigger, pending);
+		failed.incrementAndGet();
+		record(totalTriggerMillis, maxTriggerMillis, triggerMillis);
+		log.warn("unable to trigger " + pending.trigger, e);
+		pending.future.completeExceptionally(e);
+	}
+
+	private static void record(AtomicLong total, AtomicLong max, long millis) {
+		total.addAndGet(millis);
+		max.accumulateAndGet(millis, Math::max);
+	}
+
+	private static final class Pending {
+
+		private final PipelineTrigger trigger;
+		private final CompletableFuture<PipelineExecution> future = new CompletableFuture<PipelineExecution>();
+		private final long enqueuedAt = System.currentTimeMillis();
+
+		private Pending(PipelineTrigger trigger) {
+			this.trigger = trigger;
+		}
+
+	}
+
+	/**
+	 * The triggers waiting in one namespace. At most one dispatch cycle of a
+	 * lane is running or scheduled at any time, so the pipelines it has listed
+	 * are only touched by that cycle.
+	 */
+	private final class Lane {
+
+		private final String namespace;
+		private final TokenBucket bucket = new TokenBucket(triggersPerSecond, burst);
+		private final ArrayDeque<Pending> backlog = new ArrayDeque<Pending>();
+		private boolean scheduled;
+		private Map<String, IBuildConfig> pipelines;
+		private long listedAt;
+
+		private Lane(String namespace) {
+			this.namespace = namespace;
+		}
+
+		private synchronized int size() {
+			return backlog.size();
+		}
+
+		private synchronized void drainTo(List<Pending> target) {
+			target.addAll(backlog);
+			backlog.clear();
+		}
+
+		private void offer(Pending pending) {
+			synchronized (this) {
+				backlog.add(pending);
+				if (scheduled) {
+					return;
+				}
+				scheduled = true;
+			}
+			submit(0);
+		}
+
+		private void submit(long delayNanos) {
+			try {
+				dispatcher.schedule(this::dispatch, delayNanos, TimeUnit.NANOSECONDS);
+			} catch (RejectedExecutionException e) {
+				List<Pending> cancelled = new ArrayList<Pending>();
+				synchronized (this) {
+					scheduled = false;
+					if (running) {
+						throw e;
+					}
+					drainTo(cancelled);
+				}
+				for (Pending pending : cancelled) {
+					waiting.remove(pending.trigger, pending);
+					pending.future.completeExceptionally(new CancellationException("Pipeline scheduler has been closed"));
+				}
+			}
+		}
+
+		private void dispatch() {
+			while (running) {
+				Pending next;
+				synchronized (this) {
+					next = backlog.peek();
+					if (next == null) {
+						scheduled = false;
+						return;
+					}
+				}
+				if (isStale(next)) {
+					try {
+						listPipelines();
+					} catch (RuntimeException e) {
+						List<Pending> failures = new ArrayList<Pending>();
+						drainTo(failures);
+						for (Pending pending : failures) {
+							fail(pending, e, 0);
+						}
+						continue;
+					}
+				}
+				IBuildConfig pipeline = pipelines.get(next.trigger.getPipeline());
+				if (pipeline != null) {
+					long waitNanos = bucket.tryAcquire();
+					if (waitNanos > 0) {
+						submit(waitNanos);
+						return;
+					}
+				}
+				synchronized (this) {
+					backlog.remove(next);
+				}
+				if (pipeline == null) {
+					fail(next, new OpenShiftException("Cannot find pipeline %s in %s", next.trigger.getPipeline(), namespace), 0);
+				} else {
+					trigger(next, pipeline);
+				}
+			}
+		}
+
+		/**
+		 * Whether the pipelines must be listed again for the trigger: they have
+		 * expired, or it names one that was unknown when they were listed and
+		 * may have been created since.
+		 */
+		private boolean isStale(Pending next) {
+			return pipelines == null || System.currentTimeMillis() - listedAt > PIPELINES_TTL_MILLIS
+					|| (!pipelines.containsKey(next.trigger.getPipeline()) && listedAt < next.enqueuedAt);
+		}
+
+		private void listPipelines() {
+			pipelines = null;
+			Map<String, IBuildConfig> result = new HashMap<String, IBuildConfig>();
+			for (IBuildConfig pipeline : client.listPipelines(namespace)) {
+				result.put(pipeline.getName(), pipeline);
+			}
+			pipelines = result;
+			listedAt = System.currentTimeMillis();
+		}
+
+	}
+
+	private static final class TokenBucket {
+
+		private final double tokensPerNano;
+		private final double capacity;
+		private double tokens;
+		private long refilledAt = System.nanoTime();
+
+		private TokenBucket(double tokensPerSecond, int capacity) {
+			this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+			this.capacity = Math.max(1, capacity);
+			this.tokens = this.capacity;
+		}
+
+		/**
+		 * Takes a token if one is available and returns zero, otherwise returns
+		 * how long until the next one is.
+		 */
+		private synchronized long tryAcquire() {
+			long now = System.nanoTime();
+			tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+			refilledAt = now;
+			if (tokens >= 1) {
+				tokens -= 1;
+				return 0;
+			}
+			return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+		}
+
+	}
+
+}
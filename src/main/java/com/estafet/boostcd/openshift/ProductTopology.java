@@ -0,0 +1,62 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable per-namespace, per-app projection of a product's environments.
+ */
+public final class ProductTopology {
+
+	private final String productId;
+	private final Map<String, Map<String, AppTopology>> namespaces;
+	private final Set<String> failures;
+
+	ProductTopology(String productId, Map<String, Map<String, AppTopology>> namespaces, Set<String> failures) {
+		this.productId = productId;
+		Map<String, Map<String, AppTopology>> copy = new HashMap<String, Map<String, AppTopology>>();
+		for (Map.Entry<String, Map<String, AppTopology>> entry : namespaces.entrySet()) {
+			copy.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<String, AppTopology>(entry.getValue())));
+		}
+		this.namespaces = Collections.unmodifiableMap(copy);
+		this.failures = Collections.unmodifiableSet(new HashSet<String>(failures));
+	}
+
+	public String getProductId() {
+		return productId;
+	}
+
+	public Set<String> getNamespaces() {
+		return namespaces.keySet();
+	}
+
+	public Map<String, AppTopology> getApps(String namespace) {
+		Map<String, AppTopology> apps = namespaces.get(namespace);
+		return apps == null ? Collections.<String, AppTopology>emptyMap() : apps;
+	}
+
+	public AppTopology getApp(String namespace, String app) {
+		return getApps(namespace).get(app);
+	}
+
+	public Set<String> getFailures() {
+		return failures;
+	}
+
+	public boolean isComplete() {
+		return failures.isEmpty();
+	}
+
+	public boolean isComplete(String namespace) {
+		for (String failure : failures) {
+			if (failure.startsWith(namespace + "/")) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.openshift.restclient.model.IProject;
+
+/**
+ * Stage projects of several products partitioned by product, together with
+ * the {@code test-passed} label of each project read in the same pass.
+ */
+public final class ProjectCatalog {
+
+	private final Map<String, Map<String, IProject>> projects;
+	private final Map<String, Boolean> testPassed;
+
+	ProjectCatalog(Map<String, Map<String, IProject>> projects, Map<String, Boolean> testPassed) {
+		Map<String, Map<String, IProject>> copy = new HashMap<String, Map<String, IProject>>();
+		for (Map.Entry<String, Map<String, IProject>> entry : projects.entrySet()) {
+			copy.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<String, IProject>(entry.getValue())));
+		}
+		this.projects = Collections.unmodifiableMap(copy);
+		this.testPassed = Collections.unmodifiableMap(new HashMap<String, Boolean>(testPassed));
+	}
+
+	public Set<String> getProductIds() {
+		return projects.keySet();
+	}
+
+	public Map<String, IProject> getProjects(String productId) {
+		Map<String, IProject> result = projects.get(productId);
+		return result == null ? Collections.<String, IProject>emptyMap() : result;
+	}
+
+	public Map<String, Map<String, IProject>> asMap() {
+		return projects;
+	}
+
+	public boolean isEnvironmentTestPassed(String namespace) {
+		return Boolean.TRUE.equals(testPassed.get(namespace));
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.estafet.boostcd.commons.env.ENV;
+
+/**
+ * Which version of every app is in each environment of a product, and what can
+ * be promoted from one environment to the next, computed in one pass over a
+ * {@link ProductTopology}. Environments are given in promotion order, for
+ * example {@code test, uat, prod}. An app is promotable from an environment
+ * when it is deployed there, the next environment runs a different version
+ * and the environment's tests have passed.
+ */
+public final class PromotionReadiness {
+
+	private final String productId;
+	private final List<String> environments;
+	private final Map<String, Integer> positions;
+	private final boolean[] testPassed;
+	private final Map<String, String[]> versions;
+
+	private PromotionReadiness(String productId, List<String> environments, boolean[] testPassed, Map<String, String[]> versions) {
+		this.productId = productId;
+		this.environments = Collections.unmodifiableList(new ArrayList<String>(environments));
+		this.positions = new HashMap<String, Integer>();
+		for (int i = 0; i < environments.size(); i++) {
+			positions.put(environments.get(i), i);
+		}
+		this.testPassed = testPassed;
+		this.versions = versions;
+	}
+
+	static PromotionReadiness evaluate(ProductTopology topology, List<String> environments, Set<String> testPassedNamespaces) {
+		String productId = topology.getProductId();
+		boolean[] testPassed = new boolean[environments.size()];
+		Map<String, String[]> versions = new TreeMap<String, String[]>();
+		for (int i = 0; i < environments.size(); i++) {
+			String namespace = ENV.namespace(productId, environments.get(i));
+			testPassed[i] = testPassedNamespaces.contains(namespace);
+			for (AppTopology app : topology.getApps(namespace).values()) {
+				versions.computeIfAbsent(app.getApp(), key -> new String[environments.size()])[i] = app.getVersion();
+			}
+		}
+		return new PromotionReadiness(productId, environments, testPassed, versions);
+	}
+
+	public String getProductId() {
+		return productId;
+	}
+
+	public List<String> getEnvironments() {
+		return environments;
+	}
+
+	public Set<String> getApps() {
+		return Collections.unmodifiableSet(versions.keySet());
+	}
+
+	public String getNext(String env) {
+		int position = position(env);
+		return position + 1 < environments.size() ? environments.get(position + 1) : null;
+	}
+
+	public String getVersion(String app, String env) {
+		String[] appVersions = versions.get(app);
+		return appVersions == null ? null : appVersions[position(env)];
+	}
+
+	/**
+	 * The app's version in each environment, in promotion order, with null
+	 * where it is not deployed.
+	 */
+	public Map<String, String> getVersions(String app) {
+		String[] appVersions = versions.get(app);
+		Map<String, String> result = new LinkedHashMap<String, String>();
+		for (int i = 0; i < environments.size(); i++) {
+			result.put(environments.get(i), appVersions == null ? null : appVersions[i]);
+		}
+		return result;
+	}
+
+	public boolean isTestPassed(String env) {
+		return testPassed[position(env)];
+	}
+
+	public boolean isPromotable(String app, String env) {
+		String[] appVersions = versions.get(app);
+		return appVersions != null && isPromotable(appVersions, position(env));
+	}
+
+	public Collection<String> getPromotable(String env) {
+		int position = position(env);
+		List<String> result = new ArrayList<String>();
+		for (Map.Entry<String, String[]> entry : versions.entrySet()) {
+			if (isPromotable(entry.getValue(), position)) {
+				result.add(entry.getKey());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Apps whose version differs from the next environment's, whether or not
+	 * they can be promoted yet.
+	 */
+	public Collection<String> getGaps(String env) {
+		int position = position(env);
+		List<String> result = new ArrayList<String>();
+		if (position + 1 < environments.size()) {
+			for (Map.Entry<String, String[]> entry : versions.entrySet()) {
+				String[] appVersions = entry.getValue();
+				if (appVersions[position] != null && !Objects.equals(appVersions[position], appVersions[position + 1])) {
+					result.add(entry.getKey());
+				}
+			}
+		}
+		return result;
+	}
+
+	private boolean isPromotable(String[] appVersions, int position) {
+		return position + 1 < environments.size()
+				&& testPassed[position]
+				&& appVersions[position] != null
+				&& !appVersions[position].equals(appVersions[position + 1]);
+	}
+
+	private int position(String env) {
+		Integer position = positions.get(env);
+		if (position == null) {
+			throw new IllegalArgumentException("Unknown environment " + env + " - expected one of " + environments);
+		}
+		return position;
+	}
+
+}
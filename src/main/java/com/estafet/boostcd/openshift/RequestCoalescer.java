@@ -0,0 +1,139 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for reads. Concurrent calls with the same key share one
+ * in-flight call and its result, and with a window configured a successful
+ * result keeps being handed out for that long after it completes. Callers of
+ * the same key receive the same instance, so results must be treated as
+ * read-only.
+ */
+public class RequestCoalescer {
+
+	private static final int SWEEP_THRESHOLD = 1024;
+
+	private final Map<String, Flight> flights = new ConcurrentHashMap<String, Flight>();
+	private volatile long windowMillis;
+
+	private final AtomicLong calls = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong windowHits = new AtomicLong();
+
+	public RequestCoalescer withWindow(long window, TimeUnit unit) {
+		this.windowMillis = unit.toMillis(window);
+		return this;
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> T execute(String key, Supplier<T> call) {
+		calls.incrementAndGet();
+		Flight created = new Flight();
+		while (true) {
+			Flight existing = flights.putIfAbsent(key, created);
+			if (existing == null) {
+				break;
+			}
+			if (!existing.future.isDone()) {
+				coalesced.incrementAndGet();
+				return (T) await(existing.future);
+			}
+			if (System.currentTimeMillis() < existing.expiresAt) {
+				windowHits.incrementAndGet();
+				return (T) await(existing.future);
+			}
+			flights.remove(key, existing);
+		}
+		try {
+			T result = call.get();
+			created.expiresAt = System.currentTimeMillis() + windowMillis;
+			created.future.complete(result);
+			return result;
+		} catch (Throwable e) {
+			created.future.completeExceptionally(e);
+			throw e;
+		} finally {
+			if (windowMillis <= 0 || created.future.isCompletedExceptionally()) {
+				flights.remove(key, created);
+			} else if (flights.size() > SWEEP_THRESHOLD) {
+				sweep();
+			}
+		}
+	}
+
+	public void clear() {
+		flights.clear();
+	}
+
+	public long getCalls() {
+		return calls.get();
+	}
+
+	public long getCoalesced() {
+		return coalesced.get();
+	}
+
+	public long getWindowHits() {
+		return windowHits.get();
+	}
+
+	public int getInFlight() {
+		int count = 0;
+		for (Flight flight : flights.values()) {
+			if (!flight.future.isDone()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private void sweep() {
+		long now = System.currentTimeMillis();
+		for (Iterator<Flight> it = flights.values().iterator(); it.hasNext();) {
+			Flight flight = it.next();
+			if (flight.future.isDone() && now >= flight.expiresAt) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Waits for a shared load, rethrowing its failure unwrapped.
+	 */
+	static <T> T await(CompletableFuture<T> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CompletionException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new CompletionException(e.getCause());
+		}
+	}
+
+	private static final class Flight {
+
+		private final CompletableFuture<Object> future = new CompletableFuture<Object>();
+		private volatile long expiresAt;
+
+	}
+
+}
@@ -0,0 +1,365 @@
+package com.estafet.boostcd.openshift;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.restclient.IClient;
+import com.openshift.restclient.OpenShiftException;
+
+/**
+ * Runs calls against one cluster with a deadline per operation and a circuit
+ * breaker shared by every call to that cluster. Idempotent reads are retried
+ * with exponential backoff on 5xx, 429, I/O errors and timeouts, can be hedged
+ * with a duplicate request once they run past a latency percentile, and fall
+ * back to the last result seen for the same request whilst the breaker is
+ * open. Writes only get the deadline and the breaker. Failures the server
+ * answered deliberately, such as a 404 or 409, are passed to the caller
+ * without counting either for or against the breaker.
+ * <p>
+ * The last known result is the very object the original caller received, not
+ * a copy, so results of keyed reads must be treated as read-only.
+ * <p>
+ * Operations are named {@code verb/kind}, for example
+ * {@code list/DeploymentConfig} or {@code get/BuildConfig}.
+ */
+public class ResilientExecutor implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(ResilientExecutor.class);
+
+	private static final long DEFAULT_TIMEOUT_MILLIS = 30000;
+	private static final int DEFAULT_MAX_RETRIES = 3;
+	private static final long DEFAULT_BACKOFF_MILLIS = 200;
+	private static final long MAX_BACKOFF_MILLIS = 5000;
+	private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+	private static final long DEFAULT_OPEN_MILLIS = 30000;
+	private static final int MAX_LAST_KNOWN_GOOD = 1024;
+
+	public enum BreakerState {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final OpenShiftSession session;
+	private final ExecutorService workers;
+	private final Map<String, Long> timeouts = new ConcurrentHashMap<String, Long>();
+	private final Map<String, OperationStats> latencies = new ConcurrentHashMap<String, OperationStats>();
+	private final Map<String, Object> lastKnownGood = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+			return size() > MAX_LAST_KNOWN_GOOD;
+		}
+	};
+
+	private volatile long defaultTimeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+	private volatile int maxRetries = DEFAULT_MAX_RETRIES;
+	private volatile long backoffMillis = DEFAULT_BACKOFF_MILLIS;
+	private volatile int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+	private volatile long openMillis = DEFAULT_OPEN_MILLIS;
+	private volatile double hedgePercentile;
+	private volatile int hedgeMinSamples;
+
+	private BreakerState state = BreakerState.CLOSED;
+	private int consecutiveFailures;
+	private long openedAt;
+	private boolean trialInFlight;
+
+	private final AtomicLong retries = new AtomicLong();
+	private final AtomicLong hedges = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong staleServed = new AtomicLong();
+
+	public ResilientExecutor(OpenShiftSession session) {
+		this.session = session;
+		AtomicInteger count = new AtomicInteger();
+		this.workers = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "openshift-request-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public ResilientExecutor withTimeout(String operation, long timeout, TimeUnit unit) {
+		timeouts.put(operation, unit.toMillis(timeout));
+		return this;
+	}
+
+	public ResilientExecutor withDefaultTimeout(long timeout, TimeUnit unit) {
+		this.defaultTimeoutMillis = unit.toMillis(timeout);
+		return this;
+	}
+
+	public ResilientExecutor withRetries(int maxRetries, long backoff, TimeUnit unit) {
+		this.maxRetries = maxRetries;
+		this.backoffMillis = unit.toMillis(backoff);
+		return this;
+	}
+
+	public ResilientExecutor withCircuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {
+		this.failureThreshold = failureThreshold;
+		this.openMillis = unit.toMillis(openDuration);
+		return this;
+	}
+
+	/**
+	 * Send a duplicate read once the first has been running longer than the
+	 * given latency percentile of that operation, as measured over at least
+	 * {@code minSamples} earlier calls. The first answer wins.
+	 */
+	public ResilientExecutor withHedging(double percentile, int minSamples) {
+		this.hedgeMinSamples = minSamples;
+		this.hedgePercentile = percentile;
+		return this;
+	}
+
+	public ResilientExecutor withoutHedging() {
+		this.hedgePercentile = 0;
+		return this;
+	}
+
+	public <T> T read(String operation, String key, Function<IClient, T> call) {
+		if (!allowRequest()) {
+			return fallback(operation, key, null);
+		}
+		RuntimeException failure = null;
+		for (int attempt = 0; attempt <= maxRetries; attempt++) {
+			if (attempt > 0) {
+				retries.incrementAndGet();
+				if (!sleep(backoff(attempt)) || !allowRequest()) {
+					break;
+				}
+			}
+			try {
+				T result = attempt(operation, call, true);
+				onSuccess();
+				if (key != null && result != null) {
+					synchronized (lastKnownGood) {
+						lastKnownGood.put(key, result);
+					}
+				}
+				return result;
+			} catch (RuntimeException e) {
+				if (!isRetryable(e)) {
+					onRejectedByServer();
+					throw e;
+				}
+				onFailure();
+				failure = e;
+				log.debug(operation + " failed on attempt " + (attempt + 1), e);
+			}
+		}
+		return fallback(operation, key, failure);
+	}
+
+	public <T> T write(String operation, Function<IClient, T> call) {
+		if (!allowRequest()) {
+			throw new OpenShiftException("Circuit breaker for %s is open", session.getUrl());
+		}
+		try {
+			T result = attempt(operation, call, false);
+			onSuccess();
+			return result;
+		} catch (RuntimeException e) {
+			if (isRetryable(e)) {
+				onFailure();
+			} else {
+				onRejectedByServer();
+			}
+			throw e;
+		}
+	}
+
+	public synchronized BreakerState getBreakerState() {
+		return state;
+	}
+
+	public long getRetries() {
+		return retries.get();
+	}
+
+	public long getHedges() {
+		return hedges.get();
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	public long getStaleServed() {
+		return staleServed.get();
+	}
+
+	@Override
+	public void close() {
+		workers.shutdownNow();
+	}
+
+	private <T> T attempt(String operation, Function<IClient, T> call, boolean hedge) {
+		long timeout = timeouts.getOrDefault(operation, defaultTimeoutMillis);
+		long hedgeAfter = hedge ? hedgeDelay(operation) : -1;
+		CompletableFuture<T> result = new CompletableFuture<T>();
+		OperationStats stats = latencies.computeIfAbsent(operation, key -> new OperationStats(key, null));
+		long start = System.nanoTime();
+		Future<?> primary = workers.submit(() -> run(call, result));
+		Future<?> secondary = null;
+		try {
+			T value;
+			if (hedgeAfter >= 0 && hedgeAfter < timeout) {
+				try {
+					value = result.get(hedgeAfter, TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					hedges.incrementAndGet();
+					secondary = workers.submit(() -> run(call, result));
+					value = result.get(timeout - hedgeAfter, TimeUnit.MILLISECONDS);
+				}
+			} else {
+				value = result.get(timeout, TimeUnit.MILLISECONDS);
+			}
+			stats.begin();
+			stats.end(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+			return value;
+		} catch (TimeoutException e) {
+			throw new OpenShiftException(e, "%s against %s timed out after %dms", operation, session.getUrl(), timeout);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new OpenShiftException(e.getCause(), "%s against %s failed", operation, session.getUrl());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OpenShiftException(e, "%s against %s was interrupted", operation, session.getUrl());
+		} finally {
+			primary.cancel(true);
+			if (secondary != null) {
+				secondary.cancel(true);
+			}
+		}
+	}
+
+	private <T> void run(Function<IClient, T> call, CompletableFuture<T> result) {
+		try {
+			result.complete(session.execute(call));
+		} catch (Throwable e) {
+			result.completeExceptionally(e);
+		}
+	}
+
+	private long hedgeDelay(String operation) {
+		double percentile = hedgePercentile;
+		OperationStats stats = latencies.get(operation);
+		if (percentile <= 0 || stats == null || stats.getCalls() < hedgeMinSamples) {
+			return -1;
+		}
+		return (long) Math.ceil(stats.getPercentileMillis(percentile));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T fallback(String operation, String key, RuntimeException failure) {
+		if (getBreakerState() != BreakerState.CLOSED && key != null) {
+			Object cached;
+			synchronized (lastKnownGood) {
+				cached = lastKnownGood.get(key);
+			}
+			if (cached != null) {
+				staleServed.incrementAndGet();
+				log.warn("circuit breaker for " + session.getUrl() + " is open, serving last known result of " + key);
+				return (T) cached;
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+		throw new OpenShiftException("Circuit breaker for %s is open", session.getUrl());
+	}
+
+	private synchronized boolean allowRequest() {
+		if (state == BreakerState.CLOSED) {
+			return true;
+		}
+		if (state == BreakerState.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+			state = BreakerState.HALF_OPEN;
+			trialInFlight = false;
+		}
+		if (state == BreakerState.HALF_OPEN && !trialInFlight) {
+			trialInFlight = true;
+			return true;
+		}
+		rejected.incrementAndGet();
+		return false;
+	}
+
+	private synchronized void onSuccess() {
+		if (state != BreakerState.CLOSED) {
+			log.info("circuit breaker for " + session.getUrl() + " closed");
+		}
+		state = BreakerState.CLOSED;
+		consecutiveFailures = 0;
+		trialInFlight = false;
+	}
+
+	/**
+	 * The server answered, but with an error that says nothing about its
+	 * health. A half-open trial is released so the next call can probe again.
+	 */
+	private synchronized void onRejectedByServer() {
+		trialInFlight = false;
+	}
+
+	private synchronized void onFailure() {
+		consecutiveFailures++;
+		if (state == BreakerState.HALF_OPEN || (state == BreakerState.CLOSED && consecutiveFailures >= failureThreshold)) {
+			log.warn("circuit breaker for " + session.getUrl() + " opened after " + consecutiveFailures + " failures");
+			state = BreakerState.OPEN;
+			openedAt = System.currentTimeMillis();
+			trialInFlight = false;
+		}
+	}
+
+	private long backoff(int attempt) {
+		long ceiling = Math.min(MAX_BACKOFF_MILLIS, backoffMillis << Math.min(attempt - 1, 16));
+		return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+	}
+
+	private static boolean sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	static boolean isRetryable(Throwable e) {
+		if (e instanceof OpenShiftException && ((OpenShiftException) e).hasStatus()) {
+			int code = ((OpenShiftException) e).getStatus().getCode();
+			return code >= 500 || code == 429;
+		}
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof IOException || cause instanceof TimeoutException) {
+				return true;
+			}
+			if (cause.getCause() == cause) {
+				break;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,173 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.openshift.restclient.model.IResource;
+
+/**
+ * Bounded, TTL based cache of individual resources keyed by kind, namespace
+ * and name. Concurrent misses for the same key share a single load, and an
+ * entry is replaced as soon as a newer resourceVersion of the same resource is
+ * observed, for example in the result of a LIST. A version observed while the
+ * resource is loading is cached too, and a load that returns an older version
+ * does not replace it.
+ */
+public class ResourceCache {
+
+	private final int maxSize;
+	private final long defaultTtlMillis;
+	private final Map<String, Long> ttlMillisByKind = new ConcurrentHashMap<String, Long>();
+	private final Map<String, CachedResource> entries;
+	private final Map<String, CompletableFuture<IResource>> loading = new ConcurrentHashMap<String, CompletableFuture<IResource>>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	public ResourceCache(int maxSize, long defaultTtl, TimeUnit unit) {
+		this.maxSize = maxSize;
+		this.defaultTtlMillis = unit.toMillis(defaultTtl);
+		this.entries = new LinkedHashMap<String, CachedResource>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResource> eldest) {
+				if (size() > ResourceCache.this.maxSize) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	public ResourceCache withTtl(String kind, long ttl, TimeUnit unit) {
+		ttlMillisByKind.put(kind, unit.toMillis(ttl));
+		return this;
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends IResource> T get(String kind, String namespace, String name, Supplier<T> loader) {
+		String key = key(kind, namespace, name);
+		synchronized (entries) {
+			CachedResource entry = entries.get(key);
+			if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+				hits.incrementAndGet();
+				return (T) entry.resource;
+			}
+			if (entry != null) {
+				entries.remove(key);
+				evictions.incrementAndGet();
+			}
+		}
+		misses.incrementAndGet();
+		CompletableFuture<IResource> created = new CompletableFuture<IResource>();
+		CompletableFuture<IResource> inFlight = loading.putIfAbsent(key, created);
+		if (inFlight != null) {
+			return (T) RequestCoalescer.await(inFlight);
+		}
+		try {
+			T resource = (T) put(key, kind, loader.get());
+			created.complete(resource);
+			return resource;
+		} catch (Throwable e) {
+			created.completeExceptionally(e);
+			throw e;
+		} finally {
+			loading.remove(key, created);
+		}
+	}
+
+	public void observe(IResource resource) {
+		String version = resource.getResourceVersion();
+		if (version == null) {
+			return;
+		}
+		String key = key(resource.getKind(), resource.getNamespaceName(), resource.getName());
+		synchronized (entries) {
+			CachedResource entry = entries.get(key);
+			if (entry == null ? loading.containsKey(key) : !version.equals(entry.resource.getResourceVersion())
+					&& ResourceWatchCache.isNewer(version, entry.resource.getResourceVersion())) {
+				entries.put(key, new CachedResource(resource, expiry(resource.getKind())));
+			}
+		}
+	}
+
+	public void invalidate(String kind, String namespace, String name) {
+		synchronized (entries) {
+			entries.remove(key(kind, namespace, name));
+		}
+	}
+
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+		}
+	}
+
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	private IResource put(String key, String kind, IResource resource) {
+		if (resource == null) {
+			return null;
+		}
+		synchronized (entries) {
+			CachedResource entry = entries.get(key);
+			if (entry != null && isNewer(entry.resource, resource)) {
+				return entry.resource;
+			}
+			entries.put(key, new CachedResource(resource, expiry(kind)));
+			return resource;
+		}
+	}
+
+	private static boolean isNewer(IResource existing, IResource loaded) {
+		String version = existing.getResourceVersion();
+		return version != null && !version.equals(loaded.getResourceVersion())
+				&& ResourceWatchCache.isNewer(version, loaded.getResourceVersion());
+	}
+
+	private long expiry(String kind) {
+		Long ttl = ttlMillisByKind.get(kind);
+		return System.currentTimeMillis() + (ttl == null ? defaultTtlMillis : ttl);
+	}
+
+	private static String key(String kind, String namespace, String name) {
+		return kind + "/" + namespace + "/" + name;
+	}
+
+	private static final class CachedResource {
+
+		private final IResource resource;
+		private final long expiresAt;
+
+		private CachedResource(IResource resource, long expiresAt) {
+			this.resource = resource;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
@@ -0,0 +1,612 @@
+package com.estafet.boostcd.openshift;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openshift.restclient.IOpenShiftWatchListener;
+import com.openshift.restclient.IResourceFactory;
+import com.openshift.restclient.IWatcher;
+import com.openshift.restclient.ResourceKind;
+import com.openshift.restclient.model.IList;
+import com.openshift.restclient.model.IResource;
+
+/**
+ * Local, watch-driven copy of the resources of a few kinds. Each kind and
+ * namespace is listed once and then kept current from WATCH events; reads are
+ * answered from memory with the label filter applied locally. Watches are
+ * started in the background and a read waits at most
+ * {@value #SYNC_WAIT_MILLIS}ms for one; whilst a watch is still connecting or
+ * is broken, reads for it fall back to a label-filtered LIST made through the
+ * cluster's coalesced, circuit-broken read path.
+ * <p>
+ * The synced contents can be written to disk with {@link #writeSnapshot(Path)}
+ * and read back on the next start with {@link #loadSnapshot(Path)}. Loaded
+ * resources are served straight away, and each watch is resumed from the
+ * resourceVersion saved with them, so the API server replays what changed in
+ * between without a LIST. Only when that version has expired (410 Gone) is
+ * the watch started afresh with a LIST that reconciles them.
+ * <p>
+ * Subscribers are told about every resource that was added, modified or
+ * deleted, whether the change arrived as a WATCH event or was found by a
+ * resync. A resync never undoes an event newer than its LIST: stored objects
+ * with a later resourceVersion are kept, and deletes are remembered until a
+ * LIST taken after them has been applied.
+ */
+public class ResourceWatchCache {
+
+	private static final Logger log = LoggerFactory.getLogger(ResourceWatchCache.class);
+
+	public static final Set<String> DEFAULT_KINDS = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+			ResourceKind.DEPLOYMENT_CONFIG, ResourceKind.SERVICE, ResourceKind.IMAGE_STREAM, ResourceKind.PROJECT)));
+
+	private static final long RESTART_DELAY_MILLIS = 5000;
+	static final long SYNC_WAIT_MILLIS = 250;
+	private static final long CONNECT_TIMEOUT_MILLIS = 30000;
+	private static final int SNAPSHOT_MAGIC = 0x4F535743;
+	private static final int SNAPSHOT_VERSION = 2;
+
+	private final Cluster cluster;
+	private final Set<String> kinds;
+	private final int maxNamespaces;
+	private final Map<String, Map<String, Informer>> namespaces;
+	private final ScheduledExecutorService scheduler;
+	private final List<Consumer<IResource>> subscribers = new CopyOnWriteArrayList<Consumer<IResource>>();
+
+	public ResourceWatchCache(Cluster cluster, long resyncPeriod, TimeUnit unit, int maxNamespaces) {
+		this(cluster, DEFAULT_KINDS, resyncPeriod, unit, maxNamespaces);
+	}
+
+	public ResourceWatchCache(Cluster cluster, Set<String> kinds, long resyncPeriod, TimeUnit unit, int maxNamespaces) {
+		this.cluster = cluster;
+		this.kinds = kinds;
+		this.maxNamespaces = maxNamespaces;
+		this.namespaces = new LinkedHashMap<String, Map<String, Informer>>(16, 0.75f, true);
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "openshift-watch-cache");
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler.scheduleWithFixedDelay(this::resync, resyncPeriod, resyncPeriod, unit);
+	}
+
+	public void subscribe(Consumer<IResource> subscriber) {
+		subscribers.add(subscriber);
+	}
+
+	public void unsubscribe(Consumer<IResource> subscriber) {
+		subscribers.remove(subscriber);
+	}
+
+	public boolean isWatched(String kind) {
+		return kinds.contains(kind);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends IResource> List<T> list(String kind, String namespace, Map<String, String> labels) {
+		Informer informer = informer(kind, namespace);
+		if (!informer.warm && !informer.awaitSynced(SYNC_WAIT_MILLIS)) {
+			return cluster.read("list/" + kind, "list/" + kind + "/" + namespace + "/" + new TreeMap<String, String>(labels),
+					client -> client.list(kind, namespace, labels));
+		}
+		List<T> result = new ArrayList<T>();
+		for (IResource resource : informer.items.values()) {
+			if (matches(resource, labels)) {
+				result.add((T) resource);
+			}
+		}
+		return result;
+	}
+
+	public int writeSnapshot(Path file) throws IOException {
+		List<Informer> informers = new ArrayList<Informer>();
+		synchronized (namespaces) {
+			for (Map<String, Informer> byKind : namespaces.values()) {
+				for (Informer informer : byKind.values()) {
+					if (informer.synced) {
+						informers.add(informer);
+					}
+				}
+			}
+		}
+		int written = 0;
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temp))))) {
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeInt(SNAPSHOT_VERSION);
+			out.writeInt(informers.size());
+			for (Informer informer : informers) {
+				String version = informer.resourceVersion;
+				List<IResource> items = new ArrayList<IResource>(informer.items.values());
+				out.writeUTF(informer.kind);
+				out.writeUTF(informer.namespace);
+				out.writeUTF(version == null ? "" : version);
+				out.writeInt(items.size());
+				for (IResource resource : items) {
+					byte[] json = resource.toJson(true).getBytes(StandardCharsets.UTF_8);
+					out.writeInt(json.length);
+					out.write(json);
+				}
+				written += items.size();
+			}
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		log.debug("wrote " + written + " resources from " + informers.size() + " watches to " + file);
+		return written;
+	}
+
+	public int loadSnapshot(Path file) throws IOException {
+		IResourceFactory factory = cluster.getSession().getClient().getResourceFactory();
+		int loaded = 0;
+		try (DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))))) {
+			int format = in.readInt() == SNAPSHOT_MAGIC ? in.readInt() : -1;
+			if (format != 1 && format != SNAPSHOT_VERSION) {
+				throw new IOException("Unsupported watch cache snapshot " + file);
+			}
+			int informers = in.readInt();
+			for (int i = 0; i < informers; i++) {
+				String kind = in.readUTF();
+				String namespace = in.readUTF();
+				String version = format == 1 ? "" : in.readUTF();
+				int count = in.readInt();
+				List<IResource> resources = new ArrayList<IResource>(count);
+				for (int j = 0; j < count; j++) {
+					byte[] json = new byte[in.readInt()];
+					in.readFully(json);
+					resources.add(factory.create(new String(json, StandardCharsets.UTF_8)));
+				}
+				if (kinds.contains(kind)) {
+					Informer informer = informer(kind, namespace);
+					informer.warmUp(resources);
+					informer.resume(version);
+					loaded += resources.size();
+				}
+			}
+		}
+		log.debug("loaded " + loaded + " resources from " + file);
+		return loaded;
+	}
+
+	public void close() {
+		scheduler.shutdownNow();
+		synchronized (namespaces) {
+			for (Map<String, Informer> informers : namespaces.values()) {
+				for (Informer informer : informers.values()) {
+					informer.stop();
+				}
+			}
+			namespaces.clear();
+		}
+	}
+
+	private Informer informer(String kind, String namespace) {
+		List<Map<String, Informer>> evicted = new ArrayList<Map<String, Informer>>();
+		Informer informer;
+		synchronized (namespaces) {
+			Map<String, Informer> informers = namespaces.get(namespace);
+			if (informers == null) {
+				informers = new ConcurrentHashMap<String, Informer>();
+				namespaces.put(namespace, informers);
+				Iterator<Map<String, Informer>> eldest = namespaces.values().iterator();
+				while (namespaces.size() > maxNamespaces && eldest.hasNext()) {
+					evicted.add(eldest.next());
+					eldest.remove();
+				}
+			}
+			informer = informers.computeIfAbsent(kind, key -> new Informer(kind, namespace));
+		}
+		for (Map<String, Informer> informers : evicted) {
+			for (Informer stale : informers.values()) {
+				log.debug("evicting watch cache for " + stale.kind + " in " + stale.namespace);
+				stale.stop();
+			}
+		}
+		return informer;
+	}
+
+	void resync() {
+		List<Informer> informers = new ArrayList<Informer>();
+		synchronized (namespaces) {
+			for (Map<String, Informer> byKind : namespaces.values()) {
+				informers.addAll(byKind.values());
+			}
+		}
+		for (Informer informer : informers) {
+			try {
+				informer.resync();
+			} catch (RuntimeException e) {
+				log.warn("unable to resync " + informer.kind + " in " + informer.namespace, e);
+			}
+		}
+	}
+
+	private void changed(IResource resource) {
+		for (Consumer<IResource> subscriber : subscribers) {
+			try {
+				subscriber.accept(resource);
+			} catch (RuntimeException e) {
+				log.warn("watch cache subscriber failed to handle " + resource.getKind() + " " + resource.getName(), e);
+			}
+		}
+	}
+
+	private static boolean matches(IResource resource, Map<String, String> labels) {
+		if (labels == null || labels.isEmpty()) {
+			return true;
+		}
+		Map<String, String> actual = resource.getLabels();
+		for (Map.Entry<String, String> label : labels.entrySet()) {
+			if (!label.getValue().equals(actual.get(label.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static boolean isNewer(String candidate, String existing) {
+		if (existing == null || candidate == null) {
+			return true;
+		}
+		try {
+			return Long.parseLong(candidate) >= Long.parseLong(existing);
+		} catch (NumberFormatException e) {
+			return true;
+		}
+	}
+
+	private class Informer implements IOpenShiftWatchListener {
+
+		private final String kind;
+		private final String namespace;
+		private final Map<String, IResource> items = new ConcurrentHashMap<String, IResource>();
+		private final Map<String, String> deleted = new ConcurrentHashMap<String, String>();
+
+		private volatile String resourceVersion;
+		private volatile boolean synced;
+		private volatile boolean warm;
+		private volatile boolean stopped;
+		private volatile boolean restartPending;
+		private boolean starting;
+		private int generation;
+		private IWatcher watcher;
+		private CountDownLatch connecting = new CountDownLatch(0);
+
+		private Informer(String kind, String namespace) {
+			this.kind = kind;
+			this.namespace = namespace;
+		}
+
+		private boolean awaitSynced(long millis) {
+			CountDownLatch pending = start();
+			if (!synced && millis > 0) {
+				try {
+					pending.await(millis, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return synced;
+		}
+
+		private synchronized CountDownLatch start() {
+			if (synced || stopped || starting || watcher != null || scheduler.isShutdown()) {
+				return connecting;
+			}
+			starting = true;
+			connecting = new CountDownLatch(1);
+			int attempt = ++generation;
+			scheduler.execute(() -> connect(attempt, null));
+			return connecting;
+		}
+
+		/**
+		 * Starts watching from a resourceVersion the stored items are known to
+		 * reflect, instead of listing them again.
+		 */
+		private synchronized void resume(String version) {
+			if (version.isEmpty()) {
+				start();
+				return;
+			}
+			if (synced || stopped || starting || watcher != null || scheduler.isShutdown()) {
+				return;
+			}
+			observe(version);
+			starting = true;
+			connecting = new CountDownLatch(1);
+			int attempt = ++generation;
+			scheduler.execute(() -> connect(attempt, version));
+		}
+
+		private void connect(int attempt, String version) {
+			IWatcher created = null;
+			try {
+				created = cluster.getSession().execute(client -> version == null
+						? client.watch(namespace, this, kind)
+						: new ResumedWatch(client, kind, namespace, version, new Resumed(attempt)));
+			} catch (RuntimeException e) {
+				log.warn("unable to watch " + kind + " in " + namespace + ", falling back to list", e);
+			}
+			synchronized (this) {
+				starting = false;
+				if (created == null) {
+					connecting.countDown();
+					scheduleRestart();
+				} else if (stopped || attempt != generation) {
+					created.stop();
+				} else {
+					watcher = created;
+					if (!scheduler.isShutdown()) {
+						scheduler.schedule(() -> abandonIfUnconnected(attempt), CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+					}
+				}
+			}
+		}
+
+		/**
+		 * The restclient does not tell the listener when the web socket upgrade
+		 * itself is refused, so a watch that never connects is restarted here.
+		 */
+		private synchronized void abandonIfUnconnected(int attempt) {
+			if (!synced && !stopped && attempt == generation && watcher != null) {
+				log.warn("watch for " + kind + " in " + namespace + " did not connect, restarting it");
+				IWatcher stale = watcher;
+				broken();
+				stale.stop();
+			}
+		}
+
+		private void resync() {
+			if (!synced) {
+				start();
+				return;
+			}
+			IList list = cluster.read("list/" + kind, "list/" + kind + "/" + namespace, client -> client.get(kind, namespace));
+			replace(new ArrayList<IResource>(list.getItems()), list.getResourceVersion());
+		}
+
+		private synchronized void stop() {
+			stopped = true;
+			synced = false;
+			if (watcher != null) {
+				watcher.stop();
+				watcher = null;
+			}
+			connecting.countDown();
+			items.clear();
+		}
+
+		private synchronized void warmUp(List<IResource> resources) {
+			if (synced || stopped) {
+				return;
+			}
+			replace(resources, null);
+			warm = true;
+		}
+
+		/**
+		 * Reconciles the store with a LIST. With the LIST's resourceVersion,
+		 * objects stored after it was taken are kept and the tombstones it
+		 * already reflects are dropped; without one the LIST is taken as
+		 * current.
+		 */
+		private void replace(List<IResource> resources, String listVersion) {
+			Map<String, IResource> latest = new HashMap<String, IResource>();
+			for (IResource resource : resources) {
+				latest.put(resource.getName(), resource);
+			}
+			for (IResource existing : items.values()) {
+				if (!latest.containsKey(existing.getName())
+						&& (listVersion == null || isNewer(listVersion, existing.getResourceVersion()))
+						&& items.remove(existing.getName(), existing)) {
+					changed(existing);
+				}
+			}
+			for (IResource resource : latest.values()) {
+				apply(resource);
+			}
+			if (listVersion != null) {
+				deleted.values().removeIf(version -> isNewer(listVersion, version));
+				observe(listVersion);
+			}
+		}
+
+		private void observe(String version) {
+			String current = resourceVersion;
+			if (version != null && (current == null || isNewer(version, current))) {
+				resourceVersion = version;
+			}
+		}
+
+		private void apply(IResource resource) {
+			observe(resource.getResourceVersion());
+			String tombstone = deleted.get(resource.getName());
+			if (tombstone != null) {
+				if (!isNewer(resource.getResourceVersion(), tombstone)) {
+					return;
+				}
+				deleted.remove(resource.getName(), tombstone);
+			}
+			IResource previous = items.get(resource.getName());
+			IResource current = items.merge(resource.getName(), resource, (existing, candidate) ->
+					isNewer(candidate.getResourceVersion(), existing.getResourceVersion()) ? candidate : existing);
+			if (current == resource && (previous == null || !String.valueOf(previous.getResourceVersion()).equals(resource.getResourceVersion()))) {
+				changed(resource);
+			}
+		}
+
+		private synchronized void broken() {
+			synced = false;
+			watcher = null;
+			generation++;
+			connecting.countDown();
+			scheduleRestart();
+		}
+
+		private void scheduleRestart() {
+			if (stopped || restartPending || scheduler.isShutdown()) {
+				return;
+			}
+			restartPending = true;
+			scheduler.schedule(() -> {
+				restartPending = false;
+				start();
+			}, RESTART_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public void connected(List<IResource> resources) {
+			replace(resources, null);
+			synced = !stopped;
+			warm = false;
+			connecting.countDown();
+			log.debug("watching " + kind + " in " + namespace + " with " + resources.size() + " resources");
+		}
+
+		@Override
+		public void received(IResource resource, ChangeType change) {
+			if (ChangeType.DELETED.equals(change)) {
+				observe(resource.getResourceVersion());
+				if (resource.getResourceVersion() != null) {
+					deleted.put(resource.getName(), resource.getResourceVersion());
+				}
+				if (items.remove(resource.getName()) != null) {
+					changed(resource);
+				}
+			} else {
+				apply(resource);
+			}
+		}
+
+		@Override
+		public void disconnected() {
+			log.debug("watch for " + kind + " in " + namespace + " disconnected");
+			if (!stopped) {
+				broken();
+			}
+		}
+
+		@Override
+		public void error(Throwable err) {
+			log.warn("watch for " + kind + " in " + namespace + " failed", err);
+			if (!stopped) {
+				broken();
+			}
+		}
+
+		private synchronized boolean isCurrent(int attempt) {
+			return attempt == generation && !stopped;
+		}
+
+		private synchronized void resumed(int attempt) {
+			if (isCurrent(attempt)) {
+				synced = true;
+				warm = false;
+				connecting.countDown();
+				log.debug("resumed watching " + kind + " in " + namespace + " from " + resourceVersion);
+			}
+		}
+
+		/**
+		 * The API server no longer has the events since the saved version, so
+		 * the watch is started again with a LIST. That start is queued behind
+		 * the connect still running on the scheduler.
+		 */
+		private synchronized void expired(int attempt) {
+			if (!isCurrent(attempt)) {
+				return;
+			}
+			log.debug("resourceVersion " + resourceVersion + " of " + kind + " in " + namespace + " has expired, listing again");
+			IWatcher stale = watcher;
+			synced = false;
+			watcher = null;
+			generation++;
+			connecting.countDown();
+			if (stale != null) {
+				stale.stop();
+			}
+			if (!scheduler.isShutdown()) {
+				scheduler.execute(this::start);
+			}
+		}
+
+		/**
+		 * Forwards the events of a resumed watch whilst it is the current one.
+		 */
+		private final class Resumed implements ResumedWatch.Listener {
+
+			private final int attempt;
+
+			private Resumed(int attempt) {
+				this.attempt = attempt;
+			}
+
+			@Override
+			public void resumed() {
+				Informer.this.resumed(attempt);
+			}
+
+			@Override
+			public void expired() {
+				Informer.this.expired(attempt);
+			}
+
+			@Override
+			public void connected(List<IResource> resources) {
+			}
+
+			@Override
+			public void received(IResource resource, ChangeType change) {
+				if (isCurrent(attempt)) {
+					Informer.this.received(resource, change);
+				}
+			}
+
+			@Override
+			public void disconnected() {
+				if (isCurrent(attempt)) {
+					Informer.this.disconnected();
+				}
+			}
+
+			@Override
+			public void error(Throwable err) {
+				if (isCurrent(attempt)) {
+					Informer.this.error(err);
+				}
+			}
+
+		}
+
+	}
+
+}
@@ -0,0 +1,106 @@
+package com.estafet.boostcd.openshift;
+
+import java.net.URL;
+
+import org.jboss.dmr.ModelNode;
+
+import com.openshift.internal.restclient.URLBuilder;
+import com.openshift.restclient.IApiTypeMapper;
+import com.openshift.restclient.IClient;
+import com.openshift.restclient.IOpenShiftWatchListener;
+import com.openshift.restclient.IResourceFactory;
+import com.openshift.restclient.IWatcher;
+import com.openshift.restclient.OpenShiftException;
+import com.openshift.restclient.http.IHttpConstants;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+
+/**
+ * A WATCH from a known resourceVersion, opened directly on the session's HTTP
+ * client with its bearer token. The restclient's own watch always LISTs first
+ * to find a version; this one lets the API server replay what changed since
+ * the given one instead. When the server no longer has those events (410
+ * Gone) the listener is told the version has expired and must list again.
+ */
+class ResumedWatch extends WebSocketListener implements IWatcher {
+
+	static final int GONE = 410;
+
+	/**
+	 * Receives the events of a resumed watch. {@link #connected(java.util.List)}
+	 * is not called, as there is no initial LIST.
+	 */
+	interface Listener extends IOpenShiftWatchListener {
+
+		void resumed();
+
+		void expired();
+
+	}
+
+	private final IResourceFactory factory;
+	private final Listener listener;
+	private final WebSocket socket;
+
+	ResumedWatch(IClient client, String kind, String namespace, String resourceVersion, Listener listener) {
+		this.factory = client.getResourceFactory();
+		this.listener = listener;
+		URL url = new URLBuilder(client.getBaseURL(), client.adapt(IApiTypeMapper.class))
+				.kind(kind)
+				.namespace(namespace)
+				.watch()
+				.addParmeter("resourceVersion", resourceVersion)
+				.build();
+		Request request = new Request.Builder()
+				.url(url)
+				.header(IHttpConstants.PROPERTY_AUTHORIZATION, IHttpConstants.AUTHORIZATION_BEARER + " " + client.getAuthorizationContext().getToken())
+				.header(IHttpConstants.PROPERTY_ORIGIN, client.getBaseURL().toString())
+				.build();
+		this.socket = client.adapt(OkHttpClient.class).newWebSocket(request, this);
+	}
+
+	@Override
+	public void stop() {
+		socket.close(IHttpConstants.STATUS_NORMAL_STOP, "Watch stopped");
+	}
+
+	@Override
+	public void onOpen(WebSocket webSocket, Response response) {
+		listener.resumed();
+	}
+
+	@Override
+	public void onMessage(WebSocket webSocket, String text) {
+		ModelNode event = ModelNode.fromJSONString(text);
+		String type = event.get("type").asString();
+		if ("ERROR".equals(type)) {
+			if (event.get("object", "code").asInt() == GONE) {
+				listener.expired();
+			} else {
+				listener.error(new OpenShiftException("Watch error %s", event.get("object").toJSONString(true)));
+			}
+			return;
+		}
+		listener.received(factory.create(event.get("object").toJSONString(true)), new IOpenShiftWatchListener.ChangeType(type));
+	}
+
+	@Override
+	public void onClosing(WebSocket webSocket, int code, String reason) {
+		webSocket.close(code, reason);
+		listener.disconnected();
+	}
+
+	@Override
+	public void onFailure(WebSocket webSocket, Throwable err, Response response) {
+		if (response != null && response.code() == GONE) {
+			listener.expired();
+		} else {
+			listener.error(err);
+		}
+	}
+
+}
@@ -1,28 +1,27 @@
 package com.estafet.boostcd.openshift;
 
-import java.io.IOException;
-import java.io.StringReader;
-
 import com.openshift.restclient.model.IService;
 
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 
 public class ServiceParser {
 
+    private static final JsonPathExtractor EXTRACTOR = new JsonPathExtractor("spec.clusterIP");
+
+    static final JsonPathExtractor LIST_EXTRACTOR = JsonPathExtractor.forListItems("spec.clusterIP");
+
     private final JSONObject jo;
     
     public ServiceParser(IService service) {
-        this(service.toJson());
+        this.jo = EXTRACTOR.extract(service);
     }
 
     public ServiceParser(String json) {
-		try {
-			this.jo = (JSONObject) new JSONParser().parse(new StringReader(json));
-		} catch (IOException | ParseException e) {
-			throw new RuntimeException(e);
-		}        
+		this.jo = EXTRACTOR.extract(json);
+    }
+
+    ServiceParser(JSONObject jo) {
+        this.jo = jo;
     }
 
     public String clusterIP() {
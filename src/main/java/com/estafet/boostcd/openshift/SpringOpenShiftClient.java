@@ -0,0 +1,23 @@
+package com.estafet.boostcd.openshift;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.opentracing.Tracer;
+
+/**
+ * Spring configuration exposing an {@link OpenShiftClient} bean built from the
+ * {@code OPENSHIFT_*} environment settings. The tracer is passed to the
+ * builder when the context has one, and the client is started and closed with
+ * the context.
+ */
+@Configuration
+public class SpringOpenShiftClient {
+
+	@Bean(initMethod = "start", destroyMethod = "close")
+	public OpenShiftClient openShiftClient(ObjectProvider<Tracer> tracer) {
+		return OpenShiftClient.builder().withTracer(tracer.getIfAvailable()).build();
+	}
+
+}
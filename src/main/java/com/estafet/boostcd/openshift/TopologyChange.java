@@ -0,0 +1,63 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * What changed for one app in one namespace between two projections of a
+ * product. {@link #getPrevious()} is null for an added app and
+ * {@link #getCurrent()} is null for a removed one.
+ */
+public final class TopologyChange {
+
+	public enum Type {
+		ADDED, REMOVED, VERSION_CHANGED, IMAGE_CHANGED, READINESS_CHANGED, REDEPLOYED
+	}
+
+	private final String productId;
+	private final AppTopology previous;
+	private final AppTopology current;
+	private final Set<Type> types;
+
+	TopologyChange(String productId, AppTopology previous, AppTopology current, EnumSet<Type> types) {
+		this.productId = productId;
+		this.previous = previous;
+		this.current = current;
+		this.types = Collections.unmodifiableSet(types);
+	}
+
+	public String getProductId() {
+		return productId;
+	}
+
+	public String getNamespace() {
+		return (current == null ? previous : current).getNamespace();
+	}
+
+	public String getApp() {
+		return (current == null ? previous : current).getApp();
+	}
+
+	public AppTopology getPrevious() {
+		return previous;
+	}
+
+	public AppTopology getCurrent() {
+		return current;
+	}
+
+	public Set<Type> getTypes() {
+		return types;
+	}
+
+	public boolean is(Type type) {
+		return types.contains(type);
+	}
+
+	@Override
+	public String toString() {
+		return productId + " " + getNamespace() + "/" + getApp() + " " + types;
+	}
+
+}
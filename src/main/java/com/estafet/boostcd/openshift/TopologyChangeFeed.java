@@ -0,0 +1,165 @@
+package com.estafet.boostcd.openshift;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the last published projection of every product and hands subscribers
+ * only the apps that changed since then. Namespaces that could not be read in
+ * full keep their previous apps, so a failed LIST is not reported as every app
+ * being removed. When the caller knows which apps changed, for example from
+ * watch events, only those apps are compared.
+ */
+public class TopologyChangeFeed {
+
+	private static final Logger log = LoggerFactory.getLogger(TopologyChangeFeed.class);
+
+	private final Map<String, Map<String, Map<String, AppTopology>>> last = new ConcurrentHashMap<String, Map<String, Map<String, AppTopology>>>();
+	private final List<Consumer<TopologyChange>> subscribers = new CopyOnWriteArrayList<Consumer<TopologyChange>>();
+
+	public void subscribe(Consumer<TopologyChange> subscriber) {
+		subscribers.add(subscriber);
+	}
+
+	public void unsubscribe(Consumer<TopologyChange> subscriber) {
+		subscribers.remove(subscriber);
+	}
+
+	public boolean isPublished(String productId) {
+		return last.containsKey(productId);
+	}
+
+	public List<TopologyChange> publish(ProductTopology topology) {
+		return publish(topology, null);
+	}
+
+	/**
+	 * Publishes the changes to the given apps, keyed by namespace; every other
+	 * app of a namespace that was published before is assumed unchanged.
+	 * Namespaces that have not been published before are compared in full.
+	 */
+	public List<TopologyChange> publish(ProductTopology topology, Map<String, Set<String>> touched) {
+		List<TopologyChange> changes = new ArrayList<TopologyChange>();
+		synchronized (this) {
+			Map<String, Map<String, AppTopology>> previous = last.get(topology.getProductId());
+			if (previous == null) {
+				previous = Collections.emptyMap();
+			}
+			Map<String, Map<String, AppTopology>> current = new HashMap<String, Map<String, AppTopology>>();
+			for (String namespace : topology.getNamespaces()) {
+				Map<String, AppTopology> before = previous.get(namespace);
+				if (!topology.isComplete(namespace)) {
+					if (before != null) {
+						current.put(namespace, before);
+					}
+					continue;
+				}
+				Map<String, AppTopology> after = topology.getApps(namespace);
+				if (touched != null && before != null) {
+					current.put(namespace, merge(topology.getProductId(), before, after, touched.get(namespace), changes));
+					continue;
+				}
+				diff(topology.getProductId(), before == null ? Collections.<String, AppTopology>emptyMap() : before, after, changes);
+				current.put(namespace, after);
+			}
+			for (Map.Entry<String, Map<String, AppTopology>> entry : previous.entrySet()) {
+				if (topology.getNamespaces().contains(entry.getKey())) {
+					continue;
+				}
+				if (!topology.isComplete(entry.getKey())) {
+					current.put(entry.getKey(), entry.getValue());
+				} else {
+					diff(topology.getProductId(), entry.getValue(), Collections.<String, AppTopology>emptyMap(), changes);
+				}
+			}
+			last.put(topology.getProductId(), current);
+		}
+		for (TopologyChange change : changes) {
+			for (Consumer<TopologyChange> subscriber : subscribers) {
+				try {
+					subscriber.accept(change);
+				} catch (RuntimeException e) {
+					log.warn("subscriber failed to handle " + change, e);
+				}
+			}
+		}
+		return changes;
+	}
+
+	public void forget(String productId) {
+		last.remove(productId);
+	}
+
+	private static Map<String, AppTopology> merge(String productId, Map<String, AppTopology> before, Map<String, AppTopology> after,
+			Set<String> apps, List<TopologyChange> changes) {
+		if (apps == null || apps.isEmpty()) {
+			return before;
+		}
+		Map<String, AppTopology> merged = new HashMap<String, AppTopology>(before);
+		Map<String, AppTopology> was = new HashMap<String, AppTopology>();
+		Map<String, AppTopology> now = new HashMap<String, AppTopology>();
+		for (String app : apps) {
+			AppTopology previous = before.get(app);
+			AppTopology current = after.get(app);
+			if (previous != null) {
+				was.put(app, previous);
+			}
+			if (current != null) {
+				now.put(app, current);
+				merged.put(app, current);
+			} else {
+				merged.remove(app);
+			}
+		}
+		diff(productId, was, now, changes);
+		return merged;
+	}
+
+	private static void diff(String productId, Map<String, AppTopology> before, Map<String, AppTopology> after, List<TopologyChange> changes) {
+		for (AppTopology current : after.values()) {
+			AppTopology previous = before.get(current.getApp());
+			if (previous == current) {
+				continue;
+			}
+			EnumSet<TopologyChange.Type> types = EnumSet.noneOf(TopologyChange.Type.class);
+			if (previous == null) {
+				types.add(TopologyChange.Type.ADDED);
+			} else {
+				if (!Objects.equals(previous.getVersion(), current.getVersion())) {
+					types.add(TopologyChange.Type.VERSION_CHANGED);
+				}
+				if (!Objects.equals(previous.getImageSha(), current.getImageSha())) {
+					types.add(TopologyChange.Type.IMAGE_CHANGED);
+				}
+				if (!Objects.equals(previous.getReadinessPath(), current.getReadinessPath())
+						|| !Objects.equals(previous.getReadinessPort(), current.getReadinessPort())) {
+					types.add(TopologyChange.Type.READINESS_CHANGED);
+				}
+				if (!Objects.equals(previous.getDeployedDate(), current.getDeployedDate())) {
+					types.add(TopologyChange.Type.REDEPLOYED);
+				}
+			}
+			if (!types.isEmpty()) {
+				changes.add(new TopologyChange(productId, previous, current, types));
+			}
+		}
+		for (AppTopology previous : before.values()) {
+			if (!after.containsKey(previous.getApp())) {
+				changes.add(new TopologyChange(productId, previous, null, EnumSet.of(TopologyChange.Type.REMOVED)));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.restclient.OpenShiftException;
+import com.openshift.restclient.model.IBuild;
+
+public class BuildCursorTest {
+
+	private static final String BUILDS = "/oapi/v1/namespaces/shop-cicd/builds";
+
+	private FakeOpenShiftServer server;
+	private OpenShiftClient client;
+
+	@Before
+	public void start() throws Exception {
+		server = new FakeOpenShiftServer();
+		server.put(BUILDS, "basket-1", build("basket-1", "Complete", "2020-03-01T09:00:00Z"));
+		server.put(BUILDS, "basket-2", build("basket-2", "Failed", "2020-03-02T09:00:00Z"));
+		server.put(BUILDS, "basket-3", build("basket-3", "Complete", "2020-03-03T09:00:00Z"));
+		server.put(BUILDS, "basket-4", build("basket-4", "Cancelled", "2020-03-04T09:00:00Z"));
+		server.put(BUILDS, "basket-5", build("basket-5", "Running", "2020-03-05T09:00:00Z"));
+		client = OpenShiftClient.builder().withCluster(server.config("test")).build();
+	}
+
+	@After
+	public void stop() throws Exception {
+		client.close();
+		server.close();
+	}
+
+	@Test
+	public void fetchesEachPageOnlyWhenTheLastIsConsumed() {
+		BuildCursor cursor = client.listBuilds(new BuildQuery("shop-cicd").pageSize(2));
+		assertEquals(0, server.getLists(BUILDS));
+		List<String> names = new ArrayList<String>();
+		names.add(cursor.next().getName());
+		names.add(cursor.next().getName());
+		assertEquals(1, server.getLists(BUILDS));
+		assertNotNull(cursor.getResourceVersion());
+		cursor.forEachRemaining(build -> names.add(build.getName()));
+		assertEquals(Arrays.asList("basket-1", "basket-2", "basket-3", "basket-4", "basket-5"), names);
+		assertEquals(3, server.getLists(BUILDS));
+	}
+
+	@Test
+	public void filtersPhasesAndCreationTimeAcrossPages() {
+		BuildQuery query = new BuildQuery("shop-cicd").pageSize(2)
+				.withPhase("Complete", "Failed")
+				.createdAfter(Instant.parse("2020-03-01T12:00:00Z"));
+		assertEquals(Arrays.asList("basket-2", "basket-3"), names(query));
+	}
+
+	@Test
+	public void returnsOnlyBuildsChangedSinceAPreviousListing() {
+		BuildCursor cursor = client.listBuilds(new BuildQuery("shop-cicd"));
+		cursor.forEachRemaining(build -> { });
+		server.put(BUILDS, "basket-5", build("basket-5", "Complete", "2020-03-05T09:00:00Z"));
+		server.put(BUILDS, "basket-6", build("basket-6", "Running", "2020-03-06T09:00:00Z"));
+		assertEquals(Arrays.asList("basket-5", "basket-6"), names(new BuildQuery("shop-cicd").changedSince(cursor.getResourceVersion())));
+	}
+
+	@Test
+	public void throwsAFailedPageFromHasNext() {
+		BuildCursor cursor = client.listBuilds(new BuildQuery("shop-cicd").pageSize(2));
+		cursor.next();
+		cursor.next();
+		server.fail(BUILDS, 403);
+		try {
+			cursor.hasNext();
+			fail("expected HTTP 403");
+		} catch (OpenShiftException e) {
+			assertEquals(403, e.getStatus().getCode());
+		}
+		assertEquals(1, server.getLists(BUILDS));
+	}
+
+	private List<String> names(BuildQuery query) {
+		return client.streamBuilds(query).map(IBuild::getName).collect(Collectors.toList());
+	}
+
+	private static String build(String name, String phase, String created) {
+		return "{\"kind\":\"Build\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + name + "\",\"namespace\":\"shop-cicd\","
+				+ "\"creationTimestamp\":\"" + created + "\",\"resourceVersion\":\"?\",\"labels\":{\"app\":\"basket\"}},"
+				+ "\"spec\":{\"strategy\":{\"type\":\"Docker\"}},\"status\":{\"phase\":\"" + phase + "\"}}";
+	}
+
+}
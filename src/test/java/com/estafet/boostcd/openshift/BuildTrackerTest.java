@@ -0,0 +1,95 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.restclient.ResourceKind;
+import com.openshift.restclient.model.IBuild;
+
+public class BuildTrackerTest {
+
+	private static final String BUILDS = "/oapi/v1/namespaces/dev/builds";
+
+	private FakeOpenShiftServer server;
+	private OpenShiftSession session;
+	private BuildTracker tracker;
+
+	@Before
+	public void start() throws Exception {
+		server = new FakeOpenShiftServer();
+		session = new OpenShiftSession(server.getUrl(), "developer", "developer");
+		tracker = new BuildTracker(session);
+	}
+
+	@After
+	public void stop() throws Exception {
+		tracker.close();
+		server.close();
+	}
+
+	@Test
+	public void closesTheWatchWhenIdleAndReopensItWithoutAList() throws Exception {
+		PipelineExecution first = tracker.track("pipeline", build("pipeline-1", "Running"));
+		awaitWatching();
+		server.emit("MODIFIED", BUILDS, "pipeline-1", json("pipeline-1", "Complete"));
+		assertEquals(BuildResult.COMPLETE, first.await(10, TimeUnit.SECONDS).getPhase());
+		await(() -> server.getWatches(BUILDS) == 0);
+		assertEquals(0, tracker.getOpenWatches());
+
+		PipelineExecution second = tracker.track("pipeline", build("pipeline-2", "Running"));
+		awaitWatching();
+		server.emit("MODIFIED", BUILDS, "pipeline-2", json("pipeline-2", "Failed"));
+		assertEquals(BuildResult.FAILED, second.await(10, TimeUnit.SECONDS).getPhase());
+		assertEquals(0, server.getLists(BUILDS));
+		assertEquals(0, tracker.getOutstanding());
+	}
+
+	@Test
+	public void replaysTransitionsSinceTheTrackedVersion() throws Exception {
+		IBuild running = build("pipeline-1", "Running");
+		server.emit("MODIFIED", BUILDS, "pipeline-1", json("pipeline-1", "Complete"));
+		PipelineExecution execution = tracker.track("pipeline", running);
+		assertEquals(BuildResult.COMPLETE, execution.await(10, TimeUnit.SECONDS).getPhase());
+		assertEquals(0, server.getLists(BUILDS));
+	}
+
+	@Test
+	public void listsTheBuildsWhenTheTrackedVersionHasExpired() throws Exception {
+		IBuild running = build("pipeline-1", "Running");
+		server.emit("MODIFIED", BUILDS, "pipeline-1", json("pipeline-1", "Cancelled"));
+		server.compact();
+		PipelineExecution execution = tracker.track("pipeline", running);
+		assertEquals(BuildResult.CANCELLED, execution.await(10, TimeUnit.SECONDS).getPhase());
+		assertEquals(1, server.getLists(BUILDS));
+	}
+
+	private IBuild build(String name, String phase) {
+		server.put(BUILDS, name, json(name, phase));
+		return session.execute(client -> client.get(ResourceKind.BUILD, name, "dev"));
+	}
+
+	private void awaitWatching() throws InterruptedException {
+		await(() -> server.getWatches(BUILDS) == 1);
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!condition.getAsBoolean()) {
+			assertTrue("timed out", System.currentTimeMillis() < deadline);
+			Thread.sleep(50);
+		}
+	}
+
+	private static String json(String name, String phase) {
+		return "{\"kind\":\"Build\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + name + "\",\"namespace\":\"dev\","
+				+ "\"resourceVersion\":\"?\"},\"spec\":{\"strategy\":{\"type\":\"JenkinsPipeline\"}},\"status\":{\"phase\":\"" + phase + "\"}}";
+	}
+
+}
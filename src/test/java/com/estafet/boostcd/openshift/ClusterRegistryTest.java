@@ -0,0 +1,70 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ClusterRegistryTest {
+
+	private ClusterRegistry registry;
+	private Cluster east;
+	private Cluster west;
+	private Cluster dr;
+
+	@Before
+	public void start() {
+		registry = new ClusterRegistry(config("default"));
+		east = registry.register(config("east"));
+		west = registry.register(config("west"));
+		dr = registry.register(config("dr"));
+		registry.assignProduct("shop", "east")
+				.assignProduct("shop-admin", "west")
+				.assignNamespace("shop-prod", "dr");
+	}
+
+	@After
+	public void stop() {
+		registry.close();
+	}
+
+	@Test
+	public void routesANamespaceToTheLongestMatchingProduct() {
+		assertSame(east, registry.forNamespace("shop-test"));
+		assertSame(west, registry.forNamespace("shop-admin-test"));
+		assertSame(east, registry.forNamespace("shop-administration"));
+	}
+
+	@Test
+	public void prefersAnExplicitNamespaceAssignment() {
+		assertSame(dr, registry.forNamespace("shop-prod"));
+		assertSame(east, registry.forProduct("shop"));
+	}
+
+	@Test
+	public void sendsUnknownNamespacesToTheDefaultCluster() {
+		assertSame(registry.getDefault(), registry.forNamespace("shopping-test"));
+		assertSame(registry.getDefault(), registry.forNamespace("shop"));
+		assertSame(registry.getDefault(), registry.forProduct("blog"));
+	}
+
+	@Test
+	public void listsTheProductClusterFirst() {
+		assertEquals(Arrays.asList(east, dr), registry.clustersForProduct("shop"));
+		assertEquals(Arrays.asList(west), registry.clustersForProduct("shop-admin"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsAnAssignmentToAnUnknownCluster() {
+		registry.assignProduct("blog", "north");
+	}
+
+	private static ClusterConfig config(String name) {
+		return new ClusterConfig(name, "https://" + name + ".example.com:8443", "developer", "developer");
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.openshift.restclient.ResourceKind;
+import com.openshift.restclient.model.IDeploymentConfig;
+
+public class DeploymentConfigParserTest {
+
+	private static final String DEPLOYMENT_CONFIGS = "/oapi/v1/namespaces/dev/deploymentconfigs";
+
+	@Test
+	public void readsTheTagOfTheImageChangeTrigger() {
+		assertEquals("1.2.0", new DeploymentConfigParser(json("basket", "7", "basket:1.2.0")).getVersion());
+		assertEquals("1.2.0", new DeploymentConfigParser(json("basket", "7", "registry:5000/dev/basket:1.2.0")).getVersion());
+	}
+
+	@Test
+	public void keepsTheReferenceOfAnImagePinnedByDigest() {
+		DeploymentVersion version = new DeploymentConfigParser(json("basket", "7", "basket@sha256:0f3c")).getDeploymentVersion();
+		assertEquals("basket@sha256:0f3c", version.getVersion());
+		assertEquals("sha256:0f3c", version.getDigest());
+		assertTrue(version.isResolved());
+	}
+
+	@Test
+	public void reportsAnImageWithoutTagOrDigest() {
+		DeploymentVersion version = new DeploymentConfigParser(json("basket", "7", "basket")).getDeploymentVersion();
+		assertNull(version.getVersion());
+		assertFalse(version.isResolved());
+		assertEquals(DeploymentVersion.Problem.NO_TAG, version.getProblem());
+	}
+
+	@Test
+	public void doesNotServeTheVersionOfARecreatedDeploymentConfig() throws Exception {
+		try (FakeOpenShiftServer server = new FakeOpenShiftServer()) {
+			OpenShiftSession session = new OpenShiftSession(server.getUrl(), "developer", "developer");
+			server.put(DEPLOYMENT_CONFIGS, "basket", json("basket", "7", "basket:1.0.0").replace("\"name\":\"basket\",", "\"name\":\"basket\",\"uid\":\"a\","));
+			IDeploymentConfig original = session.execute(client -> client.get(ResourceKind.DEPLOYMENT_CONFIG, "basket", "dev"));
+			assertEquals("1.0.0", DeploymentConfigParser.versionOf(original).getVersion());
+			server.put(DEPLOYMENT_CONFIGS, "basket", json("basket", "7", "basket:2.0.0").replace("\"name\":\"basket\",", "\"name\":\"basket\",\"uid\":\"b\","));
+			IDeploymentConfig recreated = session.execute(client -> client.get(ResourceKind.DEPLOYMENT_CONFIG, "basket", "dev"));
+			assertEquals("2.0.0", DeploymentConfigParser.versionOf(recreated).getVersion());
+			assertEquals("1.0.0", DeploymentConfigParser.versionOf(original).getVersion());
+		}
+	}
+
+	static String json(String name, String resourceVersion, String image) {
+		return "{\"kind\":\"DeploymentConfig\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + name + "\",\"namespace\":\"dev\","
+				+ "\"resourceVersion\":\"" + resourceVersion + "\",\"labels\":{\"product\":\"shop\"}},"
+				+ "\"spec\":{\"triggers\":[{\"type\":\"ConfigChange\"},{\"type\":\"ImageChange\",\"imageChangeParams\":{\"from\":"
+				+ "{\"kind\":\"ImageStreamTag\",\"name\":\"" + image + "\"}}}],"
+				+ "\"template\":{\"spec\":{\"containers\":[{\"name\":\"" + name + "\"}]}}}}";
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EndpointResolverTest {
+
+	private static final String PROJECTS = "/oapi/v1/projects";
+	private static final String SERVICES = "/api/v1/namespaces/shop-dev/services";
+	private static final String ROUTES = "/oapi/v1/namespaces/shop-dev/routes";
+	private static final String PROD_ROUTES = "/oapi/v1/namespaces/shop-prod/routes";
+
+	private FakeOpenShiftServer server;
+	private OpenShiftClient client;
+	private EndpointResolver resolver;
+
+	@Before
+	public void start() throws Exception {
+		server = new FakeOpenShiftServer();
+		server.put(PROJECTS, "shop-dev", "{\"kind\":\"Project\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"shop-dev\","
+				+ "\"resourceVersion\":\"?\",\"labels\":{\"product\":\"shop\",\"stage\":\"true\"}}}");
+		server.put(SERVICES, "basket", service("basket", "172.30.0.1"));
+		server.put(ROUTES, "basket", "{\"kind\":\"Route\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"basket\",\"namespace\":\"shop-dev\","
+				+ "\"resourceVersion\":\"?\",\"labels\":{\"product\":\"shop\"}},"
+				+ "\"spec\":{\"host\":\"basket.example.com\",\"to\":{\"kind\":\"Service\",\"name\":\"basket\"}}}");
+		client = OpenShiftClient.builder().withCluster(server.config("test")).withEndpointRefresh(200, TimeUnit.MILLISECONDS).build();
+		resolver = client.getEndpointResolver();
+	}
+
+	@After
+	public void stop() throws Exception {
+		client.close();
+		server.close();
+	}
+
+	@Test
+	public void cachesTheStagesOfAProduct() {
+		assertEquals("172.30.0.1", resolver.resolveAcrossStages("shop", "basket").get("shop-dev").getClusterIP());
+		int lists = server.getLists(PROJECTS);
+		resolver.resolveAcrossStages("shop", "basket");
+		resolver.resolveAcrossStages("shop", "basket");
+		assertEquals(lists, server.getLists(PROJECTS));
+	}
+
+	@Test
+	public void servesTheExpiredIndexWhileItRefreshes() throws Exception {
+		assertEquals("172.30.0.1", resolver.resolve("shop", "shop-dev", "basket").getClusterIP());
+		server.put(SERVICES, "basket", service("basket", "172.30.0.2"));
+		Thread.sleep(300);
+		server.setDelay(1000);
+		long start = System.currentTimeMillis();
+		assertEquals("172.30.0.1", resolver.resolve("shop", "shop-dev", "basket").getClusterIP());
+		assertEquals("172.30.0.1", resolver.resolve("shop", "shop-dev", "basket").getClusterIP());
+		assertTrue(System.currentTimeMillis() - start < 500);
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!"172.30.0.2".equals(resolver.resolve("shop", "shop-dev", "basket").getClusterIP())) {
+			assertTrue("timed out", System.currentTimeMillis() < deadline);
+			Thread.sleep(50);
+		}
+		assertEquals(2, server.getLists(SERVICES));
+	}
+
+	@Test
+	public void selectsTlsRoutesThenTheShortestPathThenTheName() {
+		server.put(ROUTES, "a-plain", route("shop-dev", "a-plain", "/", null));
+		server.put(ROUTES, "z-tls", route("shop-dev", "z-tls", "/long/path", "edge"));
+		server.put(ROUTES, "m-tls", route("shop-dev", "m-tls", "/x", "reencrypt"));
+		server.put(ROUTES, "b-tls", route("shop-dev", "b-tls", "/x", "edge"));
+		Endpoint endpoint = resolver.resolve("shop", "shop-dev", "basket");
+		assertEquals("b-tls", endpoint.getRoute());
+		assertEquals("edge", endpoint.getTlsTermination());
+		assertEquals(Arrays.asList("https://b-tls.example.com/x", "https://m-tls.example.com/x",
+				"https://z-tls.example.com/long/path", "http://basket.example.com", "http://a-plain.example.com/"),
+				endpoint.getUrls());
+		assertEquals("b-tls", resolver.route("shop", "shop-dev").getName());
+	}
+
+	@Test
+	public void servesTheProductRouteFromTheIndex() {
+		server.put(PROD_ROUTES, "basket", route("shop-prod", "basket", null, null));
+		server.put(PROD_ROUTES, "basket-tls", route("shop-prod", "basket-tls", "/", "passthrough"));
+		assertEquals("basket-tls", client.getRoute("shop").getName());
+		assertEquals("basket-tls", client.getRoute("shop").getName());
+		assertEquals(1, server.getLists(PROD_ROUTES));
+	}
+
+	private static String route(String namespace, String name, String path, String termination) {
+		return "{\"kind\":\"Route\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + name + "\",\"namespace\":\"" + namespace
+				+ "\",\"resourceVersion\":\"?\",\"labels\":{\"product\":\"shop\"}},\"spec\":{\"host\":\"" + name + ".example.com\","
+				+ (path == null ? "" : "\"path\":\"" + path + "\",")
+				+ (termination == null ? "" : "\"tls\":{\"termination\":\"" + termination + "\"},")
+				+ "\"to\":{\"kind\":\"Service\",\"name\":\"basket\"}}}";
+	}
+
+	private static String service(String name, String clusterIP) {
+		return "{\"kind\":\"Service\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + name + "\",\"namespace\":\"shop-dev\","
+				+ "\"resourceVersion\":\"?\",\"labels\":{\"product\":\"shop\",\"app\":\"" + name + "\"}},"
+				+ "\"spec\":{\"clusterIP\":\"" + clusterIP + "\",\"ports\":[{\"port\":8080,\"targetPort\":8080}]}}";
+	}
+
+}
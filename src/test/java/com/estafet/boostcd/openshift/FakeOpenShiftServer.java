@@ -0,0 +1,464 @@
+package com.estafet.boostcd.openshift;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+
+/**
+ * In-process stand-in for the OpenShift API server: the OAuth challenge flow,
+ * API discovery, LIST and GET of the resources it has been given, starting
+ * builds from a BuildConfig, and WATCH over a web socket. The restclient
+ * always watches over {@code wss}, so the server runs with a self-signed
+ * certificate, and speaks HTTP/1.1 so that
+ * delayed responses do not hold up others multiplexed on one connection.
+ * Failures can be injected for the next requests to exercise retries and the
+ * circuit breaker.
+ */
+class FakeOpenShiftServer implements AutoCloseable {
+
+	private static final Pattern INSTANTIATE = Pattern.compile("^/oapi/v1/namespaces/([^/]+)/buildconfigs/([^/]+)/instantiate$");
+	private static final Pattern RESOURCE = Pattern.compile("^(/(?:api|oapi)/v1)(?:/namespaces/([^/]+))?/([a-z]+)(?:/([^/?]+))?(?:\\?(.*))?$");
+
+	private static final String[] CORE_RESOURCES = { "services" };
+	private static final String[] OPENSHIFT_RESOURCES = { "deploymentconfigs", "buildconfigs", "buildconfigs/instantiate", "builds", "imagestreams", "routes", "projects" };
+
+	static {
+		Logger.getLogger(MockWebServer.class.getName()).setLevel(Level.WARNING);
+	}
+
+	private final MockWebServer server = new MockWebServer();
+	private final Map<String, Map<String, String>> collections = new ConcurrentHashMap<String, Map<String, String>>();
+	private final Map<String, List<WebSocket>> watches = new ConcurrentHashMap<String, List<WebSocket>>();
+	private final Map<String, AtomicInteger> lists = new ConcurrentHashMap<String, AtomicInteger>();
+	private final Map<String, AtomicLong> listBytes = new ConcurrentHashMap<String, AtomicLong>();
+	private final Map<String, Integer> failing = new ConcurrentHashMap<String, Integer>();
+	private final Map<String, Long> delays = new ConcurrentHashMap<String, Long>();
+	private final Map<String, AtomicInteger> instantiations = new ConcurrentHashMap<String, AtomicInteger>();
+	private final AtomicLong resourceVersion = new AtomicLong(100);
+	private final List<String[]> history = new CopyOnWriteArrayList<String[]>();
+	private volatile long compactedVersion;
+	private final AtomicInteger failures = new AtomicInteger();
+	private final AtomicInteger logins = new AtomicInteger();
+	private volatile int failureCode = 500;
+	private volatile long delayMillis;
+	private volatile boolean watchable = true;
+
+	FakeOpenShiftServer() throws IOException {
+		HeldCertificate certificate = new HeldCertificate.Builder()
+				.addSubjectAlternativeName(InetAddress.getByName("localhost").getCanonicalHostName())
+				.build();
+		server.useHttps(new HandshakeCertificates.Builder().heldCertificate(certificate).build().sslSocketFactory(), false);
+		server.setProtocols(Collections.singletonList(Protocol.HTTP_1_1));
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				return FakeOpenShiftServer.this.dispatch(request);
+			}
+		});
+		server.start();
+	}
+
+	String getUrl() {
+		return "https://" + server.getHostName() + ":" + server.getPort();
+	}
+
+	ClusterConfig config(String name) {
+		return new ClusterConfig(name, getUrl(), "developer", "developer");
+	}
+
+	/**
+	 * Adds or replaces a namespaced resource, e.g.
+	 * {@code put("/api/v1/namespaces/dev/services", json)}, without notifying
+	 * watches.
+	 */
+	String put(String collection, String name, String json) {
+		String version = Long.toString(resourceVersion.incrementAndGet());
+		String stored = json.replace("\"resourceVersion\":\"?\"", "\"resourceVersion\":\"" + version + "\"");
+		collections.computeIfAbsent(collection, key -> new ConcurrentHashMap<String, String>()).put(name, stored);
+		return stored;
+	}
+
+	void remove(String collection, String name) {
+		Map<String, String> items = collections.get(collection);
+		if (items != null) {
+			items.remove(name);
+		}
+	}
+
+	/**
+	 * Applies the change and sends it to every open watch on the collection.
+	 * A delete is sent with the next resourceVersion, as the API server does.
+	 */
+	void emit(String type, String collection, String name, String json) {
+		String stored;
+		if ("DELETED".equals(type)) {
+			remove(collection, name);
+			stored = json.replace("\"resourceVersion\":\"?\"", "\"resourceVersion\":\"" + resourceVersion.incrementAndGet() + "\"");
+		} else {
+			stored = put(collection, name, json);
+		}
+		String event = "{\"type\":\"" + type + "\",\"object\":" + stored + "}";
+		history.add(new String[] { Long.toString(resourceVersion.get()), collection, event });
+		for (WebSocket socket : watches.getOrDefault(collection, new CopyOnWriteArrayList<WebSocket>())) {
+			socket.send(event);
+		}
+	}
+
+	/**
+	 * Forgets the events emitted so far, so a watch from an earlier
+	 * resourceVersion gets a 410 Gone error event.
+	 */
+	void compact() {
+		history.clear();
+		compactedVersion = resourceVersion.get();
+	}
+
+	int getWatches(String collection) {
+		return watches.getOrDefault(collection, new CopyOnWriteArrayList<WebSocket>()).size();
+	}
+
+	int getLists(String collection) {
+		AtomicInteger count = lists.get(collection);
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * Characters of LIST response body sent for the collection.
+	 */
+	long getListBytes(String collection) {
+		AtomicLong count = listBytes.get(collection);
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * Builds started from the BuildConfig, e.g.
+	 * {@code getInstantiations("dev", "pipeline")}.
+	 */
+	int getInstantiations(String namespace, String buildConfig) {
+		AtomicInteger count = instantiations.get(namespace + "/" + buildConfig);
+		return count == null ? 0 : count.get();
+	}
+
+	int getLogins() {
+		return logins.get();
+	}
+
+	int getRequestCount() {
+		return server.getRequestCount();
+	}
+
+	void setWatchable(boolean watchable) {
+		this.watchable = watchable;
+	}
+
+	/**
+	 * Holds back every resource response by {@code millis}. The body is
+	 * taken before the wait, so a LIST can be older than the watch events
+	 * sent meanwhile.
+	 */
+	void setDelay(long millis) {
+		this.delayMillis = millis;
+	}
+
+	void setDelay(String collection, long millis) {
+		delays.put(collection, millis);
+	}
+
+	/**
+	 * Answers the next {@code count} resource requests with {@code code}.
+	 */
+	void fail(int count, int code) {
+		this.failureCode = code;
+		failures.set(count);
+	}
+
+	/**
+	 * Answers every request for the collection with {@code code}.
+	 */
+	void fail(String collection, int code) {
+		failing.put(collection, code);
+	}
+
+	@Override
+	public void close() throws IOException {
+		server.shutdown();
+	}
+
+	private MockResponse dispatch(RecordedRequest request) {
+		String path = request.getPath();
+		if (path.startsWith("/.well-known/oauth-authorization-server")) {
+			return json("{\"issuer\":\"" + getUrl() + "\",\"authorization_endpoint\":\"" + getUrl() + "/oauth/authorize\","
+					+ "\"token_endpoint\":\"" + getUrl() + "/oauth/token\"}");
+		}
+		if (path.startsWith("/oauth/authorize")) {
+			logins.incrementAndGet();
+			return new MockResponse().setResponseCode(302)
+					.setHeader("Location", getUrl() + "/oauth/token/implicit#access_token=token-" + logins.get() + "&expires_in=86400&token_type=Bearer");
+		}
+		if (path.equals("/version")) {
+			return json("{\"major\":\"1\",\"minor\":\"11\",\"gitVersion\":\"v1.11.0\"}");
+		}
+		if (path.equals("/api") || path.equals("/oapi")) {
+			return json("{\"kind\":\"APIVersions\",\"versions\":[\"v1\"]}");
+		}
+		if (path.equals("/apis")) {
+			return json("{\"kind\":\"APIGroupList\",\"groups\":[]}");
+		}
+		if (path.equals("/api/v1")) {
+			return json(resourceList(CORE_RESOURCES));
+		}
+		if (path.equals("/oapi/v1")) {
+			return json(resourceList(OPENSHIFT_RESOURCES));
+		}
+		Matcher instantiate = INSTANTIATE.matcher(path);
+		if (instantiate.matches() && "POST".equals(request.getMethod())) {
+			return instantiate(instantiate.group(1), instantiate.group(2));
+		}
+		Matcher matcher = RESOURCE.matcher(path);
+		if (!matcher.matches()) {
+			return status(404, "NotFound");
+		}
+		if (failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+			return status(failureCode, "InternalError");
+		}
+		String collection = matcher.group(1) + (matcher.group(2) == null ? "" : "/namespaces/" + matcher.group(2)) + "/" + matcher.group(3);
+		if (failing.containsKey(collection)) {
+			return status(failing.get(collection), "InternalError");
+		}
+		String name = matcher.group(4);
+		String query = matcher.group(5) == null ? "" : matcher.group(5);
+		if (query.contains("watch=true")) {
+			return watch(collection, parameter(query, "resourceVersion", null));
+		}
+		Map<String, String> items = collections.getOrDefault(collection, new ConcurrentHashMap<String, String>());
+		if (name != null) {
+			String item = items.get(name);
+			return delayed(collection, item == null ? status(404, "NotFound") : json(item));
+		}
+		lists.computeIfAbsent(collection, key -> new AtomicInteger()).incrementAndGet();
+		List<String> selected = new ArrayList<String>();
+		for (String item : new TreeMap<String, String>(items).values()) {
+			if (selected(item, query)) {
+				selected.add(item);
+			}
+		}
+		int offset = Integer.parseInt(parameter(query, "continue", "0"));
+		int end = Math.min(selected.size(), offset + Integer.parseInt(parameter(query, "limit", String.valueOf(selected.size()))));
+		StringBuilder body = new StringBuilder("{\"kind\":\"").append(kind(matcher.group(3))).append("List\",\"apiVersion\":\"v1\",\"metadata\":{\"resourceVersion\":\"")
+				.append(resourceVersion.get()).append("\"");
+		if (end < selected.size()) {
+			body.append(",\"continue\":\"").append(end).append("\"");
+		}
+		body.append("},\"items\":[");
+		String separator = "";
+		for (String item : selected.subList(offset, end)) {
+			body.append(separator).append(item);
+			separator = ",";
+		}
+		body.append("]}");
+		listBytes.computeIfAbsent(collection, key -> new AtomicLong()).addAndGet(body.length());
+		return delayed(collection, json(body.toString()));
+	}
+
+	/**
+	 * Starts a new build of the BuildConfig, stored in the namespace's builds
+	 * as {@code <buildConfig>-<n>} in phase New.
+	 */
+	private MockResponse instantiate(String namespace, String buildConfig) {
+		int number = instantiations.computeIfAbsent(namespace + "/" + buildConfig, key -> new AtomicInteger()).incrementAndGet();
+		String name = buildConfig + "-" + number;
+		String build = put("/oapi/v1/namespaces/" + namespace + "/builds", name,
+				"{\"kind\":\"Build\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + name + "\",\"namespace\":\"" + namespace + "\","
+						+ "\"resourceVersion\":\"?\",\"labels\":{\"buildconfig\":\"" + buildConfig + "\"}},"
+						+ "\"spec\":{\"strategy\":{\"type\":\"JenkinsPipeline\"}},\"status\":{\"phase\":\"New\"}}");
+		return json(build).setResponseCode(201);
+	}
+
+	/**
+	 * Opens a watch that first replays the events emitted on the collection
+	 * after {@code from}, as the API server does for a watch with a
+	 * resourceVersion.
+	 */
+	private MockResponse watch(String collection, String from) {
+		if (!watchable) {
+			return status(503, "ServiceUnavailable");
+		}
+		return new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+			@Override
+			public void onOpen(WebSocket socket, Response response) {
+				long version = from == null || from.isEmpty() ? Long.MAX_VALUE : Long.parseLong(from);
+				if (version < compactedVersion) {
+					socket.send("{\"type\":\"ERROR\",\"object\":{\"kind\":\"Status\",\"apiVersion\":\"v1\",\"status\":\"Failure\","
+							+ "\"reason\":\"Expired\",\"code\":410}}");
+					socket.close(1000, "Expired");
+					return;
+				}
+				for (String[] event : history) {
+					if (event[1].equals(collection) && Long.parseLong(event[0]) > version) {
+						socket.send(event[2]);
+					}
+				}
+				watches.computeIfAbsent(collection, key -> new CopyOnWriteArrayList<WebSocket>()).add(socket);
+			}
+
+			@Override
+			public void onClosing(WebSocket socket, int code, String reason) {
+				watches.getOrDefault(collection, new CopyOnWriteArrayList<WebSocket>()).remove(socket);
+				socket.close(code, reason);
+			}
+
+			@Override
+			public void onFailure(WebSocket socket, Throwable err, Response response) {
+				watches.getOrDefault(collection, new CopyOnWriteArrayList<WebSocket>()).remove(socket);
+			}
+		});
+	}
+
+	private MockResponse delayed(String collection, MockResponse response) {
+		long millis = delays.getOrDefault(collection, delayMillis);
+		return millis > 0 ? response.setHeadersDelay(millis, TimeUnit.MILLISECONDS) : response;
+	}
+
+	/**
+	 * Applies {@code key=value} and {@code key in (a,b)} label selectors and
+	 * a {@code metadata.name} field selector.
+	 */
+	private static boolean selected(String item, String query) {
+		for (String parameter : query.split("&")) {
+			if (parameter.startsWith("labelSelector=")) {
+				for (String requirement : requirements(decode(parameter.substring("labelSelector=".length())))) {
+					if (!matches(item, requirement)) {
+						return false;
+					}
+				}
+			}
+			if (parameter.startsWith("fieldSelector=")) {
+				String selector = decode(parameter.substring("fieldSelector=".length()));
+				if (selector.startsWith("metadata.name=")
+						&& !item.contains("\"metadata\":{\"name\":\"" + selector.substring("metadata.name=".length()) + "\"")) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads a query parameter; {@code limit} and {@code continue} page a LIST,
+	 * the continue token being the offset of the next item in name order.
+	 */
+	private static String parameter(String query, String name, String defaultValue) {
+		for (String parameter : query.split("&")) {
+			if (parameter.startsWith(name + "=")) {
+				return decode(parameter.substring(name.length() + 1));
+			}
+		}
+		return defaultValue;
+	}
+
+	private static List<String> requirements(String selector) {
+		List<String> result = new ArrayList<String>();
+		int depth = 0;
+		int start = 0;
+		for (int i = 0; i < selector.length(); i++) {
+			char c = selector.charAt(i);
+			depth += c == '(' ? 1 : c == ')' ? -1 : 0;
+			if (c == ',' && depth == 0) {
+				result.add(selector.substring(start, i).trim());
+				start = i + 1;
+			}
+		}
+		result.add(selector.substring(start).trim());
+		return result;
+	}
+
+	private static boolean matches(String item, String requirement) {
+		int in = requirement.indexOf(" in (");
+		if (in > 0) {
+			String key = requirement.substring(0, in).trim();
+			for (String value : requirement.substring(in + 5, requirement.lastIndexOf(')')).split(",")) {
+				if (item.contains("\"" + key + "\":\"" + value.trim() + "\"")) {
+					return true;
+				}
+			}
+			return false;
+		}
+		String[] pair = requirement.split("=", 2);
+		return pair.length != 2 || item.contains("\"" + pair[0] + "\":\"" + pair[1] + "\"");
+	}
+
+	private static String decode(String value) {
+		try {
+			return URLDecoder.decode(value, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String resourceList(String[] names) {
+		StringBuilder resources = new StringBuilder();
+		for (String name : names) {
+			resources.append(resources.length() == 0 ? "" : ",")
+					.append("{\"name\":\"").append(name).append("\",\"namespaced\":").append(!"projects".equals(name))
+					.append(",\"kind\":\"").append(kind(name)).append("\",\"verbs\":[\"get\",\"list\",\"watch\"]}");
+		}
+		return "{\"kind\":\"APIResourceList\",\"groupVersion\":\"v1\",\"resources\":[" + resources + "]}";
+	}
+
+	private static String kind(String plural) {
+		switch (plural) {
+		case "services":
+			return "Service";
+		case "deploymentconfigs":
+			return "DeploymentConfig";
+		case "buildconfigs":
+			return "BuildConfig";
+		case "buildconfigs/instantiate":
+			return "BuildRequest";
+		case "builds":
+			return "Build";
+		case "imagestreams":
+			return "ImageStream";
+		case "routes":
+			return "Route";
+		default:
+			return "Project";
+		}
+	}
+
+	private static MockResponse json(String body) {
+		return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+	}
+
+	private static MockResponse status(int code, String reason) {
+		return json("{\"kind\":\"Status\",\"apiVersion\":\"v1\",\"status\":\"Failure\",\"reason\":\"" + reason + "\",\"code\":" + code + "}")
+				.setResponseCode(code);
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import com.openshift.restclient.ResourceKind;
+import com.openshift.restclient.model.IResource;
+
+public class JsonPathExtractorTest {
+
+	private static final String IMAGE_STREAM = "{\"kind\":\"ImageStream\",\"apiVersion\":\"v1\","
+			+ "\"metadata\":{\"name\":\"basket\",\"namespace\":\"dev\",\"resourceVersion\":\"7\",\"labels\":{\"app\":\"basket\"}},"
+			+ "\"spec\":{\"lookupPolicy\":{\"local\":false}},"
+			+ "\"status\":{\"dockerImageRepository\":\"registry:5000/dev/basket\",\"tags\":["
+			+ "{\"tag\":\"1.0.0\",\"items\":[{\"image\":\"sha256:a1\",\"generation\":1},{\"image\":\"sha256:a0\",\"generation\":0}]},"
+			+ "{\"tag\":\"1.1.0\",\"items\":[{\"image\":\"sha256:b1\",\"generation\":2}]}]}}";
+
+	@Test
+	public void pullsSeveralPathsInOnePass() {
+		JSONObject result = new JsonPathExtractor("metadata.name", "metadata.labels", "status.dockerImageRepository").extract(IMAGE_STREAM);
+		JSONObject metadata = (JSONObject) result.get("metadata");
+		assertEquals("basket", metadata.get("name"));
+		assertEquals("basket", ((JSONObject) metadata.get("labels")).get("app"));
+		assertFalse(metadata.containsKey("namespace"));
+		assertFalse(result.containsKey("spec"));
+		assertEquals("registry:5000/dev/basket", ((JSONObject) result.get("status")).get("dockerImageRepository"));
+	}
+
+	@Test
+	public void selectsEveryOrOneArrayElement() {
+		JSONObject result = new JsonPathExtractor("status.tags[*].tag", "status.tags[*].items[0].image").extract(IMAGE_STREAM);
+		JSONArray tags = (JSONArray) ((JSONObject) result.get("status")).get("tags");
+		assertEquals(2, tags.size());
+		assertEquals("1.0.0", ((JSONObject) tags.get(0)).get("tag"));
+		JSONArray items = (JSONArray) ((JSONObject) tags.get(0)).get("items");
+		assertEquals(1, items.size());
+		assertEquals("sha256:a1", ((JSONObject) items.get(0)).get("image"));
+		assertFalse(((JSONObject) items.get(0)).containsKey("generation"));
+		assertEquals("sha256:b1", ((JSONObject) ((JSONArray) ((JSONObject) tags.get(1)).get("items")).get(0)).get("image"));
+	}
+
+	@Test
+	public void pullsThePathsOutOfEachListItem() {
+		String list = "{\"kind\":\"ImageStreamList\",\"metadata\":{\"resourceVersion\":\"9\"},\"items\":["
+				+ IMAGE_STREAM + "," + IMAGE_STREAM.replace("\"name\":\"basket\"", "\"name\":\"orders\"") + "]}";
+		List<JSONObject> items = JsonPathExtractor.forListItems("status.dockerImageRepository").extractItems(list);
+		assertEquals(2, items.size());
+		assertEquals("orders", ((JSONObject) items.get(1).get("metadata")).get("name"));
+		assertEquals("registry:5000/dev/basket", ((JSONObject) items.get(1).get("status")).get("dockerImageRepository"));
+		assertNull(items.get(1).get("spec"));
+	}
+
+	@Test
+	public void leavesOutMissingFields() {
+		JSONObject result = new JsonPathExtractor("spec.source.git.uri", "status.tags[5].tag", "metadata.name.first").extract(IMAGE_STREAM);
+		assertTrue(result.isEmpty());
+		assertTrue(JsonPathExtractor.forListItems("status.phase").extractItems("{\"kind\":\"BuildList\",\"items\":[]}").isEmpty());
+	}
+
+	@Test
+	public void stopsReadingOnceEveryPathHasBeenSeen() {
+		String truncated = "{\"metadata\":{\"name\":\"basket\",\"namespace\":\"dev\"},\"spec\":{\"this is not json";
+		JSONObject result = new JsonPathExtractor("metadata.name").extract(truncated);
+		assertEquals("basket", ((JSONObject) result.get("metadata")).get("name"));
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void readsOnWhilstAWildcardCanStillMatch() {
+		new JsonPathExtractor("status.tags[*].tag").extract("{\"status\":{\"tags\":[{\"tag\":\"1.0.0\"},{\"tag\":");
+	}
+
+	@Test
+	public void walksAParsedResourceLikeItsJson() throws Exception {
+		try (FakeOpenShiftServer server = new FakeOpenShiftServer()) {
+			OpenShiftSession session = new OpenShiftSession(server.getUrl(), "developer", "developer");
+			server.put("/oapi/v1/namespaces/dev/imagestreams", "basket", IMAGE_STREAM);
+			IResource resource = session.execute(client -> client.get(ResourceKind.IMAGE_STREAM, "basket", "dev"));
+			for (List<String> paths : Arrays.asList(
+					Arrays.asList("metadata.name", "metadata.labels", "status.dockerImageRepository"),
+					Arrays.asList("status.tags[*].tag", "status.tags[*].items[0].image"),
+					Arrays.asList("spec.source.git.uri", "status.tags[1].items[*].generation"))) {
+				JsonPathExtractor extractor = new JsonPathExtractor(paths.toArray(new String[paths.size()]));
+				assertEquals(extractor.extract(resource.toJson()), extractor.extract(resource));
+			}
+		}
+	}
+
+}
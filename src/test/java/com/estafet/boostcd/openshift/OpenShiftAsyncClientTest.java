@@ -0,0 +1,215 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.restclient.model.IProject;
+
+import io.opentracing.ActiveSpan;
+import io.opentracing.Tracer;
+
+public class OpenShiftAsyncClientTest {
+
+	private static final String PROJECTS = "/oapi/v1/projects";
+
+	private final FakeTracer tracer = new FakeTracer();
+
+	private FakeOpenShiftServer server;
+	private OpenShiftClient client;
+	private ExecutorService executor;
+	private CountDownLatch blocked;
+
+	@Before
+	public void start() throws Exception {
+		server = new FakeOpenShiftServer();
+		server.put(PROJECTS, "shop-dev", "{\"kind\":\"Project\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"shop-dev\","
+				+ "\"resourceVersion\":\"?\",\"labels\":{\"product\":\"shop\",\"stage\":\"true\"}}}");
+		client = OpenShiftClient.builder().withCluster(server.config("test")).withTracer(tracer.proxy).build();
+		executor = Executors.newSingleThreadExecutor();
+		blocked = new CountDownLatch(1);
+	}
+
+	@After
+	public void stop() throws Exception {
+		blocked.countDown();
+		executor.shutdownNow();
+		client.close();
+		server.close();
+	}
+
+	@Test
+	public void continuesTheCallersSpanOnTheWorkerThread() throws Exception {
+		try (OpenShiftAsyncClient async = new OpenShiftAsyncClient(client, executor, 0, TimeUnit.MILLISECONDS)) {
+			tracer.activate(tracer.parent);
+			try {
+				assertTrue(async.getProjects("shop").get(10, TimeUnit.SECONDS).containsKey("shop-dev"));
+			} finally {
+				tracer.deactivate();
+			}
+		}
+		assertSame(tracer.parent, tracer.started.get("getProjects"));
+		assertEquals(1, tracer.captures.get());
+		assertEquals(1, tracer.activations.get());
+	}
+
+	@Test
+	public void releasesTheContinuationOfACallCancelledBeforeItRan() throws Exception {
+		executor.execute(this::block);
+		try (OpenShiftAsyncClient async = new OpenShiftAsyncClient(client, executor, 0, TimeUnit.MILLISECONDS)) {
+			tracer.activate(tracer.parent);
+			CompletableFuture<Map<String, IProject>> projects;
+			try {
+				projects = async.getProjects("shop");
+			} finally {
+				tracer.deactivate();
+			}
+			assertTrue(projects.cancel(true));
+			blocked.countDown();
+			executor.submit(() -> null).get(10, TimeUnit.SECONDS);
+		}
+		assertEquals(1, tracer.captures.get());
+		assertEquals(1, tracer.activations.get());
+		assertFalse(tracer.started.containsKey("getProjects"));
+	}
+
+	@Test
+	public void failsTheQueuedCallsWhenItClosesItsOwnExecutor() throws Exception {
+		executor.execute(this::block);
+		OpenShiftAsyncClient async = new OpenShiftAsyncClient(client, executor, true, 0, TimeUnit.MILLISECONDS);
+		CompletableFuture<Map<String, IProject>> queued = async.getProjects("shop");
+		async.close();
+		assertTrue(executor.isShutdown());
+		assertRejected(queued);
+		assertRejected(async.getProjects("shop"));
+		assertEquals(0, server.getLists(PROJECTS));
+	}
+
+	@Test
+	public void leavesABorrowedExecutorRunning() throws Exception {
+		executor.execute(this::block);
+		OpenShiftAsyncClient async = new OpenShiftAsyncClient(client, executor, 0, TimeUnit.MILLISECONDS);
+		CompletableFuture<Map<String, IProject>> queued = async.getProjects("shop");
+		async.close();
+		assertFalse(executor.isShutdown());
+		assertRejected(async.getProjects("shop"));
+		blocked.countDown();
+		assertTrue(queued.get(10, TimeUnit.SECONDS).containsKey("shop-dev"));
+	}
+
+	private void block() {
+		try {
+			blocked.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void assertRejected(CompletableFuture<?> future) throws Exception {
+		try {
+			future.get(10, TimeUnit.SECONDS);
+			fail("expected the call to be rejected");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof RejectedExecutionException);
+		}
+	}
+
+	/**
+	 * Records the span that was active on the thread where each client span
+	 * started, and counts captured and activated continuations.
+	 */
+	private static final class FakeTracer {
+
+		private final ThreadLocal<ActiveSpan> active = new ThreadLocal<ActiveSpan>();
+		private final Map<String, Object> started = new ConcurrentHashMap<String, Object>();
+		private final AtomicInteger captures = new AtomicInteger();
+		private final AtomicInteger activations = new AtomicInteger();
+		private final ActiveSpan parent = proxy(ActiveSpan.class, (method, args) -> {
+			switch (method) {
+			case "capture":
+				captures.incrementAndGet();
+				return proxy(ActiveSpan.Continuation.class, (continuationMethod, continuationArgs) -> {
+					activations.incrementAndGet();
+					ActiveSpan previous = active.get();
+					activate(this.parent);
+					return proxy(ActiveSpan.class, (activeMethod, activeArgs) -> {
+						if ("deactivate".equals(activeMethod) || "close".equals(activeMethod)) {
+							active.set(previous);
+						}
+						return null;
+					});
+				});
+			default:
+				return null;
+			}
+		});
+		private final Tracer proxy = proxy(Tracer.class, (method, args) -> {
+			switch (method) {
+			case "activeSpan":
+				return active.get();
+			case "buildSpan":
+				return builder((String) args[0]);
+			default:
+				return null;
+			}
+		});
+
+		void activate(ActiveSpan span) {
+			active.set(span);
+		}
+
+		void deactivate() {
+			active.remove();
+		}
+
+		private Tracer.SpanBuilder builder(String operation) {
+			Tracer.SpanBuilder[] builder = new Tracer.SpanBuilder[1];
+			builder[0] = proxy(Tracer.SpanBuilder.class, (method, args) -> {
+				if ("start".equals(method)) {
+					ActiveSpan current = active.get();
+					started.put(operation, current == null ? "none" : current);
+					return proxy(io.opentracing.Span.class, (spanMethod, spanArgs) -> null);
+				}
+				return builder[0];
+			});
+			return builder[0];
+		}
+
+	}
+
+	private interface Handler {
+
+		Object invoke(String method, Object[] args);
+
+	}
+
+	private static <T> T proxy(Class<T> type, Handler handler) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (target, method, args) -> {
+			if (method.getDeclaringClass() == Object.class) {
+				return "equals".equals(method.getName()) ? target == args[0]
+						: "hashCode".equals(method.getName()) ? System.identityHashCode(target) : type.getSimpleName();
+			}
+			Object result = handler.invoke(method.getName(), args);
+			return result == null && method.getReturnType().isInstance(target) ? target : result;
+		}));
+	}
+
+}
@@ -0,0 +1,208 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.restclient.ResourceKind;
+import com.openshift.restclient.model.IBuildConfig;
+
+public class OpenShiftClientTest {
+
+	private static final String PROJECTS = "/oapi/v1/projects";
+
+	private FakeOpenShiftServer server;
+	private OpenShiftClient client;
+
+	@Before
+	public void start() throws Exception {
+		server = new FakeOpenShiftServer();
+		server.put(PROJECTS, "shop-test", project("shop-test", "shop", true));
+		server.put(PROJECTS, "shop-uat", project("shop-uat", "shop", false));
+		for (String namespace : Arrays.asList("shop-test", "shop-uat")) {
+			server.put(deploymentConfigs(namespace), "basket", deploymentConfig(namespace, "basket", "1.0.0"));
+			server.put(services(namespace), "basket", service(namespace, "basket", "172.30.0.1"));
+			server.put(imageStreams(namespace), "basket", imageStream(namespace, "basket", "1.0.0", "sha256:b1"));
+		}
+		client = OpenShiftClient.builder().withCluster(server.config("test")).build();
+	}
+
+	@After
+	public void stop() throws Exception {
+		client.close();
+		server.close();
+	}
+
+	@Test
+	public void snapshotsEveryStageNamespaceOfTheProduct() {
+		EnvironmentSnapshot snapshot = client.getEnvironmentSnapshot("shop");
+		assertTrue(snapshot.isComplete());
+		assertEquals(set("shop-test", "shop-uat"), snapshot.getNamespaces().keySet());
+		assertEquals(set("basket"), snapshot.getNamespace("shop-uat").getDeploymentConfigs().keySet());
+		assertEquals(set("basket"), snapshot.getNamespace("shop-uat").getServices().keySet());
+		assertEquals(set("basket"), snapshot.getNamespace("shop-uat").getImageStreams().keySet());
+	}
+
+	@Test
+	public void reportsAFailedCallAndKeepsTheRestOfTheSnapshot() {
+		server.fail(services("shop-uat"), 403);
+		EnvironmentSnapshot snapshot = client.getEnvironmentSnapshot("shop");
+		assertEquals(set("shop-uat/" + ResourceKind.SERVICE), snapshot.getFailures().keySet());
+		assertTrue(snapshot.getNamespace("shop-uat").getServices().isEmpty());
+		assertEquals(set("basket"), snapshot.getNamespace("shop-uat").getDeploymentConfigs().keySet());
+		assertEquals(set("basket"), snapshot.getNamespace("shop-test").getServices().keySet());
+	}
+
+	@Test
+	public void sharesOneDeadlineAcrossTheFanOut() {
+		client.getEnvironmentSnapshot("shop");
+		for (String namespace : Arrays.asList("shop-test", "shop-uat")) {
+			server.setDelay(deploymentConfigs(namespace), 5000);
+			server.setDelay(imageStreams(namespace), 5000);
+		}
+		long start = System.currentTimeMillis();
+		EnvironmentSnapshot snapshot = client.getEnvironmentSnapshot("shop", 1000, TimeUnit.MILLISECONDS);
+		assertTrue(System.currentTimeMillis() - start < 2500);
+		assertEquals(set("shop-test/" + ResourceKind.DEPLOYMENT_CONFIG, "shop-uat/" + ResourceKind.DEPLOYMENT_CONFIG,
+				"shop-test/" + ResourceKind.IMAGE_STREAM, "shop-uat/" + ResourceKind.IMAGE_STREAM), snapshot.getFailures().keySet());
+		assertTrue(snapshot.getFailures().get("shop-uat/" + ResourceKind.IMAGE_STREAM) instanceof TimeoutException);
+		assertEquals(set("basket"), snapshot.getNamespace("shop-uat").getServices().keySet());
+	}
+
+	@Test
+	public void projectsEachAppDownToTheFieldsCallersRead() {
+		server.put(buildConfigs("shop-build"), "basket", buildConfig("basket", "https://git.example.com/basket.git"));
+		ProductTopology topology = client.getProductTopology("shop");
+		assertTrue(topology.isComplete());
+		assertEquals(set("shop-test", "shop-uat"), topology.getNamespaces());
+		AppTopology basket = topology.getApp("shop-uat", "basket");
+		assertEquals("1.0.0", basket.getVersion());
+		assertEquals("2020-03-02T10:16:05Z", basket.getDeployedDate());
+		assertEquals("8080", basket.getReadinessPort());
+		assertEquals("/basket/health", basket.getReadinessPath());
+		assertEquals("172.30.0.1", basket.getClusterIP());
+		assertEquals("sha256:b1", basket.getImageSha());
+		assertEquals("https://git.example.com/basket.git", basket.getGitUri());
+	}
+
+	@Test
+	public void keepsTheAppsWhenTheBuildConfigsCannotBeRead() {
+		server.fail(buildConfigs("shop-build"), 403);
+		ProductTopology topology = client.getProductTopology("shop");
+		assertEquals(set("shop-build/" + ResourceKind.BUILD_CONFIG), topology.getFailures());
+		assertTrue(topology.isComplete("shop-uat"));
+		assertEquals("1.0.0", topology.getApp("shop-uat", "basket").getVersion());
+		assertNull(topology.getApp("shop-uat", "basket").getGitUri());
+	}
+
+	@Test
+	public void splitsOneProjectListAcrossTheRequestedProducts() {
+		server.put(PROJECTS, "cart-test", project("cart-test", "cart", true));
+		server.put(PROJECTS, "blog-test", project("blog-test", "blog", true));
+		ProjectCatalog catalog = client.getProjects(Arrays.asList("shop", "cart", "docs"));
+		assertEquals(1, server.getLists(PROJECTS));
+		assertEquals(set("shop", "cart", "docs"), catalog.getProductIds());
+		assertEquals(set("shop-test", "shop-uat"), catalog.getProjects("shop").keySet());
+		assertEquals(set("cart-test"), catalog.getProjects("cart").keySet());
+		assertTrue(catalog.getProjects("docs").isEmpty());
+		assertTrue(catalog.getProjects("blog").isEmpty());
+		assertTrue(catalog.isEnvironmentTestPassed("shop-test"));
+		assertFalse(catalog.isEnvironmentTestPassed("shop-uat"));
+		assertFalse(catalog.isEnvironmentTestPassed("blog-test"));
+	}
+
+	@Test
+	public void summarisesTheDeploymentConfigFieldsOfEachApp() {
+		server.put(deploymentConfigs("shop-uat"), "orders", deploymentConfig("shop-uat", "orders", "2.0.0"));
+		Map<String, AppTopology> summaries = client.getDeploymentConfigSummaries("shop", "shop-uat");
+		assertEquals(set("basket", "orders"), summaries.keySet());
+		AppTopology basket = summaries.get("basket");
+		assertEquals("basket", basket.getApp());
+		assertEquals("shop-uat", basket.getNamespace());
+		assertEquals("1.0.0", basket.getVersion());
+		assertEquals("2020-03-02T10:16:05Z", basket.getDeployedDate());
+		assertEquals("/basket/health", basket.getReadinessPath());
+		assertNull(basket.getClusterIP());
+		assertEquals(set("orders"), client.getDeploymentConfigSummaries("shop", "shop-uat", "metadata.name=orders").keySet());
+	}
+
+	@Test
+	public void givesEachCallerOfACoalescedListItsOwnList() {
+		server.put(buildConfigs("shop-build"), "basket", buildConfig("basket", "https://git.example.com/basket.git"));
+		client.setCoalescingWindow(1, TimeUnit.MINUTES);
+		List<IBuildConfig> first = client.getBuildConfigs("shop");
+		first.clear();
+		List<IBuildConfig> second = client.getBuildConfigs("shop");
+		assertEquals(1, server.getLists(buildConfigs("shop-build")));
+		assertEquals(1, second.size());
+		assertEquals("basket", second.get(0).getName());
+	}
+
+	static Set<String> set(String... values) {
+		return new HashSet<String>(Arrays.asList(values));
+	}
+
+	static String deploymentConfigs(String namespace) {
+		return "/oapi/v1/namespaces/" + namespace + "/deploymentconfigs";
+	}
+
+	static String services(String namespace) {
+		return "/api/v1/namespaces/" + namespace + "/services";
+	}
+
+	static String imageStreams(String namespace) {
+		return "/oapi/v1/namespaces/" + namespace + "/imagestreams";
+	}
+
+	static String buildConfigs(String namespace) {
+		return "/oapi/v1/namespaces/" + namespace + "/buildconfigs";
+	}
+
+	static String project(String name, String product, boolean testPassed) {
+		return "{\"kind\":\"Project\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + name + "\",\"resourceVersion\":\"?\","
+				+ "\"labels\":{\"product\":\"" + product + "\",\"stage\":\"true\",\"test-passed\":\"" + testPassed + "\"}}}";
+	}
+
+	static String deploymentConfig(String namespace, String app, String version) {
+		return "{\"kind\":\"DeploymentConfig\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + app + "\",\"namespace\":\"" + namespace
+				+ "\",\"resourceVersion\":\"?\",\"labels\":{\"product\":\"shop\",\"app\":\"" + app + "\"}},"
+				+ "\"spec\":{\"triggers\":[{\"type\":\"ImageChange\",\"imageChangeParams\":{\"from\":"
+				+ "{\"kind\":\"ImageStreamTag\",\"name\":\"" + app + ":" + version + "\"}}}],"
+				+ "\"template\":{\"spec\":{\"containers\":[{\"name\":\"" + app + "\","
+				+ "\"readinessProbe\":{\"httpGet\":{\"path\":\"/" + app + "/health\",\"port\":8080}}}]}}},"
+				+ "\"status\":{\"conditions\":[{\"type\":\"Progressing\",\"lastUpdateTime\":\"2020-03-02T10:16:05Z\"}]}}";
+	}
+
+	static String service(String namespace, String app, String clusterIP) {
+		return "{\"kind\":\"Service\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + app + "\",\"namespace\":\"" + namespace
+				+ "\",\"resourceVersion\":\"?\",\"labels\":{\"product\":\"shop\",\"app\":\"" + app + "\"}},"
+				+ "\"spec\":{\"clusterIP\":\"" + clusterIP + "\",\"ports\":[{\"port\":8080,\"targetPort\":8080}]}}";
+	}
+
+	static String buildConfig(String app, String gitUri) {
+		return "{\"kind\":\"BuildConfig\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + app + "\",\"namespace\":\"shop-build\","
+				+ "\"resourceVersion\":\"?\",\"labels\":{\"product\":\"shop\",\"app\":\"" + app + "\"}},"
+				+ "\"spec\":{\"source\":{\"type\":\"Git\",\"git\":{\"uri\":\"" + gitUri + "\"}}}}";
+	}
+
+	static String imageStream(String namespace, String app, String tag, String image) {
+		return "{\"kind\":\"ImageStream\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + app + "\",\"namespace\":\"" + namespace
+				+ "\",\"resourceVersion\":\"?\",\"labels\":{\"product\":\"shop\",\"app\":\"" + app + "\"}},"
+				+ "\"status\":{\"tags\":[{\"tag\":\"" + tag + "\",\"items\":[{\"image\":\"" + image + "\"}]}]}}";
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.restclient.IClient;
+import com.openshift.restclient.ResourceKind;
+
+import okhttp3.OkHttpClient;
+
+public class OpenShiftSessionTest {
+
+	private FakeOpenShiftServer server;
+	private OpenShiftSession session;
+
+	@Before
+	public void start() throws Exception {
+		server = new FakeOpenShiftServer();
+		server.put("/api/v1/namespaces/dev/services", "basket", ResourceWatchCacheTest.service("basket", "shop"));
+		session = new OpenShiftSession(server.getUrl(), "developer", "developer");
+	}
+
+	@After
+	public void stop() throws Exception {
+		session.close();
+		server.close();
+	}
+
+	@Test
+	public void closeReleasesTheDispatcherAndPooledConnections() {
+		IClient client = session.getClient();
+		session.execute(current -> current.list(ResourceKind.SERVICE, "dev"));
+		OkHttpClient http = client.adapt(OkHttpClient.class);
+		assertTrue(http.connectionPool().connectionCount() > 0);
+		session.close();
+		assertTrue(http.dispatcher().executorService().isShutdown());
+		assertEquals(0, http.connectionPool().connectionCount());
+	}
+
+	@Test
+	public void logsInAgainAfterClose() {
+		IClient client = session.getClient();
+		session.close();
+		assertNotSame(client, session.getClient());
+		assertEquals(2, session.getLogins());
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.restclient.OpenShiftException;
+
+public class PipelineTriggerSchedulerTest {
+
+	private static final String BUILD_CONFIGS = "/oapi/v1/namespaces/shop-cicd/buildconfigs";
+
+	private FakeOpenShiftServer server;
+	private OpenShiftClient client;
+	private PipelineTriggerScheduler scheduler;
+
+	@Before
+	public void start() throws Exception {
+		server = new FakeOpenShiftServer();
+		server.put(BUILD_CONFIGS, "release", pipeline("release"));
+		server.put(BUILD_CONFIGS, "promote", pipeline("promote"));
+		client = OpenShiftClient.builder().withCluster(server.config("test")).build();
+	}
+
+	@After
+	public void stop() throws Exception {
+		if (scheduler != null) {
+			scheduler.close();
+		}
+		client.close();
+		server.close();
+	}
+
+	@Test
+	public void mergesIdenticalTriggersThatAreStillWaiting() throws Exception {
+		scheduler = new PipelineTriggerScheduler(client, 100, 10);
+		server.setDelay(BUILD_CONFIGS, 500);
+		CompletableFuture<PipelineExecution> first = scheduler.schedule(trigger("release", "basket"));
+		CompletableFuture<PipelineExecution> second = scheduler.schedule(trigger("release", "basket"));
+		CompletableFuture<PipelineExecution> other = scheduler.schedule(trigger("release", "orders"));
+		assertSame(first, second);
+		first.get(10, TimeUnit.SECONDS);
+		other.get(10, TimeUnit.SECONDS);
+		assertEquals(1, scheduler.getMerged());
+		assertEquals(2, scheduler.getTriggered());
+		assertEquals(2, server.getInstantiations("shop-cicd", "release"));
+	}
+
+	@Test
+	public void releasesAWaveAtTheConfiguredRate() throws Exception {
+		scheduler = new PipelineTriggerScheduler(client, 5, 2);
+		long start = System.currentTimeMillis();
+		awaitAll(wave("release", 6));
+		assertTrue(System.currentTimeMillis() - start >= 700);
+		assertEquals(6, server.getInstantiations("shop-cicd", "release"));
+	}
+
+	@Test
+	public void listsThePipelinesOnceAcrossThrottledCyclesAndWaves() throws Exception {
+		scheduler = new PipelineTriggerScheduler(client, 20, 1);
+		awaitAll(wave("release", 4));
+		awaitAll(wave("promote", 4));
+		assertEquals(1, server.getLists(BUILD_CONFIGS));
+	}
+
+	@Test
+	public void listsAgainOnlyForAPipelineItDoesNotKnow() throws Exception {
+		scheduler = new PipelineTriggerScheduler(client, 100, 10);
+		awaitAll(wave("release", 1));
+		server.put(BUILD_CONFIGS, "test", pipeline("test"));
+		awaitAll(wave("test", 1));
+		assertEquals(2, server.getLists(BUILD_CONFIGS));
+		try {
+			scheduler.schedule(trigger("missing", "basket")).get(10, TimeUnit.SECONDS);
+			fail("expected an unknown pipeline to fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof OpenShiftException);
+		}
+		assertEquals(3, server.getLists(BUILD_CONFIGS));
+		assertEquals(1, scheduler.getFailed());
+	}
+
+	private List<CompletableFuture<PipelineExecution>> wave(String pipeline, int size) {
+		List<CompletableFuture<PipelineExecution>> futures = new ArrayList<CompletableFuture<PipelineExecution>>();
+		for (int i = 0; i < size; i++) {
+			futures.add(scheduler.schedule(trigger(pipeline, "app-" + i)));
+		}
+		return futures;
+	}
+
+	private static void awaitAll(List<CompletableFuture<PipelineExecution>> futures) throws Exception {
+		CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).get(10, TimeUnit.SECONDS);
+	}
+
+	private static PipelineTrigger trigger(String pipeline, String app) {
+		return new PipelineTrigger("shop-cicd", pipeline, Collections.singletonMap("APP", app));
+	}
+
+	private static String pipeline(String name) {
+		return "{\"kind\":\"BuildConfig\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + name + "\",\"namespace\":\"shop-cicd\","
+				+ "\"resourceVersion\":\"?\"},\"spec\":{\"source\":{\"type\":\"Git\",\"git\":{\"uri\":\"https://git.example.com/shop.git\"}},"
+				+ "\"strategy\":{\"type\":\"JenkinsPipeline\",\"jenkinsPipelineStrategy\":{\"jenkinsfilePath\":\"" + name + ".groovy\"}}}}";
+	}
+
+}
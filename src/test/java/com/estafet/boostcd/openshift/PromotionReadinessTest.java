@@ -0,0 +1,76 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class PromotionReadinessTest {
+
+	private final PromotionReadiness readiness = PromotionReadiness.evaluate(topology(
+			app("shop-test", "basket", "1.2"), app("shop-uat", "basket", "1.1"), app("shop-prod", "basket", "1.0"),
+			app("shop-test", "orders", "2.0"), app("shop-uat", "orders", "2.0"), app("shop-prod", "orders", "1.9"),
+			app("shop-test", "stock", "3.0")),
+			Arrays.asList("test", "uat", "prod"), Collections.singleton("shop-test"));
+
+	@Test
+	public void promotesTestedVersionsThatDifferFromTheNextEnvironment() {
+		assertEquals(Arrays.asList("basket", "stock"), readiness.getPromotable("test"));
+		assertTrue(readiness.isPromotable("stock", "test"));
+		assertFalse(readiness.isPromotable("orders", "test"));
+	}
+
+	@Test
+	public void holdsBackEnvironmentsWhoseTestsHaveNotPassed() {
+		assertFalse(readiness.isTestPassed("uat"));
+		assertTrue(readiness.getPromotable("uat").isEmpty());
+		assertEquals(Arrays.asList("basket", "orders"), readiness.getGaps("uat"));
+	}
+
+	@Test
+	public void reportsGapsOnlyForDeployedApps() {
+		assertEquals(Arrays.asList("basket", "stock"), readiness.getGaps("test"));
+		assertFalse(readiness.getGaps("uat").contains("stock"));
+		assertNull(readiness.getVersion("stock", "uat"));
+	}
+
+	@Test
+	public void stopsAtTheLastEnvironment() {
+		assertNull(readiness.getNext("prod"));
+		assertEquals("prod", readiness.getNext("uat"));
+		assertTrue(readiness.getPromotable("prod").isEmpty());
+		assertTrue(readiness.getGaps("prod").isEmpty());
+	}
+
+	@Test
+	public void listsEachVersionInPromotionOrder() {
+		Map<String, String> versions = readiness.getVersions("basket");
+		assertEquals(Arrays.asList("test", "uat", "prod"), Arrays.asList(versions.keySet().toArray()));
+		assertEquals(Arrays.asList("1.2", "1.1", "1.0"), Arrays.asList(versions.values().toArray()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsAnUnknownEnvironment() {
+		readiness.getPromotable("staging");
+	}
+
+	private static ProductTopology topology(AppTopology... apps) {
+		Map<String, Map<String, AppTopology>> namespaces = new HashMap<String, Map<String, AppTopology>>();
+		for (AppTopology app : apps) {
+			namespaces.computeIfAbsent(app.getNamespace(), key -> new HashMap<String, AppTopology>()).put(app.getApp(), app);
+		}
+		return new ProductTopology("shop", namespaces, Collections.<String>emptySet());
+	}
+
+	private static AppTopology app(String namespace, String name, String version) {
+		return new AppTopology(name, namespace, version, "2020-01-01", "8080", "/health", "172.30.0.1", null, null);
+	}
+
+}
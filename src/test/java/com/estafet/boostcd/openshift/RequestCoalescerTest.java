@@ -0,0 +1,59 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class RequestCoalescerTest {
+
+	@Test
+	public void concurrentCallersShareOneCall() throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer();
+		AtomicInteger calls = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> coalescer.execute("list/Service/dev", () -> {
+			calls.incrementAndGet();
+			ResourceCacheTest.await(release);
+			return "services";
+		}));
+		while (coalescer.getInFlight() == 0) {
+			Thread.sleep(5);
+		}
+		CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> coalescer.execute("list/Service/dev", () -> {
+			calls.incrementAndGet();
+			return "again";
+		}));
+		Thread.sleep(100);
+		release.countDown();
+		assertEquals("services", leader.get(5, TimeUnit.SECONDS));
+		assertEquals("services", follower.get(5, TimeUnit.SECONDS));
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void anErrorReachesFollowersAndIsNotRemembered() throws Exception {
+		RequestCoalescer coalescer = new RequestCoalescer();
+		coalescer.withWindow(1, TimeUnit.MINUTES);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> coalescer.execute("list/Service/dev", () -> {
+			loading.countDown();
+			ResourceCacheTest.await(release);
+			throw new LinkageError("call failed");
+		}));
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> coalescer.execute("list/Service/dev", () -> "again"));
+		Thread.sleep(100);
+		release.countDown();
+		ResourceCacheTest.assertFailedWith(LinkageError.class, leader);
+		ResourceCacheTest.assertFailedWith(LinkageError.class, follower);
+		assertEquals("fresh", coalescer.execute("list/Service/dev", () -> "fresh"));
+	}
+
+}
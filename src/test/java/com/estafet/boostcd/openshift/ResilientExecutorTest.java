@@ -0,0 +1,126 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.openshift.restclient.IClient;
+import com.openshift.restclient.OpenShiftException;
+import com.openshift.restclient.ResourceKind;
+import com.openshift.restclient.model.IResource;
+
+public class ResilientExecutorTest {
+
+	private static final String SERVICES = "/api/v1/namespaces/dev/services";
+	private static final Function<IClient, List<IResource>> LIST = client -> client.list(ResourceKind.SERVICE, "dev");
+
+	private FakeOpenShiftServer server;
+	private ResilientExecutor executor;
+
+	@Before
+	public void start() throws Exception {
+		server = new FakeOpenShiftServer();
+		server.put(SERVICES, "basket", ResourceWatchCacheTest.service("basket", "shop"));
+		executor = new ResilientExecutor(new OpenShiftSession(server.getUrl(), "developer", "developer"))
+				.withRetries(3, 10, TimeUnit.MILLISECONDS)
+				.withCircuitBreaker(2, 300, TimeUnit.MILLISECONDS);
+		executor.read("list/Service", null, LIST);
+	}
+
+	@After
+	public void stop() throws Exception {
+		executor.close();
+		server.close();
+	}
+
+	@Test
+	public void retriesServerErrorsWithBackoff() {
+		executor.withCircuitBreaker(10, 300, TimeUnit.MILLISECONDS);
+		server.fail(2, 503);
+		assertEquals(1, executor.read("list/Service", null, LIST).size());
+		assertEquals(2, executor.getRetries());
+		assertEquals(ResilientExecutor.BreakerState.CLOSED, executor.getBreakerState());
+	}
+
+	@Test
+	public void opensTheBreakerAndRecoversThroughHalfOpen() throws Exception {
+		executor.withRetries(0, 10, TimeUnit.MILLISECONDS);
+		server.fail(2, 500);
+		assertFails(500);
+		assertFails(500);
+		assertEquals(ResilientExecutor.BreakerState.OPEN, executor.getBreakerState());
+		int requests = server.getRequestCount();
+		try {
+			executor.read("list/Service", null, LIST);
+			fail("expected the open breaker to reject the call");
+		} catch (OpenShiftException e) {
+			assertTrue(e.getMessage().contains("Circuit breaker"));
+		}
+		assertEquals(requests, server.getRequestCount());
+		assertEquals(1, executor.getRejected());
+
+		Thread.sleep(400);
+		assertEquals(1, executor.read("list/Service", null, LIST).size());
+		assertEquals(ResilientExecutor.BreakerState.CLOSED, executor.getBreakerState());
+	}
+
+	@Test
+	public void servesTheLastKnownResultWhilstOpen() {
+		executor.withRetries(0, 10, TimeUnit.MILLISECONDS);
+		List<IResource> fresh = executor.read("list/Service", "list/Service/dev", LIST);
+		server.fail(10, 500);
+		assertFails(500);
+		assertSame(fresh, executor.read("list/Service", "list/Service/dev", LIST));
+		assertEquals(ResilientExecutor.BreakerState.OPEN, executor.getBreakerState());
+		assertEquals(1, executor.getStaleServed());
+	}
+
+	@Test
+	public void clientErrorsCountNeitherForNorAgainstTheBreaker() {
+		executor.withRetries(0, 10, TimeUnit.MILLISECONDS);
+		server.fail(1, 500);
+		assertFails(500);
+		server.fail(1, 404);
+		assertFails(404);
+		assertEquals(0, executor.getRetries());
+		server.fail(1, 500);
+		assertFails(500);
+		assertEquals(ResilientExecutor.BreakerState.OPEN, executor.getBreakerState());
+	}
+
+	@Test
+	public void aClusterHoldsNoPermitWhilstBackingOff() throws Exception {
+		try (Cluster cluster = new Cluster(server.config("test"))) {
+			cluster.getExecutor().withRetries(1, 1000, TimeUnit.MILLISECONDS);
+			cluster.read("list/Service", null, LIST);
+			server.fail(1, 503);
+			CompletableFuture<List<IResource>> read = CompletableFuture.supplyAsync(() -> cluster.read("list/Service", null, LIST));
+			long deadline = System.currentTimeMillis() + 5000;
+			while (cluster.getExecutor().getRetries() == 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			assertEquals(ClusterConfig.DEFAULT_MAX_CONCURRENT_REQUESTS, cluster.getAvailablePermits());
+			assertEquals(1, read.get(5, TimeUnit.SECONDS).size());
+		}
+	}
+
+	private void assertFails(int status) {
+		try {
+			executor.read("list/Service", null, LIST);
+			fail("expected HTTP " + status);
+		} catch (OpenShiftException e) {
+			assertEquals(status, e.getStatus().getCode());
+		}
+	}
+
+}
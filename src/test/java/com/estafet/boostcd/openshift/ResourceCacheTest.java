@@ -0,0 +1,99 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import com.openshift.restclient.IResourceFactory;
+import com.openshift.restclient.ResourceKind;
+import com.openshift.restclient.model.IResource;
+
+public class ResourceCacheTest {
+
+	@Test
+	public void anErrorInTheLoaderReachesWaitingCallersAndIsNotCached() throws Exception {
+		ResourceCache cache = new ResourceCache(16, 1, TimeUnit.MINUTES);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<IResource> leader = CompletableFuture.supplyAsync(() -> cache.get(ResourceKind.BUILD_CONFIG, "dev", "pipeline", () -> {
+			loading.countDown();
+			await(release);
+			throw new LinkageError("loader failed");
+		}));
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		CompletableFuture<IResource> follower = CompletableFuture.supplyAsync(() -> cache.get(ResourceKind.BUILD_CONFIG, "dev", "pipeline", () -> {
+			throw new AssertionError("the follower should wait for the leader");
+		}));
+		Thread.sleep(100);
+		release.countDown();
+		assertFailedWith(LinkageError.class, leader);
+		assertFailedWith(LinkageError.class, follower);
+		assertNull(cache.get(ResourceKind.BUILD_CONFIG, "dev", "pipeline", () -> null));
+	}
+
+	@Test
+	public void aStaleLoadDoesNotReplaceAVersionObservedMeanwhile() throws Exception {
+		try (FakeOpenShiftServer server = new FakeOpenShiftServer();
+				OpenShiftClient client = OpenShiftClient.builder().withCluster(server.config("test")).build()) {
+			IResourceFactory factory = client.getSession().getClient().getResourceFactory();
+			ResourceCache cache = new ResourceCache(16, 1, TimeUnit.MINUTES);
+			IResource observed = buildConfig(factory, "7");
+			IResource loaded = cache.get(ResourceKind.BUILD_CONFIG, "dev", "pipeline", () -> {
+				cache.observe(observed);
+				return buildConfig(factory, "5");
+			});
+			assertSame(observed, loaded);
+			assertEquals("7", cache.get(ResourceKind.BUILD_CONFIG, "dev", "pipeline", () -> buildConfig(factory, "6")).getResourceVersion());
+			assertEquals(1, cache.size());
+		}
+	}
+
+	@Test
+	public void aNewerLoadReplacesTheVersionObservedMeanwhile() throws Exception {
+		try (FakeOpenShiftServer server = new FakeOpenShiftServer();
+				OpenShiftClient client = OpenShiftClient.builder().withCluster(server.config("test")).build()) {
+			IResourceFactory factory = client.getSession().getClient().getResourceFactory();
+			ResourceCache cache = new ResourceCache(16, 1, TimeUnit.MINUTES);
+			assertEquals("6", cache.get(ResourceKind.BUILD_CONFIG, "dev", "pipeline", () -> {
+				cache.observe(buildConfig(factory, "4"));
+				return buildConfig(factory, "6");
+			}).getResourceVersion());
+			assertEquals("6", cache.get(ResourceKind.BUILD_CONFIG, "dev", "pipeline", () -> null).getResourceVersion());
+		}
+	}
+
+	private static IResource buildConfig(IResourceFactory factory, String resourceVersion) {
+		return factory.create("{\"kind\":\"BuildConfig\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"pipeline\","
+				+ "\"namespace\":\"dev\",\"resourceVersion\":\"" + resourceVersion + "\"}}");
+	}
+
+	static void assertFailedWith(Class<? extends Throwable> expected, CompletableFuture<?> future) throws InterruptedException {
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("expected " + expected.getSimpleName());
+		} catch (ExecutionException e) {
+			assertSame(expected, e.getCause().getClass());
+		} catch (TimeoutException e) {
+			fail("still waiting for " + expected.getSimpleName());
+		}
+	}
+
+	static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,211 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.openshift.restclient.ResourceKind;
+import com.openshift.restclient.model.IService;
+
+public class ResourceWatchCacheTest {
+
+	private static final String SERVICES = "/api/v1/namespaces/dev/services";
+	private static final Map<String, String> ALL = Collections.<String, String>emptyMap();
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private FakeOpenShiftServer server;
+	private Cluster cluster;
+	private ResourceWatchCache cache;
+
+	@Before
+	public void start() throws Exception {
+		server = new FakeOpenShiftServer();
+		server.put(SERVICES, "basket", service("basket", "shop"));
+		server.put(SERVICES, "stock", service("stock", "shop"));
+		server.put(SERVICES, "jenkins", service("jenkins", "cicd"));
+		cluster = new Cluster(server.config("test"));
+	}
+
+	@After
+	public void stop() throws Exception {
+		if (cache != null) {
+			cache.close();
+		}
+		cluster.close();
+		server.close();
+	}
+
+	@Test
+	public void servesTheInitialListFromMemoryOnceWatching() {
+		cache = new ResourceWatchCache(cluster, Collections.singleton(ResourceKind.SERVICE), 1, TimeUnit.HOURS, 8);
+		assertEquals(names("basket", "jenkins", "stock"), names(cache.list(ResourceKind.SERVICE, "dev", ALL)));
+		awaitWatching();
+		int lists = server.getLists(SERVICES);
+		assertEquals(names("basket", "stock"), names(cache.list(ResourceKind.SERVICE, "dev", Collections.singletonMap("app", "shop"))));
+		assertEquals(names("basket", "jenkins", "stock"), names(cache.list(ResourceKind.SERVICE, "dev", ALL)));
+		assertEquals(lists, server.getLists(SERVICES));
+	}
+
+	@Test
+	public void appliesAddedModifiedAndDeletedEvents() {
+		cache = new ResourceWatchCache(cluster, Collections.singleton(ResourceKind.SERVICE), 1, TimeUnit.HOURS, 8);
+		awaitWatching();
+		server.emit("ADDED", SERVICES, "orders", service("orders", "shop"));
+		server.emit("MODIFIED", SERVICES, "jenkins", service("jenkins", "shop"));
+		server.emit("DELETED", SERVICES, "stock", service("stock", "shop"));
+		Map<String, String> shop = Collections.singletonMap("app", "shop");
+		await(() -> names("basket", "jenkins", "orders").equals(names(cache.list(ResourceKind.SERVICE, "dev", shop))));
+	}
+
+	@Test
+	public void notifiesSubscribersOfChangedResourcesOnly() {
+		cache = new ResourceWatchCache(cluster, Collections.singleton(ResourceKind.SERVICE), 1, TimeUnit.HOURS, 8);
+		awaitWatching();
+		List<String> changed = new CopyOnWriteArrayList<String>();
+		cache.subscribe(resource -> changed.add(resource.getName()));
+		server.emit("MODIFIED", SERVICES, "jenkins", service("jenkins", "shop"));
+		server.emit("DELETED", SERVICES, "stock", service("stock", "shop"));
+		await(() -> changed.size() == 2);
+		assertEquals(names("jenkins", "stock"), new TreeSet<String>(changed));
+		cache.list(ResourceKind.SERVICE, "dev", ALL);
+		assertEquals(2, changed.size());
+	}
+
+	@Test
+	public void resyncPicksUpChangesTheWatchMissed() {
+		cache = new ResourceWatchCache(cluster, Collections.singleton(ResourceKind.SERVICE), 200, TimeUnit.MILLISECONDS, 8);
+		awaitWatching();
+		server.put(SERVICES, "orders", service("orders", "shop"));
+		server.remove(SERVICES, "basket");
+		await(() -> names("jenkins", "orders", "stock").equals(names(cache.list(ResourceKind.SERVICE, "dev", ALL))));
+	}
+
+	@Test
+	public void resyncKeepsEventsNewerThanItsList() throws Exception {
+		cache = new ResourceWatchCache(cluster, Collections.singleton(ResourceKind.SERVICE), 1, TimeUnit.HOURS, 8);
+		awaitWatching();
+		int lists = server.getLists(SERVICES);
+		server.setDelay(500);
+		Thread resync = new Thread(cache::resync);
+		resync.start();
+		await(() -> server.getLists(SERVICES) > lists);
+		server.emit("ADDED", SERVICES, "orders", service("orders", "shop"));
+		server.emit("DELETED", SERVICES, "stock", service("stock", "shop"));
+		await(() -> names("basket", "jenkins", "orders").equals(names(cache.list(ResourceKind.SERVICE, "dev", ALL))));
+		resync.join();
+		assertEquals(names("basket", "jenkins", "orders"), names(cache.list(ResourceKind.SERVICE, "dev", ALL)));
+	}
+
+	@Test
+	public void fallsBackToAListWithoutWaitingForABrokenWatch() {
+		server.setWatchable(false);
+		cache = new ResourceWatchCache(cluster, Collections.singleton(ResourceKind.SERVICE), 1, TimeUnit.HOURS, 8);
+		long start = System.currentTimeMillis();
+		List<IService> shop = cache.list(ResourceKind.SERVICE, "dev", Collections.singletonMap("app", "shop"));
+		assertEquals(names("basket", "stock"), names(shop));
+		assertTrue(System.currentTimeMillis() - start < 5000);
+		start = System.currentTimeMillis();
+		assertEquals(names("basket", "jenkins", "stock"), names(cache.list(ResourceKind.SERVICE, "dev", ALL)));
+		assertTrue(System.currentTimeMillis() - start < ResourceWatchCache.SYNC_WAIT_MILLIS + 2000);
+		assertEquals(0, server.getWatches(SERVICES));
+	}
+
+	@Test
+	public void resumesTheWatchOfALoadedSnapshotWithoutAList() throws Exception {
+		Path snapshot = snapshotThenChangeWhilstDown();
+		int lists = server.getLists(SERVICES);
+		cache = new ResourceWatchCache(cluster, Collections.singleton(ResourceKind.SERVICE), 1, TimeUnit.HOURS, 8);
+		assertEquals(3, cache.loadSnapshot(snapshot));
+		await(() -> names("basket", "jenkins", "orders").equals(names(cache.list(ResourceKind.SERVICE, "dev", ALL))));
+		assertEquals(1, server.getWatches(SERVICES));
+		assertEquals(lists, server.getLists(SERVICES));
+	}
+
+	@Test
+	public void listsAgainWhenTheSavedVersionHasExpired() throws Exception {
+		Path snapshot = snapshotThenChangeWhilstDown();
+		server.compact();
+		int lists = server.getLists(SERVICES);
+		cache = new ResourceWatchCache(cluster, Collections.singleton(ResourceKind.SERVICE), 1, TimeUnit.HOURS, 8);
+		cache.loadSnapshot(snapshot);
+		await(() -> names("basket", "jenkins", "orders").equals(names(cache.list(ResourceKind.SERVICE, "dev", ALL))));
+		await(() -> server.getWatches(SERVICES) == 1);
+		assertEquals(lists + 1, server.getLists(SERVICES));
+	}
+
+	/**
+	 * Writes the synced services to a snapshot, closes the cache and then
+	 * adds orders and deletes stock before the next one starts.
+	 */
+	private Path snapshotThenChangeWhilstDown() throws Exception {
+		cache = new ResourceWatchCache(cluster, Collections.singleton(ResourceKind.SERVICE), 1, TimeUnit.HOURS, 8);
+		awaitWatching();
+		Path snapshot = folder.newFile("watch-cache.snapshot").toPath();
+		assertEquals(3, cache.writeSnapshot(snapshot));
+		cache.close();
+		cache = null;
+		await(() -> server.getWatches(SERVICES) == 0);
+		server.emit("ADDED", SERVICES, "orders", service("orders", "shop"));
+		server.emit("DELETED", SERVICES, "stock", service("stock", "shop"));
+		return snapshot;
+	}
+
+	private void awaitWatching() {
+		cache.list(ResourceKind.SERVICE, "dev", ALL);
+		await(() -> server.getWatches(SERVICES) == 1);
+		await(() -> {
+			int lists = server.getLists(SERVICES);
+			cache.list(ResourceKind.SERVICE, "dev", ALL);
+			return lists == server.getLists(SERVICES);
+		});
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!condition.getAsBoolean()) {
+			assertTrue("timed out", System.currentTimeMillis() < deadline);
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	private static TreeSet<String> names(String... names) {
+		TreeSet<String> result = new TreeSet<String>();
+		Collections.addAll(result, names);
+		return result;
+	}
+
+	private static TreeSet<String> names(List<? extends IService> services) {
+		TreeSet<String> result = new TreeSet<String>();
+		for (IService service : services) {
+			result.add(service.getName());
+		}
+		return result;
+	}
+
+	static String service(String name, String app) {
+		return "{\"kind\":\"Service\",\"apiVersion\":\"v1\",\"metadata\":{\"name\":\"" + name + "\",\"namespace\":\"dev\","
+				+ "\"resourceVersion\":\"?\",\"labels\":{\"app\":\"" + app + "\"}},"
+				+ "\"spec\":{\"clusterIP\":\"172.30.0.1\",\"ports\":[{\"port\":8080,\"targetPort\":8080}]}}";
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.estafet.boostcd.openshift;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class TopologyChangeFeedTest {
+
+	private final TopologyChangeFeed feed = new TopologyChangeFeed();
+
+	@Test
+	public void comparesOnlyTheTouchedApps() {
+		feed.publish(topology(app("basket", "1.0"), app("stock", "1.0")));
+		List<TopologyChange> changes = feed.publish(topology(app("basket", "1.1"), app("stock", "1.1")), touched("basket"));
+		assertEquals(1, changes.size());
+		assertEquals("basket", changes.get(0).getApp());
+		assertTrue(changes.get(0).is(TopologyChange.Type.VERSION_CHANGED));
+		changes = feed.publish(topology(app("basket", "1.1"), app("stock", "1.1")), touched("stock"));
+		assertEquals(1, changes.size());
+		assertEquals("stock", changes.get(0).getApp());
+	}
+
+	@Test
+	public void reportsTouchedAppsThatWereAddedOrRemoved() {
+		feed.publish(topology(app("basket", "1.0")));
+		List<TopologyChange> changes = feed.publish(topology(app("stock", "1.0")), touched("basket", "stock"));
+		assertEquals(2, changes.size());
+		for (TopologyChange change : changes) {
+			assertTrue(change.is("basket".equals(change.getApp()) ? TopologyChange.Type.REMOVED : TopologyChange.Type.ADDED));
+		}
+		assertEquals(0, feed.publish(topology(app("stock", "1.0"))).size());
+	}
+
+	@Test
+	public void comparesANamespaceInFullTheFirstTime() {
+		assertTrue(!feed.isPublished("shop"));
+		List<TopologyChange> changes = feed.publish(topology(app("basket", "1.0"), app("stock", "1.0")), touched("basket"));
+		assertEquals(2, changes.size());
+		assertTrue(feed.isPublished("shop"));
+	}
+
+	private static ProductTopology topology(AppTopology... apps) {
+		Map<String, AppTopology> dev = new HashMap<String, AppTopology>();
+		for (AppTopology app : apps) {
+			dev.put(app.getApp(), app);
+		}
+		return new ProductTopology("shop", Collections.singletonMap("dev", dev), Collections.<String>emptySet());
+	}
+
+	private static AppTopology app(String name, String version) {
+		return new AppTopology(name, "dev", version, "2020-01-01", "8080", "/health", "172.30.0.1", null, null);
+	}
+
+	private static Map<String, Set<String>> touched(String... apps) {
+		Set<String> names = new HashSet<String>();
+		Collections.addAll(names, apps);
+		return Collections.singletonMap("dev", names);
+	}
+
+}